@@ -0,0 +1,74 @@
+package inventoryreader.ir;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves a scan's worth of item names through the old replace/split/regex path and through
+ * {@link NameCanonicalizer}, by string and by raw dictionary ID. Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameCanonicalizerBenchmark {
+    private static final int TRACKED = 500;
+    static final int NAMES = 1024;
+    private static final String[] PREFIXES = {"", "", "Perfect ", "Fine ", "Hot ", "x "};
+    private static final String[] SUFFIXES = {"", "", "✪", "✪✪✪➋", "➎", " "};
+
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+    private final BitSet tracked = new BitSet();
+    private String[] names;
+    private int[] rawIds;
+    private NameCanonicalizer canonicalizer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < TRACKED; i++) tracked.set(dictionary.intern("Bench Resource " + i));
+        names = new String[NAMES];
+        rawIds = new int[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            // About one name in eight is an untracked item such as armor or a menu button
+            String base = random.nextInt(8) == 0 ? "Bench Gear " + random.nextInt(200) : "Bench Resource " + random.nextInt(TRACKED);
+            names[i] = PREFIXES[random.nextInt(PREFIXES.length)] + base + SUFFIXES[random.nextInt(SUFFIXES.length)];
+            rawIds[i] = dictionary.intern(names[i]);
+        }
+        canonicalizer = new NameCanonicalizer(dictionary, tracked::get);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void legacy(Blackhole bh) {
+        for (String name : names) bh.consume(LegacyNameResolution.resolve(dictionary, tracked::get, name));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void canonicalizerByName(Blackhole bh) {
+        for (String name : names) bh.consume(canonicalizer.resolve(name));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void canonicalizerByRawId(Blackhole bh) {
+        for (int id : rawIds) bh.consume(canonicalizer.resolve(id));
+    }
+}
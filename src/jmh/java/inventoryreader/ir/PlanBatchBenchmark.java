@@ -0,0 +1,75 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A shopping list of 20 targets, every tier of a 20-deep chain, so their closures overlap, in graphs of growing
+ * size. {@link RecipeSolver#planBatch} plans them in one call over a shared copy of the counts; the baseline is
+ * one {@link RecipeSolver#remaining} call per target, each on a fresh copy. Every call allocates arrays sized to
+ * the graph, so the baseline pays that 20 times over as {@code recipes} grows; the batch should stay well under a
+ * millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanBatchBenchmark {
+    @Param({"500", "5000"})
+    public int recipes;
+
+    private static final int TARGETS = 20;
+
+    private RecipeGraph graph;
+    private int[] counts;
+    private int[] targets;
+    private int[] amounts;
+
+    @Setup
+    public void setUp() {
+        String prefix = "Batch" + recipes;
+        graph = RecipeFixtures.compile(RecipeFixtures.chain(prefix, TARGETS, recipes));
+        Map<String, Integer> resources = new LinkedHashMap<>();
+        resources.put(prefix + " Tier 4", 2);
+        resources.put(prefix + " Tier 12", 5);
+        resources.put(prefix + " Ore 1", 10_000);
+        resources.put(prefix + " Gem 0", 3);
+        counts = TestSnapshots.counts(resources);
+        targets = new int[TARGETS];
+        amounts = new int[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = ItemDictionary.getInstance().intern(prefix + " Tier " + i);
+            amounts[i] = 1 + i % 3;
+        }
+    }
+
+    @Benchmark
+    public BatchPlan planBatch() {
+        return new RecipeSolver(graph).planBatch(targets, amounts, counts.clone());
+    }
+
+    @Benchmark
+    public ResourcesManager.RemainingResponse[] remainingPerTarget() {
+        RecipeSolver solver = new RecipeSolver(graph);
+        ResourcesManager.RemainingResponse[] out = new ResourcesManager.RemainingResponse[TARGETS];
+        for (int i = 0; i < TARGETS; i++) out[i] = solver.remaining(targets[i], amounts[i], counts.clone());
+        return out;
+    }
+}
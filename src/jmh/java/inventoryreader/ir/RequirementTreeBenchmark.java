@@ -0,0 +1,112 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requirement trees for a diamond of growing depth, from the recursive solver and from {@link RecipeSolver}, with
+ * scarce materials (a few cores, some shards) or every material owned. The legacy tree has a node and a child
+ * list per path (2^depth), the solver's one node per distinct subtree (a few per item, linear in depth), and a
+ * memoized repeat returns the last plan without walking. Tree sizes are reported as the {@link TreeSize} counters
+ * next to each score; run with -prof gc to compare gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequirementTreeBenchmark {
+    @Param({"6", "12"})
+    public int depth;
+
+    @Param({"scarce", "owned"})
+    public String stock;
+
+    private RecipeGraph graph;
+    private LegacyRecipeSolver legacy;
+    private Map<String, Integer> resources;
+    private String target;
+    private int targetId;
+    private int[] counts;
+    private RecipeSolver.PlanMemo memo;
+
+    @Setup
+    public void setUp() {
+        String prefix = "Tree" + depth;
+        Map<String, Map<String, Integer>> recipes = RecipeFixtures.diamond(prefix, depth, 0);
+        graph = RecipeFixtures.compile(recipes);
+        legacy = new LegacyRecipeSolver(recipes);
+        resources = new LinkedHashMap<>();
+        if (stock.equals("owned")) {
+            resources.put(prefix + " Core", Integer.MAX_VALUE);
+            resources.put(prefix + " Dust", Integer.MAX_VALUE);
+            resources.put(prefix + " Shard", Integer.MAX_VALUE);
+        } else {
+            resources.put(prefix + " Core", 3);
+            resources.put(prefix + " Shard", 1_000);
+        }
+        target = prefix + " Part 0";
+        targetId = ItemDictionary.getInstance().intern(target);
+        counts = TestSnapshots.counts(resources);
+        memo = new RecipeSolver.PlanMemo(graph);
+    }
+
+    /** Node counts of both trees, measured once per iteration so counting is not part of the score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TreeSize {
+        // Every path of the legacy tree, and the distinct nodes of the solver's
+        public long legacyNodes;
+        public long planNodes;
+
+        @Setup(Level.Iteration)
+        public void measure(RequirementTreeBenchmark bench) {
+            legacyNodes = count(bench.legacyTree(null).full_recipe, null);
+            planNodes = count(bench.planTree(null).full_recipe, Collections.newSetFromMap(new IdentityHashMap<>()));
+        }
+    }
+
+    @Benchmark
+    public ResourcesManager.RemainingResponse legacyTree(TreeSize size) {
+        return legacy.getRemainingIngredients(target, 1, resources);
+    }
+
+    @Benchmark
+    public ResourcesManager.RemainingResponse planTree(TreeSize size) {
+        return new RecipeSolver(graph).remaining(targetId, 1, counts.clone());
+    }
+
+    @Benchmark
+    public ResourcesManager.RemainingResponse memoizedPlanTree(TreeSize size) {
+        return new RecipeSolver(graph).remaining(targetId, 1, counts.clone(), memo);
+    }
+
+    // Nodes reachable from root; with a seen set each distinct node counts once, without it every path does
+    private static long count(RecipeManager.RecipeNode node, Set<RecipeManager.RecipeNode> seen) {
+        if (seen != null && !seen.add(node)) return 0;
+        long n = 1;
+        for (RecipeManager.RecipeNode child : node.ingredients) n += count(child, seen);
+        return n;
+    }
+}
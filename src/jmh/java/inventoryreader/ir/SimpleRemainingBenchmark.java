@@ -0,0 +1,70 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw materials missing for a 20-deep chain, in graphs of growing size. Run with -prof gc: the legacy walk copies
+ * every recipe three times per node (O(recipes x depth) bytes), {@link RecipeSolver#needed} allocates only the
+ * result map (O(tree size)), so its gc.alloc.rate.norm stays flat as {@code recipes} grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleRemainingBenchmark {
+    @Param({"500", "5000"})
+    public int recipes;
+
+    private static final int DEPTH = 20;
+
+    private RecipeGraph graph;
+    private LegacySimpleRemaining legacy;
+    private ResourceSnapshot snapshot;
+    private Map<String, Integer> resources;
+    private String target;
+    private int targetId;
+
+    @Setup
+    public void setUp() {
+        String prefix = "Bench" + recipes;
+        Map<String, Map<String, Integer>> all = RecipeFixtures.chain(prefix, DEPTH, recipes);
+        graph = RecipeFixtures.compile(all);
+        legacy = new LegacySimpleRemaining(all);
+        resources = new LinkedHashMap<>();
+        resources.put(prefix + " Ore 1", 10_000);
+        resources.put(prefix + " Gem 0", 3);
+        snapshot = TestSnapshots.of(resources);
+        target = prefix + " Tier 0";
+        targetId = ItemDictionary.getInstance().intern(target);
+    }
+
+    @Benchmark
+    public Map<String, Integer> legacyCopyingWalk() {
+        return legacy.getSimpleRemainingIngredients(target, 1, resources);
+    }
+
+    @Benchmark
+    public Map<String, Integer> graphWalk() {
+        Map<String, Integer> needed = new LinkedHashMap<>();
+        new RecipeSolver(graph).needed(targetId, 1, snapshot, needed);
+        return needed;
+    }
+}
@@ -0,0 +1,100 @@
+package inventoryreader.ir.recipes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The NEU ZIP ingest over a generated archive of {@code items} entries: a first fetch parses every entry, a
+ * refetch of an unchanged archive takes them all from the previous index. Both ZIP paths are measured, the
+ * central-directory one used for cached archives and the streaming one used for downloads. Pass
+ * {@code -Djmh.neuZip=<path>} to run against a real repository archive instead, e.g. the master ZIP of
+ * NotEnoughUpdates-REPO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeuParseBenchmark {
+    private static final String SOURCE = "bench://neu";
+
+    @Param({"2000", "8000"})
+    public int items;
+
+    private Path dir;
+    private Path zip;
+    private NeuIndex empty;
+    private NeuIndex previous;
+
+    @Setup
+    public void setUp() throws Exception {
+        String given = System.getProperty("jmh.neuZip");
+        dir = Files.createTempDirectory("ir-neu-bench");
+        if (given != null) {
+            zip = Path.of(given);
+        } else {
+            zip = dir.resolve("neu.zip");
+            RecipeFixtures.writeNeuZip(zip, "Bench", items);
+        }
+        empty = new NeuIndex(SOURCE);
+        previous = new NeuIndex(SOURCE);
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            RemoteRecipeFetcher.parseItems(file, empty, previous, new int[1]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dir.resolve("neu.zip"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public List<NeuItemReader.Item> zipFileFullParse() throws Exception {
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            return RemoteRecipeFetcher.parseItems(file, empty, new NeuIndex(SOURCE), new int[1]);
+        }
+    }
+
+    @Benchmark
+    public List<NeuItemReader.Item> zipFileUnchanged() throws Exception {
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            return RemoteRecipeFetcher.parseItems(file, previous, new NeuIndex(SOURCE), new int[1]);
+        }
+    }
+
+    @Benchmark
+    public List<NeuItemReader.Item> streamFullParse() throws Exception {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(zip)); ZipInputStream zin = new ZipInputStream(in)) {
+            return RemoteRecipeFetcher.parseItems(zin, empty, new NeuIndex(SOURCE), new int[1]);
+        }
+    }
+
+    @Benchmark
+    public List<NeuItemReader.Item> streamUnchanged() throws Exception {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(zip)); ZipInputStream zin = new ZipInputStream(in)) {
+            return RemoteRecipeFetcher.parseItems(zin, previous, new NeuIndex(SOURCE), new int[1]);
+        }
+    }
+}
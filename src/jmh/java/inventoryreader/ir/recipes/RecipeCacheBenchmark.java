@@ -0,0 +1,78 @@
+package inventoryreader.ir.recipes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting the merged recipe set at startup from {@code recipes} recipes split over a bundled and a remote file:
+ * a cold start reads both JSON files, a warm one maps the binary cache written for them. Both first hash the
+ * sources, as the registry does to decide between the two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeCacheBenchmark {
+    @Param({"2000", "8000"})
+    public int recipes;
+
+    private Path dir;
+    private List<File> sources;
+    private File cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ir-cache-bench");
+        Path bundled = dir.resolve("forging.json");
+        Path remote = dir.resolve("recipes_remote.json");
+        RecipeFixtures.writeRecipeFile(bundled, RecipeFixtures.chain("Bundled", 20, recipes / 4), true);
+        RecipeFixtures.writeRecipeFile(remote, RecipeFixtures.chain("Remote", 20, recipes - recipes / 4), false);
+        sources = List.of(bundled.toFile(), remote.toFile());
+        cache = dir.resolve("recipes.bin").toFile();
+        RecipeCache.write(cache, RecipeCache.sourceKey(sources), coldStart(), Set.of());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Map<String, Recipe> coldStart() throws IOException {
+        RecipeCache.sourceKey(sources);
+        Map<String, Recipe> merged = new LinkedHashMap<>();
+        merged.putAll(RecipeFileReader.read(sources.get(0), (byte) 0, (byte) 10));
+        merged.putAll(RecipeFileReader.read(sources.get(1), (byte) 2, (byte) 20));
+        return merged;
+    }
+
+    @Benchmark
+    public Map<String, Recipe> warmStart() {
+        return RecipeCache.read(cache, RecipeCache.sourceKey(sources)).recipes();
+    }
+}
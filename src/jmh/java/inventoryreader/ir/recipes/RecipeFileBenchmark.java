@@ -0,0 +1,79 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading one recipe file of {@code recipes} entries: the old {@code readRecipeMap} round trip through
+ * {@code Map<String, Object>} and back to JSON, the JSON-tree load that followed it, and the single
+ * {@link RecipeFileReader} pass. Run with {@code ./gradlew jmh -Pjmh.includes=RecipeFileBenchmark -Pjmh.profilers=gc}
+ * to see allocation per load next to the times. Pass {@code -Djmh.recipeFile=<path>} to load a real file, such as
+ * a downloaded {@code recipes_remote.json}, instead of a generated one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeFileBenchmark {
+    @Param({"500", "5000"})
+    public int recipes;
+
+    @Param({"envelope", "bare"})
+    public String shape;
+
+    private final Gson gson = new Gson();
+    private Path generated;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        String given = System.getProperty("jmh.recipeFile");
+        if (given != null) {
+            file = new File(given);
+            return;
+        }
+        generated = Files.createTempFile("ir-recipes-bench", ".json");
+        RecipeFixtures.writeRecipeFile(generated, RecipeFixtures.chain("Bench", 20, recipes), shape.equals("envelope"));
+        file = generated.toFile();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (generated != null) Files.deleteIfExists(generated);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> legacyRoundTrip() throws IOException {
+        return LegacyRecipeFileReader.readRecipeMap(gson, file);
+    }
+
+    @Benchmark
+    public Map<String, Recipe> legacyTree() throws IOException {
+        return LegacyRecipeFileReader.readTree(file, (byte) 2, 20);
+    }
+
+    @Benchmark
+    public Map<String, Recipe> streaming() throws IOException {
+        return RecipeFileReader.read(file, (byte) 2, (byte) 20);
+    }
+}
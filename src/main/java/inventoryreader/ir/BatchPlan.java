@@ -0,0 +1,50 @@
+package inventoryreader.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of planning several targets against one shared inventory. Targets are served in the order given, so
+ * owned stock goes to the first target that needs it; the combined totals do not depend on that order.
+ */
+public final class BatchPlan {
+    public final List<TargetPlan> targets = new ArrayList<>();
+    /** Raw materials still missing across all targets, in first-needed order. */
+    public final Map<String, Long> missing = new LinkedHashMap<>();
+    /** Intermediates that have to be crafted across all targets. */
+    public final Map<String, Long> toCraft = new LinkedHashMap<>();
+    public long elapsedNanos;
+
+    public static final class TargetPlan {
+        public final String name;
+        public final int amount;
+        public final Map<String, Long> missing = new LinkedHashMap<>();
+        public final Map<String, Long> toCraft = new LinkedHashMap<>();
+
+        TargetPlan(String name, int amount) {
+            this.name = name;
+            this.amount = amount;
+        }
+    }
+
+    // A target nothing can craft or supply, inserted at its place in the target order
+    void addMissingTarget(int index, String name, int amount) {
+        TargetPlan result = new TargetPlan(name, amount);
+        if (amount > 0) {
+            result.missing.put(name, (long) amount);
+            missing.merge(name, (long) amount, Long::sum);
+        }
+        targets.add(index, result);
+    }
+
+    public Map<String, Long> sortedMissing() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(missing.entrySet());
+        entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : entries) out.put(e.getKey(), e.getValue());
+        return out;
+    }
+}
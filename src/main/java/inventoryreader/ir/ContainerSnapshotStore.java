@@ -0,0 +1,262 @@
+package inventoryreader.ir;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last known contents of every container (keyed by title), kept resident so scans diff against memory instead
+ * of re-reading JSON. Changes are written back in batches on a background thread, a short while after the
+ * first change, and on {@link #flushAll()}.
+ * <p>
+ * The ledger journals a capture's change as soon as it is applied, but its snapshot reaches disk later, so each
+ * stored snapshot is stamped with the journal sequence number of the change it matches. On load, a container
+ * the journal recorded a capture of after its stamp (or that has no stored snapshot at all) is stale: its next
+ * capture is taken as the new snapshot instead of being diffed again, since the ledger already holds the change.
+ */
+public final class ContainerSnapshotStore {
+    private static final long WRITE_DELAY_MS = 2000L;
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "IR-SnapshotWriter");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ContainerSnapshotStore CONTAINERS = new ContainerSnapshotStore("containers", FilePathManager.getContainerDataFile());
+    private static final ContainerSnapshotStore INVENTORY = new ContainerSnapshotStore("inventory", FilePathManager.getInventoryDataFile());
+    private static final Type CONTENTS_TYPE = new TypeToken<Map<String, Map<String, Integer>>>() {}.getType();
+    private static final Type SEQUENCES_TYPE = new TypeToken<Map<String, Long>>() {}.getType();
+
+    private final String name;
+    private final File file;
+    private final Map<String, ItemCounts> entries = new LinkedHashMap<>();
+    // Journal sequence number each snapshot matches, and the keys put since the last write
+    private final Map<String, Long> stamps = new HashMap<>();
+    private final Set<String> unsettled = new LinkedHashSet<>();
+    // Keys the journal holds a later capture of than their stored snapshot, with that capture's sequence number
+    private final Map<String, Long> stale = new HashMap<>();
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    // Serializes writes so an older batch can never land after a newer one
+    private final Object writeLock = new Object();
+    private boolean loaded = false;
+    private boolean dirty = false;
+    private boolean writeQueued = false;
+
+    private ContainerSnapshotStore(String name, File file) {
+        this.name = name;
+        this.file = file;
+    }
+
+    /** Storage containers (backpacks, ender chest pages, forge, accessory bag). */
+    public static ContainerSnapshotStore containers() {
+        return CONTAINERS;
+    }
+
+    /** The player's own inventory. */
+    public static ContainerSnapshotStore inventory() {
+        return INVENTORY;
+    }
+
+    public static void flushAll() {
+        CONTAINERS.flush();
+        INVENTORY.flush();
+    }
+
+    /** Drops resident state without writing it back; used by reset after the files were deleted. */
+    public static void discardAll() {
+        CONTAINERS.discard();
+        INVENTORY.discard();
+    }
+
+    /**
+     * Last stored contents of {@code key}, or null if the container was never seen. The returned counts are
+     * owned by the store and must not be modified.
+     */
+    public synchronized ItemCounts get(String key) {
+        ensureLoaded();
+        return entries.get(key);
+    }
+
+    /** Name {@code key}'s captures are journaled under; see {@link ResourcesManager#applyDeltas}. */
+    public String source(String key) {
+        return name + '/' + key;
+    }
+
+    /**
+     * Replaces the stored contents of {@code key} with a copy of {@code counts}, stamped with the journal
+     * sequence number of the change they match, and schedules a write.
+     */
+    public synchronized void put(String key, ItemCounts counts, long sequence) {
+        ensureLoaded();
+        ItemCounts stored = entries.get(key);
+        if (stored == null) {
+            stored = new ItemCounts();
+            entries.put(key, stored);
+        }
+        stored.copyFrom(counts);
+        stamps.put(key, sequence);
+        stale.remove(key);
+        unsettled.add(key);
+        dirty = true;
+        if (!writeQueued) {
+            writeQueued = true;
+            WRITER.schedule(this::flushSafe, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stores {@code counts} as is if the stored snapshot of {@code key} is older than the journal. Returns
+     * whether it did, in which case the capture must not be diffed.
+     */
+    public synchronized boolean rebaselineIfStale(String key, ItemCounts counts) {
+        ensureLoaded();
+        Long sequence = stale.get(key);
+        if (sequence == null) return false;
+        put(key, counts, sequence);
+        return true;
+    }
+
+    public void flush() {
+        synchronized (writeLock) {
+            String json;
+            Map<String, Long> written = new LinkedHashMap<>();
+            synchronized (this) {
+                writeQueued = false;
+                if (!dirty) return;
+                Map<String, Map<String, Integer>> contents = new LinkedHashMap<>();
+                Map<String, Long> sequences = new LinkedHashMap<>();
+                for (Map.Entry<String, ItemCounts> e : entries.entrySet()) {
+                    contents.put(e.getKey(), e.getValue().toNameMap());
+                    Long stamp = stamps.get(e.getKey());
+                    if (stamp != null) sequences.put(e.getKey(), stamp);
+                }
+                JsonObject out = new JsonObject();
+                out.add("sequences", gson.toJsonTree(sequences, SEQUENCES_TYPE));
+                out.add("contents", gson.toJsonTree(contents, CONTENTS_TYPE));
+                json = gson.toJson(out);
+                for (String key : unsettled) written.put(key, stamps.get(key));
+                unsettled.clear();
+                dirty = false;
+            }
+            if (!writeAtomically(json)) {
+                synchronized (this) {
+                    unsettled.addAll(written.keySet());
+                    dirty = true;
+                }
+                return;
+            }
+            // The journal no longer has to remember these captures across compactions
+            for (Map.Entry<String, Long> e : written.entrySet()) {
+                ResourcesManager.getInstance().settleSource(source(e.getKey()), e.getValue());
+            }
+        }
+    }
+
+    private void discard() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                entries.clear();
+                stamps.clear();
+                unsettled.clear();
+                stale.clear();
+                loaded = false;
+                dirty = false;
+            }
+        }
+    }
+
+    private void flushSafe() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            InventoryReader.LOGGER.error("Failed to write {}", file.getName(), t);
+        }
+    }
+
+    // Caller must hold this
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (file.exists() && file.length() > 0) {
+            try (FileReader reader = new FileReader(file)) {
+                JsonObject root = gson.fromJson(reader, JsonObject.class);
+                if (root != null) read(root);
+            } catch (IOException | JsonParseException | IllegalStateException e) {
+                InventoryReader.LOGGER.error("Failed to read {}", file.getName(), e);
+            }
+        }
+        String prefix = name + '/';
+        ResourcesManager ledger = ResourcesManager.getInstance();
+        for (Map.Entry<String, Long> e : ledger.unsettledSources().entrySet()) {
+            if (!e.getKey().startsWith(prefix)) continue;
+            String key = e.getKey().substring(prefix.length());
+            long stamp = stamps.getOrDefault(key, 0L);
+            if (e.getValue() > stamp) {
+                stale.put(key, e.getValue());
+            } else {
+                ledger.settleSource(e.getKey(), stamp);
+            }
+        }
+        if (!stale.isEmpty()) {
+            InventoryReader.LOGGER.warn("{} of {} are older than the resource journal; their next capture is taken as is",
+                    stale.size(), file.getName());
+        }
+    }
+
+    // Snapshots written before stamping are a bare map of contents and read as stamp 0
+    private void read(JsonObject root) {
+        JsonElement contents = root.get("contents");
+        JsonElement sequences = root.get("sequences");
+        boolean stamped = contents instanceof JsonObject && sequences instanceof JsonObject;
+        Map<String, Map<String, Integer>> data = gson.fromJson(stamped ? contents : root, CONTENTS_TYPE);
+        if (data != null) {
+            for (Map.Entry<String, Map<String, Integer>> e : data.entrySet()) {
+                if (e.getKey() != null) entries.put(e.getKey(), ItemCounts.fromNameMap(e.getValue()));
+            }
+        }
+        if (!stamped) return;
+        Map<String, Long> read = gson.fromJson(sequences, SEQUENCES_TYPE);
+        if (read == null) return;
+        for (Map.Entry<String, Long> e : read.entrySet()) {
+            if (e.getKey() != null && e.getValue() != null && entries.containsKey(e.getKey())) stamps.put(e.getKey(), e.getValue());
+        }
+    }
+
+    private boolean writeAtomically(String json) {
+        try {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists()) dir.mkdirs();
+            File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+            try (FileWriter writer = new FileWriter(tmp)) {
+                writer.write(json);
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicFail) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            InventoryReader.LOGGER.error("Failed to write {}", file.getName(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * How many of every craftable output could be made right now, crafting intermediates from current holdings.
+ * A bottom-up pass over the topological order gives each output an upper bound (every ingredient assumed to
+ * get all of its own stock); a binary search between zero and that bound, checking each guess with a
+ * demand walk over the output's closure, turns it into the exact answer. Closures are kept per graph, and on a
+ * ledger change only outputs that consume a changed item, directly or through intermediates, are searched again.
+ * Updates may come from any thread; {@link #entries()} is safe to read from the render thread.
+ */
+public final class CraftableIndex {
+    // No inventory can cover a demand this large, so larger guesses fail without overflowing
+    private static final long DEMAND_LIMIT = 1L << 52;
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "IR-Craftables");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public record Entry(String name, long amount) {}
+
+    private RecipeGraph graph;
+    private long version = -1L;
+    private int[][] closures = new int[0][];
+    private long[] max = new long[0];
+    private long[] stock = new long[0];
+    private long[] avail = new long[0];
+    private long[] demand = new long[0];
+    private long[] used = new long[0];
+    private long[] rawNeed = new long[0];
+    private int[] rawOrder = new int[0];
+    private volatile List<Entry> entries = Collections.emptyList();
+    private volatile int searched;
+
+    /** Craftable outputs with a positive maximum, largest first. */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /** Outputs searched by the last update. */
+    public int searched() {
+        return searched;
+    }
+
+    /** Recomputes against the current ledger if it or the recipe graph changed since the last update. */
+    public void refresh() {
+        update(ResourcesManager.getInstance().snapshot(), null);
+    }
+
+    /** {@link #refresh()} on a background thread; {@link #entries()} keeps the last published list until it finishes. */
+    public void refreshAsync() {
+        REFRESHER.execute(this::refresh);
+    }
+
+    /** {@link #update} on the background thread {@link #refreshAsync()} uses, in order with other refreshes. */
+    public void updateAsync(ResourceSnapshot snapshot, ResourceChangeEvent event) {
+        REFRESHER.execute(() -> update(snapshot, event));
+    }
+
+    /**
+     * Brings the index up to {@code snapshot}. With an {@code event} whose base is the snapshot of the last update
+     * on the same graph, only outputs depending on the changed items are searched; otherwise everything is, so a
+     * missed or reordered event costs a full search rather than stale entries.
+     */
+    public void update(ResourceSnapshot snapshot, ResourceChangeEvent event) {
+        update(RecipeRegistry.graph(), snapshot, event);
+    }
+
+    synchronized void update(RecipeGraph current, ResourceSnapshot snapshot, ResourceChangeEvent event) {
+        if (current == graph && snapshot.version() == version) return;
+        BitSet affected = null;
+        if (current == graph && event != null && !event.isFullReload() && event.baseVersion() == version) {
+            affected = consumersOf(event.changedIds());
+        } else {
+            attach(current);
+        }
+        version = snapshot.version();
+        for (int id = 0; id < stock.length; id++) stock[id] = Math.max(0, snapshot.get(id));
+        computeBounds();
+
+        int count = 0;
+        for (int t = 0; t < graph.recipeCount(); t++) {
+            int id = graph.topologicalAt(t);
+            if (affected != null && !affected.get(id)) continue;
+            max[id] = search(id);
+            count++;
+        }
+        searched = count;
+        publish();
+    }
+
+    private void attach(RecipeGraph current) {
+        graph = current;
+        int n = current.nodeCount();
+        closures = new int[n][];
+        max = new long[n];
+        stock = new long[n];
+        avail = new long[n];
+        demand = new long[n];
+        used = new long[n];
+        rawNeed = new long[n];
+        rawOrder = new int[n];
+    }
+
+    // Outputs reachable from the changed IDs through the consumer index
+    private BitSet consumersOf(int[] changed) {
+        BitSet seen = new BitSet(graph.nodeCount());
+        int[] queue = new int[graph.nodeCount()];
+        int head = 0, tail = 0;
+        for (int id : changed) {
+            if (id < 0 || id >= graph.nodeCount() || seen.get(id)) continue;
+            seen.set(id);
+            queue[tail++] = id;
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            for (int i = graph.consumerStart(v), end = graph.consumerEnd(v); i < end; i++) {
+                int c = graph.consumerAt(i);
+                if (seen.get(c)) continue;
+                seen.set(c);
+                queue[tail++] = c;
+            }
+        }
+        return seen;
+    }
+
+    // avail[id] = stock plus an upper bound on how many more could be crafted
+    private void computeBounds() {
+        for (int t = 0; t < graph.recipeCount(); t++) {
+            int id = graph.topologicalAt(t);
+            avail[id] = Math.min(DEMAND_LIMIT, stock[id] + craftBound(id));
+        }
+    }
+
+    private long craftBound(int id) {
+        int start = graph.ingredientStart(id), end = graph.ingredientEnd(id);
+        if (start == end) return 0L;
+        long bound = DEMAND_LIMIT;
+        for (int e = start; e < end; e++) {
+            int ing = graph.ingredientId(e);
+            long have = graph.expands(e) ? avail[ing] : stock[ing];
+            bound = Math.min(bound, have / graph.quantity(e));
+        }
+        return bound;
+    }
+
+    private long search(int target) {
+        long hi = craftBound(target);
+        if (hi == 0) return 0L;
+        int[] order = closure(target);
+        if (feasible(target, hi, order)) return hi;
+        long lo = 0L;
+        hi--;
+        while (lo < hi) {
+            long mid = lo + (hi - lo + 1) / 2;
+            if (feasible(target, mid, order)) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /**
+     * True if {@code amount} of {@code target} can be crafted: demand is netted against stock consumers-first,
+     * as in {@link RecipeSolver#planBatch}, and the raw materials left over must all be owned.
+     */
+    private boolean feasible(int target, long amount, int[] order) {
+        int rawCount = 0;
+        boolean ok = true;
+        demand[target] = amount;
+        for (int v : order) {
+            long need = demand[v];
+            demand[v] = 0;
+            if (!ok || need == 0) continue;
+            long take = v == target ? 0 : Math.min(stock[v], need);
+            used[v] = take;
+            long craft = need - take;
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end && craft > 0; e++) {
+                int q = graph.quantity(e);
+                if (craft > DEMAND_LIMIT / q) {
+                    ok = false;
+                    break;
+                }
+                int w = graph.ingredientId(e);
+                if (graph.expands(e)) {
+                    demand[w] = Math.min(DEMAND_LIMIT, demand[w] + craft * q);
+                } else {
+                    if (rawNeed[w] == 0) rawOrder[rawCount++] = w;
+                    rawNeed[w] = Math.min(DEMAND_LIMIT, rawNeed[w] + craft * q);
+                }
+            }
+        }
+        for (int i = 0; i < rawCount; i++) {
+            int w = rawOrder[i];
+            if (rawNeed[w] > stock[w] - used[w]) ok = false;
+            rawNeed[w] = 0;
+        }
+        for (int v : order) used[v] = 0;
+        return ok;
+    }
+
+    // Expanding closure of target, sorted so every consumer comes before its ingredients
+    private int[] closure(int target) {
+        int[] order = closures[target];
+        if (order != null) return order;
+        BitSet seen = new BitSet(graph.nodeCount());
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = target;
+        while (top > 0) {
+            int v = stack[--top];
+            if (seen.get(v)) continue;
+            seen.set(v);
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                if (!graph.expands(e)) continue;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = graph.ingredientId(e);
+            }
+        }
+        long[] keyed = new long[seen.cardinality()];
+        int n = 0;
+        for (int v = seen.nextSetBit(0); v >= 0; v = seen.nextSetBit(v + 1)) {
+            keyed[n++] = ((long) graph.topologicalIndex(v) << 32) | v;
+        }
+        Arrays.sort(keyed);
+        order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = (int) keyed[n - 1 - i];
+        closures[target] = order;
+        return order;
+    }
+
+    private void publish() {
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        List<Entry> out = new ArrayList<>();
+        for (int t = 0; t < graph.recipeCount(); t++) {
+            int id = graph.outputAt(t);
+            if (max[id] > 0) out.add(new Entry(dictionary.nameOf(id), max[id]));
+        }
+        out.sort((a, b) -> a.amount != b.amount ? Long.compare(b.amount, a.amount) : a.name.compareToIgnoreCase(b.name));
+        entries = Collections.unmodifiableList(out);
+    }
+}
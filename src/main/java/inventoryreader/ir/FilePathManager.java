@@ -20,7 +20,6 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.List;
-import java.util.Iterator;
 
 import net.fabricmc.loader.api.FabricLoader;
 import inventoryreader.ir.recipes.RecipeRegistry;
@@ -35,14 +34,17 @@ public class FilePathManager {
     private static final File file_generic = new File(FilePathManager.DATA_DIR, "allcontainerData.json");
     private static final File file_inventory = new File(FilePathManager.DATA_DIR, "inventorydata.json");
     private static final File file_resources = new File(FilePathManager.DATA_DIR, "resources.v" + MOD_VERSION + ".json");
+    private static final File file_resources_journal = new File(FilePathManager.DATA_DIR, "resources.v" + MOD_VERSION + ".journal");
     private static final File SACK_NAMES_FILE = new File(FilePathManager.DATA_DIR, "sackNames.txt");
     public static final File file_widget_config = new File(FilePathManager.DATA_DIR, "widget_config.json");
     public static final File FORGING_JSON = new File(FilePathManager.DATA_DIR, "forging.v" + MOD_VERSION + ".json");
     public static final File GEMSTONE_RECIPES_JSON = new File(FilePathManager.DATA_DIR, "gemstone_recipes.v" + MOD_VERSION + ".json");
     public static final File MERGED_RECIPES_JSON = new File(FilePathManager.DATA_DIR, "recipes_all.json");
-    public static final File REMOTE_RECIPES_JSON = new File(FilePathManager.DATA_DIR, "recipes_remote.json");
+    public static final File BASE_MATERIALS_CACHE = new File(FilePathManager.DATA_DIR, "base_materials.bin");
+    public static final File COMPILED_RECIPES_CACHE = new File(FilePathManager.DATA_DIR, "recipes_compiled.bin");
     public static final File REMOTE_SOURCES_JSON = new File(FilePathManager.DATA_DIR, "remote_sources.json");
     public static final File REMOTE_META_JSON = new File(FilePathManager.DATA_DIR, "remote_sources_meta.json");
+    public static final File REMOTE_ZIP_CACHE_DIR = new File(FilePathManager.DATA_DIR, "neu_cache");
     private static volatile boolean RESOURCES_SEEDED = false;
 
     static {
@@ -121,10 +123,37 @@ public class FilePathManager {
         }
     }
 
+    /** Processed recipe snapshot of one remote source; every configured URL gets its own file. */
+    public static File remoteRecipesFile(String url) {
+        return new File(DATA_DIR, "recipes_remote." + urlKey(url) + ".json");
+    }
+
+    /** NEU ZIP entry index of one remote source. */
+    public static File remoteNeuIndexFile(String url) {
+        return new File(DATA_DIR, "remote_neu_index." + urlKey(url) + ".bin");
+    }
+
+    private static String urlKey(String url) {
+        try {
+            byte[] sha = java.security.MessageDigest.getInstance("SHA-256").digest(url.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            return java.util.HexFormat.of().formatHex(sha, 0, 8);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
     public static File getResourcesFile() { return file_resources; }
 
+    public static File getResourcesJournalFile() { return file_resources_journal; }
+
+    public static File getContainerDataFile() { return file_generic; }
+
+    public static File getInventoryDataFile() { return file_inventory; }
+
     private static void reinitializeFiles() {
     RESOURCES_SEEDED = false;
+        ResourcesManager.getInstance().discard();
+        ContainerSnapshotStore.discardAll();
         if (file_generic.exists()) {
             file_generic.delete();
         }
@@ -141,6 +170,7 @@ public class FilePathManager {
             SACK_NAMES_FILE.delete();
         }
     if (MERGED_RECIPES_JSON.exists()) MERGED_RECIPES_JSON.delete();
+    if (COMPILED_RECIPES_CACHE.exists()) COMPILED_RECIPES_CACHE.delete();
     
         initializeFiles();
     }
@@ -148,28 +178,14 @@ public class FilePathManager {
     public static boolean areResourceNamesSeeded() { return RESOURCES_SEEDED; }
 
     private static void seedResourceNamesFromRecipes() {
-        java.util.Set<String> names = new java.util.LinkedHashSet<>();
-        addRecipeFileNames(FORGING_JSON, names);
-        addRecipeFileNames(GEMSTONE_RECIPES_JSON, names);
-        addRecipeFileNames(REMOTE_RECIPES_JSON, names);
-        ensureResourceNames(names);
+        // Names come from the bootstrap's single pass over the recipe files
+        ensureResourceNames(RecipeRegistry.sourceItemNames());
         RESOURCES_SEEDED = true;
         try {
             inventoryreader.ir.ResourcesManager.getInstance().flushPendingIfReady();
         } catch (Throwable ignored) {}
     }
 
-    private static void addRecipeFileNames(File file, java.util.Set<String> out) {
-        if (file == null || !file.exists() || file.length() == 0) return;
-        try (FileReader fr = new FileReader(file)) {
-            java.lang.reflect.Type t = new com.google.gson.reflect.TypeToken<java.util.Map<String, java.util.Map<String, Integer>>>(){}.getType();
-            java.util.Map<String, java.util.Map<String, Integer>> m = new Gson().fromJson(fr, t);
-            if (m == null || m.isEmpty()) return;
-            out.addAll(m.keySet());
-            for (java.util.Map<String, Integer> ing : m.values()) { if (ing != null) out.addAll(ing.keySet()); }
-        } catch (Exception ignored) {}
-    }
-
     private static void migrateLegacyFilenames() {
         try {
             // resources.json -> resources.vX.json
@@ -189,6 +205,15 @@ public class FilePathManager {
             if (legacyGem.exists() && !GEMSTONE_RECIPES_JSON.exists()) {
                 safeMove(legacyGem, GEMSTONE_RECIPES_JSON);
             }
+
+            // recipes_remote.json and remote_neu_index.bin were shared by all remote sources; each source now
+            // has its own pair, fetched again in full on the next start
+            for (String name : new String[] {"recipes_remote.json", "remote_neu_index.bin"}) {
+                File legacyRemote = new File(DATA_DIR, name);
+                if (legacyRemote.exists() && !legacyRemote.delete()) {
+                    LOGGER.debug("Failed to delete legacy remote file: {}", legacyRemote.getAbsolutePath());
+                }
+            }
         } catch (Exception e) {
             LOGGER.warn("Legacy filename migration failed", e);
         }
@@ -228,7 +253,38 @@ public class FilePathManager {
         }
     }
 
+    // Unfolded journal records of the previous version belong on top of the carried-over snapshot
+    private static void carryOverJournal(File prevResources) {
+        String base = prevResources.getName().substring(0, prevResources.getName().length() - ".json".length());
+        File prevJournal = new File(DATA_DIR, base + ".journal");
+        File prevCompacting = new File(DATA_DIR, base + ".journal.compacting");
+        try {
+            if (prevCompacting.exists()) {
+                Files.write(file_resources_journal.toPath(), Files.readAllBytes(prevCompacting.toPath()),
+                    java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+            }
+            if (prevJournal.exists()) {
+                Files.write(file_resources_journal.toPath(), Files.readAllBytes(prevJournal.toPath()),
+                    java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to carry resource journal forward from {}", prevJournal.getName());
+        }
+    }
+
+    private static void cleanupOldJournals() {
+        File[] olds = DATA_DIR.listFiles((dir, name) -> name.startsWith("resources.v")
+            && (name.endsWith(".journal") || name.endsWith(".journal.compacting"))
+            && !name.startsWith(file_resources_journal.getName()));
+        if (olds != null) {
+            for (File f : olds) {
+                try { f.delete(); } catch (Exception ignored) {}
+            }
+        }
+    }
+
     private static void cleanupAllOldVersioned() {
+        cleanupOldJournals();
         cleanupOldVersioned("resources", file_resources.getName());
         cleanupOldVersioned("forging", FORGING_JSON.getName());
         cleanupOldVersioned("gemstone_recipes", GEMSTONE_RECIPES_JSON.getName());
@@ -251,6 +307,7 @@ public class FilePathManager {
                 File prev = findLatestPriorVersionedFile("resources", MOD_VERSION);
                 if (prev != null) {
                     safeCopy(prev, file_resources);
+                    carryOverJournal(prev);
                     LOGGER.info("Carried resources data forward from {} -> {}", prev.getName(), file_resources.getName());
                 } else {
                     initializeResourcesData(file_resources);
@@ -613,37 +670,7 @@ public class FilePathManager {
             if (!file_resources.exists()) {
                 initializeResourcesData(file_resources);
             }
-            Map<String, Integer> resources = new LinkedHashMap<>();
-            try (FileReader reader = new FileReader(file_resources)) {
-                java.lang.reflect.Type t = new com.google.gson.reflect.TypeToken<Map<String, Integer>>(){}.getType();
-                Map<String, Integer> loaded = new Gson().fromJson(reader, t);
-                if (loaded != null) resources.putAll(loaded);
-            } catch (Exception ignored) {}
-
-            boolean changed = false;
-
-            Iterator<Map.Entry<String,Integer>> it = resources.entrySet().iterator();
-            while (it.hasNext()) {
-                Map.Entry<String,Integer> e = it.next();
-                String key = e.getKey();
-                if (key == null) { it.remove(); changed = true; continue; }
-                String trimmed = key.trim();
-                if (trimmed.isEmpty() || trimmed.matches("\\d+")) { it.remove(); changed = true; }
-            }
-
-            for (String n : names) {
-                if (n == null) continue;
-                String name = n.trim();
-                if (name.isEmpty()) continue;
-                // Skip numeric-only names (e.g., "64" coming from malformed data)
-                if (name.matches("\\d+")) continue;
-                if (!resources.containsKey(name)) { resources.put(name, 0); changed = true; }
-            }
-            if (changed) {
-                try (FileWriter writer = new FileWriter(file_resources)) {
-                    new GsonBuilder().setPrettyPrinting().create().toJson(resources, writer);
-                }
-            }
+            ResourcesManager.getInstance().ensureNames(names);
         } catch (Exception ignored) {}
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package inventoryreader.ir;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves diffing, ledger updates and persistence off the client thread. The client thread submits cheap,
+ * immutable per-slot captures; a single worker diffs them against {@link ContainerSnapshotStore} and applies
+ * the result to {@link ResourcesManager}. A newer capture of a container that is still queued replaces the
+ * older one, and the queue is bounded: when it is full a capture of a container that is not queued is dropped
+ * rather than stalling the client thread. Its snapshot is left as it was, so the next capture of that container
+ * diffs against the last applied one and the change is only delayed.
+ */
+public final class InventoryPipeline {
+    private static final InventoryPipeline INSTANCE = new InventoryPipeline();
+    private static final int MAX_PENDING = 256;
+
+    private record Key(ContainerSnapshotStore store, String title) {}
+    private record Capture(int[] slotIds, int[] slotCounts) {}
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "IR-Pipeline");
+        t.setDaemon(true);
+        return t;
+    });
+    // Guarded by this
+    private final Map<Key, Capture> pendingCaptures = new LinkedHashMap<>();
+    private final Map<String, Integer> pendingDeltas = new LinkedHashMap<>();
+    private boolean drainQueued = false;
+    // Held while captures are applied, so reset can't interleave with a half-applied batch
+    private final Object processLock = new Object();
+    private final ItemCounts current = new ItemCounts();
+    private final ItemCounts deltas = new ItemCounts();
+
+    private volatile long processedCaptures = 0L;
+    private volatile long coalescedCaptures = 0L;
+    private volatile long droppedCaptures = 0L;
+    private volatile long batches = 0L;
+    private volatile long workerNanos = 0L;
+
+    private InventoryPipeline() {}
+
+    public static InventoryPipeline getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues the contents of a container, one entry per slot ({@code -1} for empty). The arrays are copied.
+     */
+    public void submit(ContainerSnapshotStore store, String title, int[] slotIds, int[] slotCounts) {
+        Key key = new Key(store, title);
+        Capture capture = new Capture(slotIds.clone(), slotCounts.clone());
+        synchronized (this) {
+            boolean queued = pendingCaptures.containsKey(key);
+            if (queued || pendingCaptures.size() < MAX_PENDING) {
+                pendingCaptures.put(key, capture);
+                if (queued) coalescedCaptures++;
+                scheduleDrain();
+            } else {
+                droppedCaptures++;
+            }
+        }
+    }
+
+    /** Queues additive resource changes (e.g. from sack messages); merged with other pending changes. */
+    public void submitDeltas(Map<String, Integer> changes) {
+        if (changes == null || changes.isEmpty()) return;
+        synchronized (this) {
+            for (Map.Entry<String, Integer> e : changes.entrySet()) {
+                if (e.getKey() == null || e.getValue() == null) continue;
+                pendingDeltas.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+            scheduleDrain();
+        }
+    }
+
+    /** Applies everything queued on the calling thread; used on disconnect and shutdown. */
+    public void flush() {
+        drain();
+    }
+
+    /** Drops queued work without applying it; used by reset. */
+    public void discardPending() {
+        synchronized (processLock) {
+            synchronized (this) {
+                pendingCaptures.clear();
+                pendingDeltas.clear();
+            }
+        }
+    }
+
+    public synchronized int queuedCaptures() {
+        return pendingCaptures.size();
+    }
+
+    public long processedCaptures() {
+        return processedCaptures;
+    }
+
+    public long coalescedCaptures() {
+        return coalescedCaptures;
+    }
+
+    public long droppedCaptures() {
+        return droppedCaptures;
+    }
+
+    public double averageBatchMillis() {
+        long b = batches;
+        return b == 0 ? 0.0 : workerNanos / (b * 1_000_000.0);
+    }
+
+    // Caller must hold this
+    private void scheduleDrain() {
+        if (drainQueued) return;
+        drainQueued = true;
+        worker.execute(this::drainSafe);
+    }
+
+    private void drainSafe() {
+        try {
+            drain();
+        } catch (Throwable t) {
+            InventoryReader.LOGGER.error("Inventory pipeline failed", t);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            synchronized (processLock) {
+                Map<Key, Capture> captures;
+                Map<String, Integer> changes;
+                synchronized (this) {
+                    if (pendingCaptures.isEmpty() && pendingDeltas.isEmpty()) {
+                        drainQueued = false;
+                        return;
+                    }
+                    captures = new LinkedHashMap<>(pendingCaptures);
+                    changes = new LinkedHashMap<>(pendingDeltas);
+                    pendingCaptures.clear();
+                    pendingDeltas.clear();
+                }
+                long start = System.nanoTime();
+                for (Map.Entry<Key, Capture> e : captures.entrySet()) {
+                    apply(e.getKey(), e.getValue());
+                }
+                if (!changes.isEmpty()) {
+                    ResourcesManager.getInstance().saveData(changes);
+                }
+                workerNanos += System.nanoTime() - start;
+                batches++;
+            }
+        }
+    }
+
+    // Caller must hold processLock
+    private void apply(Key key, Capture capture) {
+        processedCaptures++;
+        current.clear();
+        int[] ids = capture.slotIds();
+        int[] counts = capture.slotCounts();
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] >= 0) current.add(ids[i], counts[i]);
+        }
+        ContainerSnapshotStore store = key.store();
+        // The ledger already holds the change a stale snapshot missed; diffing against it would count it twice
+        if (store.rebaselineIfStale(key.title(), current)) return;
+        ItemCounts previous = store.get(key.title());
+        deltas.clear();
+        if (previous == null) {
+            deltas.copyFrom(current);
+        } else {
+            ItemCounts.diff(previous, current, deltas);
+            if (deltas.size() == 0) return;
+        }
+        long sequence = ResourcesManager.getInstance().applyDeltas(deltas, store.source(key.title()));
+        store.put(key.title(), current, sequence);
+    }
+}
@@ -1,6 +1,13 @@
 package inventoryreader.ir;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.StringArgumentType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
@@ -12,6 +19,9 @@ import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 
 public class IrCommandManager implements ClientModInitializer{
+    private static final Pattern AMOUNT_PREFIX = Pattern.compile("^(\\d+)\\s*[xX*]?\\s+(.+)$");
+    private static final Pattern AMOUNT_SUFFIX = Pattern.compile("^(.+?)\\s*[xX*]\\s*(\\d+)$");
+    private static final int PLAN_LINES = 15;
 
     @Override
     public void onInitializeClient() {
@@ -34,6 +44,10 @@ public class IrCommandManager implements ClientModInitializer{
                         .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
                     context.getSource().sendFeedback(Text.literal("- /ir widget: Open Widget Customization Menu")
                         .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
+                    context.getSource().sendFeedback(Text.literal("- /ir plan <2x item, item*3, ...>: Plan several crafts together")
+                        .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
+                    context.getSource().sendFeedback(Text.literal("- /ir perf: Show client-thread time and pipeline stats")
+                        .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
                     context.getSource().sendFeedback(Text.literal("- /ir credits: Show credits")
                         .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
                     return 1;
@@ -42,7 +56,9 @@ public class IrCommandManager implements ClientModInitializer{
                     .executes(context -> {
                         InventoryReader.LOGGER.info("Executing complete mod reset");
                         SendingManager.blockNextDataSend();
+                        InventoryPipeline.getInstance().discardPending();
                         StorageReader.getInstance().clearAllData();
+                        PlayerInventoryTracker.getInstance().invalidate();
                         FilePathManager.reInitializeFiles();
                         SackReader.setNeedsReminder(true);
                         context.getSource().sendFeedback(
@@ -80,6 +96,36 @@ public class IrCommandManager implements ClientModInitializer{
                         return 1;
                     })
                 )
+                .then(literal("plan")
+                    .then(argument("targets", StringArgumentType.greedyString())
+                        .executes(context -> {
+                            Map<String, Integer> targets;
+                            try {
+                                targets = parsePlanTargets(StringArgumentType.getString(context, "targets"));
+                            } catch (IllegalArgumentException e) {
+                                context.getSource().sendError(Text.literal(e.getMessage()));
+                                return 0;
+                            }
+                            sendPlan(context.getSource(), ResourcesManager.getInstance().planBatch(targets));
+                            return 1;
+                        })
+                    )
+                )
+                .then(literal("perf")
+                    .executes(context -> {
+                        InventoryPipeline pipeline = InventoryPipeline.getInstance();
+                        context.getSource().sendFeedback(Text.literal(String.format(
+                                "Client thread: %.3f ms/tick avg, %.3f ms max (last %d ticks)",
+                                PerfStats.averageTickMillis(), PerfStats.maxTickMillis(), PerfStats.windowTicks()))
+                            .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
+                        context.getSource().sendFeedback(Text.literal(String.format(
+                                "Pipeline: %d queued, %d processed, %d coalesced, %d dropped, %.3f ms/batch",
+                                pipeline.queuedCaptures(), pipeline.processedCaptures(), pipeline.coalescedCaptures(),
+                                pipeline.droppedCaptures(), pipeline.averageBatchMillis()))
+                            .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
+                        return 1;
+                    })
+                )
                 .then(literal("credits")
                     .executes(context -> {
                         context.getSource().sendFeedback(
@@ -98,4 +144,64 @@ public class IrCommandManager implements ClientModInitializer{
                 )
         );
     }
-}
\ No newline at end of file
+
+    /** Parses "2x Item, Other Item*3, Third" into target name to amount, resolving names case-insensitively. */
+    static Map<String, Integer> parsePlanTargets(String input) {
+        Map<String, Integer> targets = new LinkedHashMap<>();
+        List<String> recipeNames = RecipeManager.getInstance().getRecipeNames();
+        for (String part : input.split("[,;]")) {
+            String spec = part.trim();
+            if (spec.isEmpty()) continue;
+            String name = spec;
+            int amount = 1;
+            Matcher m = AMOUNT_PREFIX.matcher(spec);
+            if (m.matches()) {
+                amount = Integer.parseInt(m.group(1));
+                name = m.group(2).trim();
+            } else if ((m = AMOUNT_SUFFIX.matcher(spec)).matches()) {
+                name = m.group(1).trim();
+                amount = Integer.parseInt(m.group(2));
+            }
+            if (amount <= 0) throw new IllegalArgumentException("Amount must be positive: " + spec);
+            targets.merge(resolvePlanName(name, recipeNames), amount, Integer::sum);
+        }
+        if (targets.isEmpty()) throw new IllegalArgumentException("Usage: /ir plan 2x Item, Other Item*3");
+        return targets;
+    }
+
+    private static String resolvePlanName(String name, List<String> recipeNames) {
+        for (String recipe : recipeNames) {
+            if (recipe.equals(name)) return recipe;
+        }
+        for (String recipe : recipeNames) {
+            if (recipe.equalsIgnoreCase(name)) return recipe;
+        }
+        throw new IllegalArgumentException("Unknown recipe: " + name);
+    }
+
+    private static void sendPlan(FabricClientCommandSource source, BatchPlan plan) {
+        source.sendFeedback(Text.literal(String.format("Plan for %d target%s (%.3f ms)",
+                plan.targets.size(), plan.targets.size() == 1 ? "" : "s", plan.elapsedNanos / 1_000_000.0))
+            .setStyle(Style.EMPTY.withColor(Formatting.GOLD)));
+        for (BatchPlan.TargetPlan target : plan.targets) {
+            String status = target.missing.isEmpty() ? "ready" : target.missing.size() + " materials short";
+            source.sendFeedback(Text.literal("- " + target.amount + "× " + target.name + ": " + status)
+                .setStyle(Style.EMPTY.withColor(target.missing.isEmpty() ? Formatting.GREEN : Formatting.WHITE)));
+        }
+        if (plan.missing.isEmpty()) {
+            source.sendFeedback(Text.literal("You have everything needed.").setStyle(Style.EMPTY.withColor(Formatting.GREEN)));
+            return;
+        }
+        source.sendFeedback(Text.literal("Missing:").setStyle(Style.EMPTY.withColor(Formatting.YELLOW)));
+        int shown = 0;
+        for (Map.Entry<String, Long> e : plan.sortedMissing().entrySet()) {
+            if (shown++ == PLAN_LINES) {
+                source.sendFeedback(Text.literal("   ... and " + (plan.missing.size() - PLAN_LINES) + " more")
+                    .setStyle(Style.EMPTY.withColor(Formatting.GRAY)));
+                break;
+            }
+            source.sendFeedback(Text.literal("   " + e.getValue() + "× " + e.getKey())
+                .setStyle(Style.EMPTY.withColor(Formatting.WHITE)));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package inventoryreader.ir;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sparse item counts keyed by {@link ItemDictionary} ID: a dense int[] for O(1) access plus the list of
+ * touched IDs so iteration and clearing only cost the number of distinct items. Not thread-safe.
+ */
+public final class ItemCounts {
+    private int[] counts = new int[64];
+    private boolean[] touched = new boolean[64];
+    private int[] ids = new int[16];
+    private int size = 0;
+
+    public void add(int id, int amount) {
+        if (id < 0) return;
+        ensureCapacity(id);
+        if (!touched[id]) {
+            touched[id] = true;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+        counts[id] += amount;
+    }
+
+    public void set(int id, int amount) {
+        if (id < 0) return;
+        add(id, 0);
+        counts[id] = amount;
+    }
+
+    public int get(int id) {
+        return id >= 0 && id < counts.length ? counts[id] : 0;
+    }
+
+    /** Number of touched IDs, including ones whose count went back to zero. */
+    public int size() {
+        return size;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public int countAt(int index) {
+        return counts[ids[index]];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            counts[id] = 0;
+            touched[id] = false;
+        }
+        size = 0;
+    }
+
+    public void copyFrom(ItemCounts other) {
+        clear();
+        for (int i = 0; i < other.size; i++) {
+            int c = other.countAt(i);
+            if (c != 0) add(other.ids[i], c);
+        }
+    }
+
+    /**
+     * Writes {@code current - previous} for every ID present in either side into {@code out}; unchanged IDs are skipped.
+     */
+    public static void diff(ItemCounts previous, ItemCounts current, ItemCounts out) {
+        for (int i = 0; i < current.size; i++) {
+            int id = current.ids[i];
+            if (current.counts[id] == 0) continue;
+            int d = current.counts[id] - previous.get(id);
+            if (d != 0) out.add(id, d);
+        }
+        for (int i = 0; i < previous.size; i++) {
+            int id = previous.ids[i];
+            if (current.get(id) == 0 && previous.counts[id] != 0) out.add(id, -previous.counts[id]);
+        }
+    }
+
+    public Map<String, Integer> toNameMap() {
+        ItemDictionary dict = ItemDictionary.getInstance();
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            int c = countAt(i);
+            if (c != 0) out.put(dict.nameOf(ids[i]), c);
+        }
+        return out;
+    }
+
+    public static ItemCounts fromNameMap(Map<String, Integer> map) {
+        ItemCounts out = new ItemCounts();
+        if (map == null) return out;
+        ItemDictionary dict = ItemDictionary.getInstance();
+        for (Map.Entry<String, Integer> e : map.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) continue;
+            out.add(dict.intern(e.getKey()), e.getValue());
+        }
+        return out;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < counts.length) return;
+        int n = Math.max(counts.length * 2, id + 1);
+        counts = Arrays.copyOf(counts, n);
+        touched = Arrays.copyOf(touched, n);
+    }
+}
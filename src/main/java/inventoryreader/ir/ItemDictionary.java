@@ -0,0 +1,59 @@
+package inventoryreader.ir;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns item display names into dense int IDs so counts can live in primitive arrays.
+ * IDs are never reused or removed; lookups are lock-free, assignment is serialized.
+ */
+public final class ItemDictionary {
+    public static final int UNKNOWN = -1;
+    private static final ItemDictionary INSTANCE = new ItemDictionary();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[512];
+    private volatile int size = 0;
+
+    private ItemDictionary() {}
+
+    public static ItemDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) return id;
+            int next = size;
+            String[] table = names;
+            if (next == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[next] = name;
+            names = table;
+            size = next + 1;
+            ids.put(name, next);
+            return next;
+        }
+    }
+
+    public int idOf(String name) {
+        if (name == null) return UNKNOWN;
+        Integer id = ids.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String nameOf(int id) {
+        // Size before table: intern publishes the table first, so one read after size is at least that long
+        int n = size;
+        String[] table = names;
+        return id >= 0 && id < n ? table[id] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+}
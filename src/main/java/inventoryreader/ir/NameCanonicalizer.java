@@ -0,0 +1,125 @@
+package inventoryreader.ir;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Resolves raw item display names (with star/level glyphs or a leading modifier word) to the ID of a known
+ * resource. Results, including misses, are memoized in a bounded LRU keyed by the raw name and in a per-ID
+ * table for callers that already hold dictionary IDs. Call {@link #invalidate()} whenever the set of known
+ * resources changes. Not thread-safe; the owner serializes access.
+ */
+public final class NameCanonicalizer {
+    public static final int NONE = -1;
+    private static final int UNRESOLVED = -2;
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final ItemDictionary dictionary;
+    private final IntPredicate isKnown;
+    private final Map<String, Integer> byName;
+    private int[] byId = new int[0];
+
+    public NameCanonicalizer(ItemDictionary dictionary, IntPredicate isKnown) {
+        this(dictionary, isKnown, DEFAULT_CAPACITY);
+    }
+
+    public NameCanonicalizer(ItemDictionary dictionary, IntPredicate isKnown, int capacity) {
+        this.dictionary = dictionary;
+        this.isKnown = isKnown;
+        this.byName = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public int resolve(String rawName) {
+        if (rawName == null) return NONE;
+        Integer cached = byName.get(rawName);
+        if (cached != null) return cached;
+        int id = compute(rawName);
+        byName.put(rawName, id);
+        return id;
+    }
+
+    public int resolve(int rawId) {
+        if (rawId < 0) return NONE;
+        if (rawId >= byId.length) {
+            int old = byId.length;
+            byId = Arrays.copyOf(byId, Math.max(rawId + 1, Math.max(64, old * 2)));
+            Arrays.fill(byId, old, byId.length, UNRESOLVED);
+        }
+        int id = byId[rawId];
+        if (id == UNRESOLVED) {
+            id = isKnown.test(rawId) ? rawId : resolve(dictionary.nameOf(rawId));
+            byId[rawId] = id;
+        }
+        return id;
+    }
+
+    public void invalidate() {
+        byName.clear();
+        Arrays.fill(byId, UNRESOLVED);
+    }
+
+    private int compute(String rawName) {
+        String item = stripGlyphs(rawName);
+        int id = dictionary.idOf(item);
+        if (id >= 0 && isKnown.test(id)) return id;
+        String refined = dropLeadingWord(item);
+        if (refined != null && !isBlankOrNumeric(refined)) {
+            int refinedId = dictionary.idOf(refined);
+            if (refinedId >= 0 && isKnown.test(refinedId)) return refinedId;
+        }
+        return NONE;
+    }
+
+    /** Removes the dungeon star and master star glyphs Hypixel appends to item names. */
+    public static String stripGlyphs(String name) {
+        int n = name.length();
+        int i = 0;
+        while (i < n && !isGlyph(name.charAt(i))) i++;
+        if (i == n) return name;
+        StringBuilder sb = new StringBuilder(n);
+        sb.append(name, 0, i);
+        for (; i < n; i++) {
+            char c = name.charAt(i);
+            if (!isGlyph(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isGlyph(char c) {
+        return c == '✪' || (c >= '➊' && c <= '➎');
+    }
+
+    /**
+     * Drops the first space-separated word, matching {@code String.join(" ", split(" ")[1..])} (trailing
+     * spaces ignored). Returns null when there is nothing after the first word.
+     */
+    static String dropLeadingWord(String name) {
+        int end = name.length();
+        while (end > 0 && name.charAt(end - 1) == ' ') end--;
+        int space = name.indexOf(' ');
+        if (space < 0 || space >= end) return null;
+        return name.substring(space + 1, end);
+    }
+
+    /** True for null, blank and digit-only keys, which are malformed resource names. */
+    public static boolean isBlankOrNumeric(String key) {
+        if (key == null) return true;
+        int start = 0;
+        int end = key.length();
+        while (start < end && key.charAt(start) <= ' ') start++;
+        while (end > start && key.charAt(end - 1) <= ' ') end--;
+        if (start == end) return true;
+        for (int i = start; i < end; i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package inventoryreader.ir;
+
+/**
+ * Time the mod spends on the client (render) thread, accumulated per tick over a sliding window. This covers the
+ * tick handlers, HUD rendering for every frame drawn during the tick and recomputes posted to the client thread.
+ * {@link #begin()}/{@link #end(long)} and {@link #endTick()} must only be called from the client thread.
+ */
+public final class PerfStats {
+    private static final int WINDOW_TICKS = 200;
+    private static final long[] tickNanos = new long[WINDOW_TICKS];
+    private static int next = 0;
+    private static int filled = 0;
+    private static long currentTick = 0L;
+
+    private PerfStats() {}
+
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(long start) {
+        currentTick += System.nanoTime() - start;
+    }
+
+    public static void endTick() {
+        tickNanos[next] = currentTick;
+        next = (next + 1) % WINDOW_TICKS;
+        if (filled < WINDOW_TICKS) filled++;
+        currentTick = 0L;
+    }
+
+    public static int windowTicks() {
+        return filled;
+    }
+
+    public static double averageTickMillis() {
+        if (filled == 0) return 0.0;
+        long sum = 0L;
+        for (int i = 0; i < filled; i++) sum += tickNanos[i];
+        return sum / (filled * 1_000_000.0);
+    }
+
+    public static double maxTickMillis() {
+        long max = 0L;
+        for (int i = 0; i < filled; i++) max = Math.max(max, tickNanos[i]);
+        return max / 1_000_000.0;
+    }
+}
@@ -0,0 +1,112 @@
+package inventoryreader.ir;
+
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a per-slot record of the client player's inventory up to date by re-reading only the slots that
+ * mixins reported as changed. Slots are marked from {@link PlayerInventory} mutators and from screen handler
+ * sync packets; a periodic full rescan catches in-place stack edits no hook sees. Client thread only.
+ */
+public final class PlayerInventoryTracker {
+    private static final PlayerInventoryTracker INSTANCE = new PlayerInventoryTracker();
+    private static final int EMPTY = -1;
+    // Full rescan every 5 seconds as a safety net
+    private static final int RESCAN_INTERVAL_TICKS = 100;
+
+    private PlayerInventory inventory;
+    private int[] slotIds = new int[0];
+    private int[] slotCounts = new int[0];
+    private boolean[] dirty = new boolean[0];
+    private int[] dirtySlots = new int[0];
+    private int dirtyCount = 0;
+    private boolean allDirty = true;
+    private boolean forceReport = true;
+    private int ticksSinceRescan = 0;
+
+    private PlayerInventoryTracker() {}
+
+    public static PlayerInventoryTracker getInstance() {
+        return INSTANCE;
+    }
+
+    public void markSlot(PlayerInventory inv, int slot) {
+        if (inv != inventory || slot < 0 || slot >= dirty.length || dirty[slot]) return;
+        dirty[slot] = true;
+        dirtySlots[dirtyCount++] = slot;
+    }
+
+    public void markAll(PlayerInventory inv) {
+        if (inv == inventory) allDirty = true;
+    }
+
+    /** Forces the next {@link #process} to report the inventory even if nothing changed (used by reset). */
+    public void invalidate() {
+        forceReport = true;
+        allDirty = true;
+    }
+
+    /**
+     * Re-reads the dirty slots (or everything after a full invalidation).
+     * @return true if any slot changed since the last call and the inventory should be captured
+     */
+    public boolean process(PlayerInventory inv) {
+        if (inv != inventory) {
+            attach(inv);
+            allDirty = true;
+        }
+        if (++ticksSinceRescan >= RESCAN_INTERVAL_TICKS) {
+            ticksSinceRescan = 0;
+            allDirty = true;
+        }
+        boolean changed = forceReport;
+        if (allDirty) {
+            for (int i = 0; i < slotIds.length; i++) changed |= readSlot(i);
+        } else {
+            for (int i = 0; i < dirtyCount; i++) changed |= readSlot(dirtySlots[i]);
+        }
+        clearDirty();
+        forceReport = false;
+        return changed;
+    }
+
+    /** Item ID per slot ({@code -1} for empty); owned by the tracker, copy before handing off. */
+    public int[] slotIds() {
+        return slotIds;
+    }
+
+    public int[] slotCounts() {
+        return slotCounts;
+    }
+
+    private boolean readSlot(int slot) {
+        ItemStack stack = inventory.getStack(slot);
+        int id = stack.isEmpty() ? EMPTY : ItemDictionary.getInstance().intern(stack.getName().getString());
+        int count = stack.isEmpty() ? 0 : stack.getCount();
+        if (id == slotIds[slot] && count == slotCounts[slot]) return false;
+        slotIds[slot] = id;
+        slotCounts[slot] = count;
+        return true;
+    }
+
+    private void attach(PlayerInventory inv) {
+        inventory = inv;
+        int size = inv.size();
+        if (size == slotIds.length) return;
+        int old = slotIds.length;
+        slotIds = Arrays.copyOf(slotIds, size);
+        slotCounts = Arrays.copyOf(slotCounts, size);
+        if (size > old) Arrays.fill(slotIds, old, size, EMPTY);
+        dirty = new boolean[size];
+        dirtySlots = new int[size];
+        dirtyCount = 0;
+    }
+
+    private void clearDirty() {
+        for (int i = 0; i < dirtyCount; i++) dirty[dirtySlots[i]] = false;
+        dirtyCount = 0;
+        allDirty = false;
+    }
+}
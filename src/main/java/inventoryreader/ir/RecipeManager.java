@@ -1,188 +1,213 @@
 package inventoryreader.ir;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.lang.reflect.Type;
+import inventoryreader.ir.recipes.BaseMaterialTable;
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
+
 import java.util.*;
 
+/**
+ * Name-based recipe queries for the UI, answered from the {@link RecipeGraph} currently published by
+ * {@link RecipeRegistry}, so remote refreshes show up without a restart.
+ */
 public class RecipeManager {
     private static final RecipeManager INSTANCE = new RecipeManager();
-    private final Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
-    private final List<String> recipeNames = new ArrayList<>();
+    // Listeners ask for the same closure on every resource event; remember the last one per graph
+    private volatile Closure lastClosure;
 
-    private RecipeManager() {
-        loadRecipes();
-    }
+    private RecipeManager() {}
 
     public static RecipeManager getInstance() {
         return INSTANCE;
     }
 
-    private void loadRecipes() {
-        recipes.clear();
-        recipeNames.clear();
-        Gson gson = new Gson();
-        try {
-            Map<String, Map<String, Integer>> forging = readRecipeMap(gson, FilePathManager.FORGING_JSON);
-            Map<String, Map<String, Integer>> gemstone = readRecipeMap(gson, FilePathManager.GEMSTONE_RECIPES_JSON);
-            if (forging != null) recipes.putAll(forging);
-            if (gemstone != null) recipes.putAll(gemstone);
-
-            File remote = FilePathManager.REMOTE_RECIPES_JSON;
-            if (remote.exists() && remote.length() > 0) {
-                try (FileReader fr = new FileReader(remote)) {
-                    Type type = new TypeToken<Map<String, Map<String, Integer>>>(){}.getType();
-                    Map<String, Map<String, Integer>> remoteMap = gson.fromJson(fr, type);
-                    if (remoteMap != null) {
-                        for (Map.Entry<String, Map<String, Integer>> e : remoteMap.entrySet()) {
-                            recipes.put(e.getKey(), e.getValue());
-                        }
-                    }
-                } catch (IOException ignore) {}
-            }
-
-            Map<String, Map<String, Integer>> sanitized = sanitizeRecipes(recipes);
-            recipes.clear();
-            recipes.putAll(sanitized);
-
-            recipeNames.addAll(recipes.keySet());
-            Set<String> allNames = new LinkedHashSet<>();
-            allNames.addAll(recipes.keySet());
-            for (Map<String, Integer> m : recipes.values()) allNames.addAll(m.keySet());
-            FilePathManager.ensureResourceNames(allNames);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private Map<String, Map<String, Integer>> readRecipeMap(Gson gson, File file) throws IOException {
-        if (file == null || !file.exists() || file.length() == 0) return null;
-        try (FileReader fr = new FileReader(file)) {
-            java.lang.reflect.Type any = new com.google.gson.reflect.TypeToken<Map<String, Object>>(){}.getType();
-            Map<String, Object> root = gson.fromJson(fr, any);
-            if (root == null || root.isEmpty()) return null;
-            Object recipesNode = root.get("recipes");
-            Gson gg = new Gson();
-            java.lang.reflect.Type t = new com.google.gson.reflect.TypeToken<Map<String, Map<String, Integer>>>(){}.getType();
-            if (recipesNode instanceof Map<?, ?> m) {
-                String json = gg.toJson(m);
-                return gg.fromJson(json, t);
-            }
-            String json = gg.toJson(root);
-            return gg.fromJson(json, t);
-        }
+    public RecipeGraph graph() {
+        return RecipeRegistry.graph();
     }
 
     public List<String> getRecipeNames() {
-        List<String> list = new ArrayList<>(recipeNames);
+        RecipeGraph graph = graph();
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        List<String> list = new ArrayList<>(graph.recipeCount());
+        for (int i = 0; i < graph.recipeCount(); i++) list.add(dictionary.nameOf(graph.outputAt(i)));
         list.sort(String::compareToIgnoreCase);
         return list;
     }
 
     public Map<String, Integer> getSimpleRecipe(String name, int amt) {
-        Map<String, Integer> base = recipes.getOrDefault(name, Collections.emptyMap());
+        RecipeGraph graph = graph();
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        int id = dictionary.idOf(name);
         Map<String, Integer> result = new LinkedHashMap<>();
-        for (Map.Entry<String, Integer> entry : base.entrySet()) {
-            result.put(entry.getKey(), entry.getValue() * amt);
+        for (int e = graph.ingredientStart(id), end = graph.ingredientEnd(id); e < end; e++) {
+            result.put(dictionary.nameOf(graph.ingredientId(e)), graph.quantity(e) * amt);
         }
         return result;
     }
 
-    public RecipeNode expandRecipe(String currentName, int multiplier) {
-        if (!recipes.containsKey(currentName)) {
-            return new RecipeNode(currentName, multiplier, Collections.emptyList());
+    /**
+     * Raw materials needed to craft {@code amt} of {@code name} from nothing, in first-use order. Reads the
+     * precomputed per-unit totals, walks the graph while they are still being built for a new graph, and falls
+     * back to the name itself when it has no recipe.
+     */
+    public Map<String, Long> getBaseMaterials(String name, int amt) {
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        RecipeGraph graph = graph();
+        BaseMaterialTable table = RecipeRegistry.baseMaterials();
+        int id = dictionary.idOf(name);
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (!graph.hasRecipe(id)) {
+            if (name != null) result.put(name, (long) amt);
+            return result;
+        }
+        if (table == null || table.graph() != graph) {
+            Map<String, Integer> needed = new LinkedHashMap<>();
+            new RecipeSolver(graph).needed(id, amt, ResourceSnapshot.EMPTY, needed);
+            for (Map.Entry<String, Integer> e : needed.entrySet()) result.put(e.getKey(), (long) e.getValue());
+            return result;
         }
-        List<RecipeNode> ingredients = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : recipes.get(currentName).entrySet()) {
-            String item = entry.getKey();
-            int qty = entry.getValue();
-            RecipeNode expanded = expandRecipe(item, qty * multiplier);
-            ingredients.add(expanded);
+        for (int i = 0; i < table.leafCount(id); i++) {
+            long perUnit = table.amountAt(id, i);
+            result.put(dictionary.nameOf(table.leafIdAt(id, i)), perUnit > Long.MAX_VALUE / Math.max(1, amt) ? Long.MAX_VALUE : perUnit * amt);
         }
-        return new RecipeNode(currentName, multiplier, ingredients);
+        return result;
     }
 
-    public Map<String, Map<String, Integer>> getAllRecipes() {
-        return new LinkedHashMap<>(recipes);
+    /**
+     * Recipe tree for {@code multiplier} of {@code currentName}. A node's children are created the first time
+     * its ingredients are read, and a sub-recipe needed in the same amount in several places is one shared node,
+     * so collapsed branches cost nothing and the result is a DAG over the graph edges rather than a full tree.
+     */
+    public RecipeNode expandRecipe(String currentName, int multiplier) {
+        RecipeGraph graph = graph();
+        int id = ItemDictionary.getInstance().idOf(currentName);
+        if (!graph.hasRecipe(id)) {
+            return new RecipeNode(currentName, multiplier, Collections.emptyList());
+        }
+        return new Expansion(graph).node(id, multiplier);
     }
 
-    public RecipeResponse getRecipe(String name, int amt) {
-        if (!recipes.containsKey(name)) {
-            return null; 
+    // Nodes created by one expandRecipe call, keyed by item ID and amount
+    private static final class Expansion {
+        private final RecipeGraph graph;
+        private final ItemDictionary dictionary = ItemDictionary.getInstance();
+        private final Map<Long, RecipeNode> nodes = new HashMap<>();
+
+        Expansion(RecipeGraph graph) {
+            this.graph = graph;
         }
-        
-        Map<String, Integer> simpleRecipe = getSimpleRecipe(name, amt);
-        RecipeNode fullRecipe = expandRecipe(name, amt);
-        
-        return new RecipeResponse(name, simpleRecipe, fullRecipe);
-    }
 
-    private Map<String, Map<String, Integer>> sanitizeRecipes(Map<String, Map<String, Integer>> input) {
-        if (input == null || input.isEmpty()) return Collections.emptyMap();
-
-        Set<String> baseMaterials = new HashSet<>(Arrays.asList(
-            "Diamond", "Iron Ingot", "Coal", "Gold Ingot", "Lapis Lazuli", "Emerald", "Redstone", "Quartz", "White Wool"
-        ));
-
-        Map<String, Map<String, Integer>> out = new LinkedHashMap<>();
-        for (Map.Entry<String, Map<String, Integer>> entry : input.entrySet()) {
-            String output = entry.getKey();
-            Map<String, Integer> ing = entry.getValue();
-            if (ing == null || ing.isEmpty()) { out.put(output, ing); continue; }
-
-            Map<String, Integer> cleaned = new LinkedHashMap<>();
-            for (Map.Entry<String, Integer> ie : ing.entrySet()) {
-                String name = ie.getKey();
-                if (name == null || name.isEmpty()) continue;
-                if (name.matches("\\d+")) continue;
-                cleaned.put(name, ie.getValue());
+        RecipeNode node(int id, int amount) {
+            long key = ((long) id << 32) | (amount & 0xFFFFFFFFL);
+            RecipeNode node = nodes.get(key);
+            if (node == null) {
+                node = new RecipeNode(dictionary.nameOf(id), amount, new LazyIngredients(this, id, amount));
+                nodes.put(key, node);
             }
+            return node;
+        }
+    }
 
-            if (baseMaterials.contains(output)) {
-                if (containsBlockIngredientForBase(output, cleaned.keySet())) {
-                    continue;
+    private static final class LazyIngredients extends AbstractList<RecipeNode> {
+        private final Expansion expansion;
+        private final int id;
+        private final int amount;
+        private RecipeNode[] children;
+
+        LazyIngredients(Expansion expansion, int id, int amount) {
+            this.expansion = expansion;
+            this.id = id;
+            this.amount = amount;
+        }
+
+        @Override
+        public int size() {
+            return expansion.graph.ingredientCount(id);
+        }
+
+        @Override
+        public RecipeNode get(int index) {
+            RecipeNode[] c = children;
+            if (c == null) {
+                RecipeGraph graph = expansion.graph;
+                int start = graph.ingredientStart(id);
+                c = new RecipeNode[graph.ingredientEnd(id) - start];
+                for (int i = 0; i < c.length; i++) {
+                    int e = start + i;
+                    int item = graph.ingredientId(e);
+                    int need = graph.quantity(e) * amount;
+                    // Raw materials and cut cycle edges are leaves
+                    c[i] = graph.expands(e)
+                            ? expansion.node(item, need)
+                            : new RecipeNode(expansion.dictionary.nameOf(item), need, Collections.emptyList());
                 }
+                children = c;
             }
+            return c[index];
+        }
+    }
 
-            boolean selfRef = false;
-            for (String k : cleaned.keySet()) {
-                if (k != null && k.equalsIgnoreCase(output)) { selfRef = true; break; }
+    /**
+     * {@link ItemDictionary} IDs of {@code name} and every item reachable through its recipe's ingredients.
+     * The result may be shared between callers and must not be modified.
+     */
+    public BitSet dependencyClosure(String name) {
+        if (name == null) return new BitSet();
+        RecipeGraph graph = graph();
+        Closure cached = lastClosure;
+        if (cached != null && cached.graph == graph && cached.name.equals(name)) return cached.ids;
+        int root = ItemDictionary.getInstance().idOf(name);
+        // Not cached: the name gets an ID, and so a closure, once it enters the ledger
+        if (root == ItemDictionary.UNKNOWN) return new BitSet();
+        BitSet out = new BitSet();
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int id = stack[--top];
+            if (out.get(id)) continue;
+            out.set(id);
+            for (int e = graph.ingredientStart(id), end = graph.ingredientEnd(id); e < end; e++) {
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = graph.ingredientId(e);
             }
-            if (selfRef) continue;
-
-            out.put(output, cleaned);
         }
+        lastClosure = new Closure(graph, name, out);
         return out;
     }
 
-    private boolean containsBlockIngredientForBase(String base, Collection<String> ingredientNames) {
-        String core = base;
-        if (base.endsWith(" Ingot")) {
-            core = base.substring(0, base.length() - " Ingot".length());
-        }
-        String a = "Block of " + core;
-        String b = core + " Block";
-        List<String> variants = new ArrayList<>();
-        variants.add(a);
-        variants.add(b);
-        if ("Redstone".equals(core)) variants.add("Redstone Block");
-        if ("Emerald".equals(core)) variants.add("Emerald Block");
-        if ("Coal".equals(core)) variants.add("Block of Coal");
-        if ("Diamond".equals(core)) variants.add("Block of Diamond");
-        if ("Gold".equals(core)) variants.add("Block of Gold");
-        if ("Iron".equals(core)) variants.add("Block of Iron");
-        if ("Quartz".equals(core)) variants.add("Block of Quartz");
-        if ("Lapis Lazuli".equals(core)) variants.add("Lapis Lazuli Block");
-
-        for (String n : ingredientNames) {
-            for (String v : variants) {
-                if (v.equalsIgnoreCase(n)) return true;
+    private record Closure(RecipeGraph graph, String name, BitSet ids) {}
+
+    /** Read-only view of every recipe; shared, so no copy is made. */
+    public Map<String, Map<String, Integer>> recipes() {
+        return graph().asMap();
+    }
+
+    /** Mutable deep copy of {@link #recipes()}. */
+    public Map<String, Map<String, Integer>> getAllRecipes() {
+        RecipeGraph graph = graph();
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        Map<String, Map<String, Integer>> out = new LinkedHashMap<>(graph.recipeCount() * 2);
+        for (int i = 0; i < graph.recipeCount(); i++) {
+            int id = graph.outputAt(i);
+            Map<String, Integer> recipe = new LinkedHashMap<>();
+            for (int e = graph.ingredientStart(id), end = graph.ingredientEnd(id); e < end; e++) {
+                recipe.put(dictionary.nameOf(graph.ingredientId(e)), graph.quantity(e));
             }
+            out.put(dictionary.nameOf(id), recipe);
         }
-        return false;
+        return out;
+    }
+
+    public RecipeResponse getRecipe(String name, int amt) {
+        if (!graph().hasRecipe(name)) {
+            return null; 
+        }
+        
+        Map<String, Integer> simpleRecipe = getSimpleRecipe(name, amt);
+        RecipeNode fullRecipe = expandRecipe(name, amt);
+        
+        return new RecipeResponse(name, simpleRecipe, fullRecipe);
     }
 
     public static class RecipeResponse {
@@ -206,6 +231,10 @@ public class RecipeManager {
         }
     }
 
+    /**
+     * One item and amount in a recipe or requirement tree. Nodes from {@link #expandRecipe} may appear under
+     * several parents, so they must not be modified.
+     */
     public static class RecipeNode {
         public String name;
         public int amount;
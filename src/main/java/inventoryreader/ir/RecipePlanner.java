@@ -0,0 +1,40 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
+
+/**
+ * Re-plans one selected recipe as resources change, reusing the parts of the last plan that a change did not
+ * affect. If no count in the recipe's closure changed, the last plan is returned as is. Otherwise only the items
+ * above a changed count in the consumer index are walked again; any other sub-recipe reached with the stock it
+ * had last time replays what the last plan recorded for it and keeps its {@link RecipeManager.RecipeNode} objects,
+ * so a change to one gemstone only replaces the nodes on the paths above it. Owned by one consumer; not thread-safe.
+ */
+public final class RecipePlanner {
+    private RecipeSolver.PlanMemo memo;
+
+    public ResourcesManager.RemainingResponse plan(String name, int amt) {
+        RecipeGraph graph = RecipeRegistry.graph();
+        if (memo == null || memo.graph != graph) memo = new RecipeSolver.PlanMemo(graph);
+        int id = ItemDictionary.getInstance().idOf(name);
+        if (id == ItemDictionary.UNKNOWN) return RecipeSolver.unknown(name, amt);
+        ResourcesManager.RemainingResponse response =
+                new RecipeSolver(graph).remaining(id, amt, ResourcesManager.getInstance().copyCounts(), memo);
+        response.name = name;
+        return response;
+    }
+
+    /** Sub-recipes the last {@link #plan} replayed from the plan before it instead of walking them. */
+    public int reusedSubtrees() {
+        return memo == null ? 0 : memo.reusedSubtrees;
+    }
+
+    /** Occurrences the last {@link #plan} had to walk, crafting and tree walks together. */
+    public int evaluatedNodes() {
+        return memo == null ? 0 : memo.evaluatedNodes;
+    }
+
+    public void reset() {
+        memo = null;
+    }
+}
@@ -0,0 +1,945 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Crafting requirement solver over one {@link RecipeGraph}. Counts are primitive arrays indexed by
+ * {@link ItemDictionary} ID, and no walk recurses, so cycles (cut when the graph was compiled) and deep recipes
+ * cannot overflow the stack.
+ * <p>
+ * {@link #craft}, {@link #needed} and {@link #planBatch} visit the target's dependency closure once in reverse
+ * topological order (consumers first), so by the time an item is reached all demand for it has been added up.
+ * They give the same results as the original recursive solver: netting a total leaves the same remainder as
+ * netting its parts one by one, and {@code needed} nets each occurrence against full stock, so occurrences with
+ * equal amounts are counted together.
+ * <p>
+ * {@link #remaining} cannot net totals in general, because the recursive solver handed stock to whichever
+ * occurrence of an item it reached first. It takes one of two paths:
+ * <ul>
+ *   <li>When no intermediate of the closure has two consumers and the plan is not kept in a {@link PlanMemo},
+ *   every item occurs once, so netting totals is the same thing: two linear passes, consumers first and then
+ *   ingredients first.</li>
+ *   <li>Otherwise the recursive walk is replayed occurrence by occurrence, in the same order and with the same
+ *   reservations, and so is the walk that expands the requirement tree. An occurrence of an item reads only the
+ *   stock of the item's closure, and draws at most its amount times a per-unit claim from each of those items,
+ *   so stock beyond that claim cannot change what it does. Each walked occurrence is recorded under its item,
+ *   its amount and the closure stock capped at the claim, and an occurrence with the same key replays the
+ *   recorded effect instead of being walked. Once the stock of a sub-recipe's materials covers it, or is gone,
+ *   its occurrences share one key, so a diamond of shared recipes is walked about once per item and amount
+ *   rather than once per path. Only stock that is drawn down while it partly covers a sub-recipe keeps
+ *   producing new keys. A plan kept in a {@link PlanMemo} always takes this path, so the next plan can replay
+ *   the occurrences a count change did not reach.</li>
+ * </ul>
+ * Not thread-safe; create one per computation.
+ */
+public final class RecipeSolver {
+    private final RecipeGraph graph;
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+
+    public RecipeSolver(RecipeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Plans crafting {@code amt} of {@code target} from {@code counts}, which is consumed (pass a copy).
+     * Returns the requirement tree of what is still missing plus how many of each intermediate can be crafted.
+     */
+    public ResourcesManager.RemainingResponse remaining(int target, int amt, int[] counts) {
+        return remaining(target, amt, counts, null);
+    }
+
+    /** The plan for a name the dictionary has never seen: it has no recipe and none is owned. */
+    static ResourcesManager.RemainingResponse unknown(String name, int amt) {
+        RecipeManager.RecipeNode leaf = new RecipeManager.RecipeNode(name, Math.max(0, amt), Collections.emptyList());
+        return new ResourcesManager.RemainingResponse(name, leaf, new LinkedHashMap<>());
+    }
+
+    /**
+     * As {@link #remaining(int, int, int[])}, keeping the walks in {@code memo}: the next plan reuses what this one
+     * recorded wherever no count it read has changed.
+     */
+    ResourcesManager.RemainingResponse remaining(int target, int amt, int[] counts, PlanMemo memo) {
+        int[] stock = fit(counts, target);
+        Map<String, Integer> messages = new LinkedHashMap<>();
+        if (!graph.hasRecipe(target)) {
+            long missing = Math.max(0L, (long) amt - Math.max(0, stock[target]));
+            RecipeManager.RecipeNode leaf =
+                    new RecipeManager.RecipeNode(dictionary.nameOf(target), saturate(missing), Collections.emptyList());
+            return new ResourcesManager.RemainingResponse(dictionary.nameOf(target), leaf, messages);
+        }
+        boolean kept = memo != null;
+        PlanMemo plan = kept ? memo : new PlanMemo(graph);
+        ResourcesManager.RemainingResponse reused = plan.begin(target, amt, stock);
+        if (reused != null) return reused;
+        Closure closure = plan.closure;
+        boolean memoize = kept || closure.shared;
+        long wanted = Math.max(0, amt);
+        // Stock once the plan's crafts are done; the requirement tree draws on what is left
+        long[] left = new long[stock.length];
+        for (int v = 0; v < left.length; v++) left[v] = Math.max(0, stock[v]);
+        long made = memoize
+                ? new OccurrenceWalk(plan, left, messages).run(target, wanted)
+                : craftByTotals(target, wanted, closure.order, stock, left, messages);
+
+        RecipeManager.RecipeNode tree = plan.record(target, saturate(wanted - made), left, memoize);
+        if (kept) plan.finish(amt, stock, tree, messages);
+        return new ResourcesManager.RemainingResponse(dictionary.nameOf(target), tree, messages);
+    }
+
+    /**
+     * Crafts what stock allows in two passes over {@code order}, for closures where no intermediate has two
+     * consumers. Returns how many of {@code target} were crafted.
+     */
+    private long craftByTotals(int target, long amt, int[] order, int[] stock, long[] left, Map<String, Integer> messages) {
+        int size = stock.length;
+        long[] demand = new long[size];
+        long[] taken = new long[size];
+        long[] rawDemand = new long[size];
+        int[] rawOrder = new int[size];
+        int rawCount = 0;
+        demand[target] = amt;
+
+        // Consumers first: net owned stock against the total demand and pass the shortfall on
+        for (int v : order) {
+            long need = demand[v];
+            long take = v == target ? 0 : Math.min(Math.max(0, stock[v]), need);
+            taken[v] = take;
+            demand[v] = need - take;
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                int w = graph.ingredientId(e);
+                long amount = demand[v] * graph.quantity(e);
+                if (graph.expands(e)) {
+                    demand[w] += amount;
+                } else {
+                    if (rawDemand[w] == 0) rawOrder[rawCount++] = w;
+                    rawDemand[w] += amount;
+                }
+            }
+        }
+
+        // Raw materials (and cut cycle edges) are netted last; what they cover is reserved for this plan
+        long[] available = new long[size];
+        for (int i = 0; i < rawCount; i++) {
+            int w = rawOrder[i];
+            available[w] = Math.min(Math.max(0, stock[w] - taken[w]), rawDemand[w]);
+        }
+
+        // Ingredients first: craft what the reserved stock allows. As in the recursive solver, a consumer claims
+        // its inputs up to its demand even when another input keeps it from being crafted
+        long targetMade = 0;
+        for (int i = order.length - 1; i >= 0; i--) {
+            int v = order[i];
+            long made = demand[v];
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                made = Math.min(made, available[graph.ingredientId(e)] / graph.quantity(e));
+            }
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                int w = graph.ingredientId(e);
+                available[w] -= Math.min(demand[v], available[w] / graph.quantity(e)) * graph.quantity(e);
+                left[w] -= made * graph.quantity(e);
+            }
+            available[v] += taken[v] + made;
+            left[v] += made;
+            if (made > 0) messages.put(dictionary.nameOf(v), saturate(made));
+            if (v == target) targetMade = made;
+        }
+        return targetMade;
+    }
+
+    /**
+     * The dependency closure of one target: its craftable items in the recursive walk's order, and whether an
+     * intermediate has two consumers in it. For memoized walks it also holds, per item, the scope a walk of the
+     * item reads (the item, then everything reachable from its recipe) and the most that walk can draw from
+     * each scope item per unit of the item, summed over every path. Scopes and claims depend only on the graph.
+     */
+    private static final class Closure {
+        final RecipeGraph graph;
+        final int target;
+        final int[] order;
+        final boolean shared;
+        private int[][] scopes;
+        private long[][] claims;
+
+        Closure(RecipeGraph graph, int target) {
+            this.graph = graph;
+            this.target = target;
+            this.order = depthFirst(graph, target);
+            this.shared = sharesIntermediates(graph, order);
+        }
+
+        int[] scope(int item) {
+            index();
+            return scopes[item];
+        }
+
+        /**
+         * The key of an occurrence of {@code item} asked for {@code amount}, reading {@code values} over the item's
+         * scope. Each value is capped at what the occurrence could draw from it, so stock beyond that, which the
+         * walk cannot tell apart, keys the same.
+         */
+        CallKey key(int item, long amount, long[] values) {
+            index();
+            int[] scope = scopes[item];
+            long[] claim = claims[item];
+            long[] stock = new long[scope.length];
+            for (int k = 0; k < scope.length; k++) stock[k] = Math.min(values[scope[k]], saturatingMultiply(amount, claim[k]));
+            return new CallKey(item, amount, stock);
+        }
+
+        // Ingredients first, so every expanded ingredient's scope is built before its consumers'
+        private void index() {
+            if (scopes != null) return;
+            int[][] scopeOf = new int[graph.nodeCount()][];
+            long[][] claimOf = new long[graph.nodeCount()][];
+            long[] drawn = new long[graph.nodeCount()];
+            BitSet reach = new BitSet();
+            for (int i = order.length - 1; i >= 0; i--) {
+                int v = order[i];
+                reach.clear();
+                for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                    int w = graph.ingredientId(e);
+                    long q = graph.quantity(e);
+                    reach.set(w);
+                    drawn[w] = saturatingAdd(drawn[w], q);
+                    if (!graph.expands(e)) continue;
+                    int[] sub = scopeOf[w];
+                    long[] per = claimOf[w];
+                    for (int k = 0; k < sub.length; k++) {
+                        reach.set(sub[k]);
+                        drawn[sub[k]] = saturatingAdd(drawn[sub[k]], saturatingMultiply(q, per[k]));
+                    }
+                }
+                reach.clear(v);
+                int[] scope = new int[reach.cardinality() + 1];
+                long[] claim = new long[scope.length];
+                scope[0] = v;
+                claim[0] = drawn[v];
+                drawn[v] = 0;
+                for (int x = reach.nextSetBit(0), k = 1; x >= 0; x = reach.nextSetBit(x + 1), k++) {
+                    scope[k] = x;
+                    claim[k] = drawn[x];
+                    drawn[x] = 0;
+                }
+                scopeOf[v] = scope;
+                claimOf[v] = claim;
+            }
+            scopes = scopeOf;
+            claims = claimOf;
+        }
+    }
+
+    // True if an item of the closure is an expanded ingredient of two recipes in it
+    private static boolean sharesIntermediates(RecipeGraph graph, int[] order) {
+        BitSet seen = new BitSet();
+        for (int v : order) {
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                if (!graph.expands(e)) continue;
+                if (seen.get(graph.ingredientId(e))) return true;
+                seen.set(graph.ingredientId(e));
+            }
+        }
+        return false;
+    }
+
+    private static long[] project(long[] values, int[] ids) {
+        long[] out = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) out[i] = values[ids[i]];
+        return out;
+    }
+
+    /**
+     * The recursive solver's crafting walk. Occurrences are visited depth first in ingredient order with the same
+     * reservations: what was made for a parent is held back from that parent's later ingredients, and a consumer
+     * claims its inputs even when another input keeps it from being crafted. Every occurrence below the target is
+     * keyed as described on {@link RecipeSolver}; a key recorded in this plan or kept from the last one is
+     * replayed instead of walked.
+     */
+    private final class OccurrenceWalk {
+        // What the walk still sees as available, and the stock left once crafts have consumed their inputs
+        private final long[] car;
+        private final long[] left;
+        private final Map<String, Integer> messages;
+        private final PlanMemo memo;
+        private final Closure closure;
+        // Every craft in walk order, so a recorded occurrence can replay its messages
+        private int[] logItems = new int[16];
+        private long[] logAmounts = new long[16];
+        private int logSize;
+
+        OccurrenceWalk(PlanMemo memo, long[] left, Map<String, Integer> messages) {
+            this.car = left.clone();
+            this.left = left;
+            this.messages = messages;
+            this.memo = memo;
+            this.closure = memo.closure;
+        }
+
+        /** Crafts {@code amt} of {@code target} as far as stock allows and returns how many were made. */
+        long run(int target, long amt) {
+            long before = left[target];
+            Call[] stack = new Call[16];
+            int top = 0;
+            stack[top++] = new Call(target, amt, null);
+            while (top > 0) {
+                Call c = stack[top - 1];
+                if (c.edge < c.end) {
+                    int e = c.edge;
+                    int w = graph.ingredientId(e);
+                    if (!graph.expands(e)) {
+                        c.edge++;
+                        continue;
+                    }
+                    long share = graph.quantity(e) * c.amount;
+                    long need = share - car[w];
+                    if (need <= 0) {
+                        c.made[e - c.start] = share;
+                        car[w] -= share;
+                        c.edge++;
+                        continue;
+                    }
+                    CallKey key = closure.key(w, need, car);
+                    CallEffect effect = memo.craft(key);
+                    if (effect == null) {
+                        if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                        stack[top++] = new Call(w, need, key);
+                        continue;
+                    }
+                    replay(closure.scope(w), effect);
+                    c.holdBack(w);
+                    continue;
+                }
+                for (int e = c.start; e < c.end; e++) {
+                    if (c.made[e - c.start] > 0) car[graph.ingredientId(e)] += c.made[e - c.start];
+                }
+                check(c.item, c.amount);
+                top--;
+                if (c.key != null) memo.crafted(c.key, c.effect());
+                if (top > 0) stack[top - 1].holdBack(c.item);
+            }
+            return left[target] - before;
+        }
+
+        // The recursive solver's check and allocate for one occurrence of v
+        private void check(int v, long amount) {
+            int start = graph.ingredientStart(v), end = graph.ingredientEnd(v);
+            long made = amount;
+            long[] possible = new long[end - start];
+            for (int e = start; e < end; e++) {
+                possible[e - start] = car[graph.ingredientId(e)] / graph.quantity(e);
+                made = Math.min(made, possible[e - start]);
+            }
+            left[v] += made;
+            car[v] += made;
+            if (made > 0) log(v, made);
+            for (int e = start; e < end; e++) {
+                int w = graph.ingredientId(e);
+                left[w] -= graph.quantity(e) * made;
+                if (amount != 0) car[w] -= graph.quantity(e) * Math.min(amount, possible[e - start]);
+            }
+        }
+
+        private void replay(int[] scope, CallEffect effect) {
+            for (int i = 0; i < scope.length; i++) {
+                car[scope[i]] += effect.car()[i];
+                left[scope[i]] += effect.left()[i];
+            }
+            for (int i = 0; i < effect.items().length; i++) log(effect.items()[i], effect.amounts()[i]);
+        }
+
+        private void log(int item, long amount) {
+            if (logSize == logItems.length) {
+                logItems = Arrays.copyOf(logItems, logSize * 2);
+                logAmounts = Arrays.copyOf(logAmounts, logSize * 2);
+            }
+            logItems[logSize] = item;
+            logAmounts[logSize++] = amount;
+            messages.merge(dictionary.nameOf(item), saturate(amount), (a, b) -> saturate((long) a + b));
+        }
+
+        // One occurrence: the edge to look at next, and what each ingredient made for it so far
+        private final class Call {
+            final int item;
+            final long amount;
+            final int start;
+            final int end;
+            final long[] made;
+            // Null for the target; otherwise the key it is recorded under, with the state it started from
+            final CallKey key;
+            final long[] carBefore;
+            final long[] leftBefore;
+            final int logStart;
+            int edge;
+
+            Call(int item, long amount, CallKey key) {
+                this.item = item;
+                this.amount = amount;
+                this.start = graph.ingredientStart(item);
+                this.end = graph.ingredientEnd(item);
+                this.made = new long[end - start];
+                this.key = key;
+                this.carBefore = key == null ? null : project(car, closure.scope(item));
+                this.leftBefore = key == null ? null : project(left, closure.scope(item));
+                this.logStart = logSize;
+                this.edge = start;
+                memo.evaluatedNodes++;
+            }
+
+            // The ingredient on the current edge is done: hold what it made back from the later ingredients
+            void holdBack(int w) {
+                made[edge - start] = car[w];
+                car[w] = 0;
+                edge++;
+            }
+
+            CallEffect effect() {
+                int[] scope = closure.scope(item);
+                long[] dCar = project(car, scope);
+                long[] dLeft = project(left, scope);
+                for (int i = 0; i < scope.length; i++) {
+                    dCar[i] -= carBefore[i];
+                    dLeft[i] -= leftBefore[i];
+                }
+                Map<Integer, Long> crafted = new LinkedHashMap<>();
+                for (int i = logStart; i < logSize; i++) crafted.merge(logItems[i], logAmounts[i], Long::sum);
+                int[] items = new int[crafted.size()];
+                long[] amounts = new long[crafted.size()];
+                int k = 0;
+                for (Map.Entry<Integer, Long> entry : crafted.entrySet()) {
+                    items[k] = entry.getKey();
+                    amounts[k++] = entry.getValue();
+                }
+                return new CallEffect(dCar, dLeft, items, amounts);
+            }
+        }
+    }
+
+    // An occurrence of item with amount to make, and its scope's stock when it started, capped at its claims
+    private record CallKey(int item, long amount, long[] stock) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CallKey k && k.item == item && k.amount == amount && Arrays.equals(k.stock, stock);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * item + Long.hashCode(amount)) + Arrays.hashCode(stock);
+        }
+    }
+
+    // What a crafting occurrence changed over its item's scope, and what it crafted in first-crafted order
+    private record CallEffect(long[] car, long[] left, int[] items, long[] amounts) {}
+
+    // What a tree occurrence drew over its item's scope, and the node it expanded to
+    private record TreeEffect(long[] left, RecipeManager.RecipeNode node) {}
+
+    /**
+     * Applies crafting {@code amt} of {@code target} to {@code counts} in place: stock is used first and any
+     * shortfall is crafted from ingredients, bottoming out at raw materials (clamped at zero).
+     */
+    public int[] craft(int target, int amt, int[] counts) {
+        int[] res = fit(counts, target);
+        res[target] = saturate((long) res[target] + amt);
+        if (!graph.hasRecipe(target)) return res;
+        long[] demand = new long[res.length];
+        long[] rawDemand = new long[res.length];
+        int[] rawOrder = new int[res.length];
+        int rawCount = 0;
+        demand[target] = amt;
+        for (int v : consumersFirst(target)) {
+            long craft = demand[v];
+            if (craft <= 0) continue;
+            if (v != target) {
+                long available = res[v];
+                if (available >= craft) {
+                    res[v] = (int) (available - craft);
+                    continue;
+                }
+                res[v] = 0;
+                craft -= available;
+            }
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                int w = graph.ingredientId(e);
+                long amount = craft * graph.quantity(e);
+                if (graph.expands(e)) {
+                    demand[w] += amount;
+                } else {
+                    if (rawDemand[w] == 0) rawOrder[rawCount++] = w;
+                    rawDemand[w] += amount;
+                }
+            }
+        }
+        for (int i = 0; i < rawCount; i++) {
+            int w = rawOrder[i];
+            res[w] = (int) Math.max(0, res[w] - rawDemand[w]);
+        }
+        return res;
+    }
+
+    /**
+     * Adds to {@code needed} the raw materials still missing to craft {@code amt} of {@code id}, checking each
+     * occurrence against {@code resources} on its own (stock is not drawn down). Occurrences of an item with the
+     * same amount are counted rather than walked separately; only the result map and the per-item counts allocate.
+     */
+    public void needed(int id, int amt, ResourceSnapshot resources, Map<String, Integer> needed) {
+        if (!graph.hasRecipe(id)) {
+            int have = resources.get(id);
+            if (have < amt) {
+                needed.put(dictionary.nameOf(id), amt - have);
+            }
+            return;
+        }
+        // Per item: amount needed by one occurrence -> number of occurrences with that amount
+        Map<Integer, Map<Long, Long>> occurrences = new HashMap<>();
+        Map<Integer, Map<Long, Long>> rawOccurrences = new LinkedHashMap<>();
+        occurrences.put(id, new LinkedHashMap<>(Map.of((long) amt, 1L)));
+        for (int v : consumersFirst(id)) {
+            Map<Long, Long> counts = occurrences.get(v);
+            if (counts == null) continue;
+            for (Map.Entry<Long, Long> c : counts.entrySet()) {
+                for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                    long required = graph.quantity(e) * c.getKey();
+                    (graph.expands(e) ? occurrences : rawOccurrences)
+                            .computeIfAbsent(graph.ingredientId(e), k -> new LinkedHashMap<>())
+                            .merge(required, c.getValue(), Long::sum);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Map<Long, Long>> raw : rawOccurrences.entrySet()) {
+            int have = resources.get(raw.getKey());
+            long missing = 0;
+            for (Map.Entry<Long, Long> c : raw.getValue().entrySet()) {
+                if (have < c.getKey()) missing += (c.getKey() - have) * c.getValue();
+            }
+            if (missing > 0) needed.merge(dictionary.nameOf(raw.getKey()), saturate(missing), Integer::sum);
+        }
+    }
+
+    /**
+     * Plans every target against one shared copy of {@code counts}, in the order given. Each target is a
+     * single pass over its dependency closure in reverse topological order: by the time an item is visited all
+     * of its consumers have added their demand, so owned stock is netted once against the total and only the
+     * shortfall is exploded into ingredients. Raw materials (and cut cycle edges) are netted last. As in
+     * {@link #remaining} and {@link #craft}, a target is always crafted in full: its own stock is not netted
+     * against it, though another target may still draw on it as an ingredient.
+     */
+    public BatchPlan planBatch(int[] targets, int[] amounts, int[] counts) {
+        long start = System.nanoTime();
+        int size = graph.nodeCount();
+        for (int t : targets) size = Math.max(size, t + 1);
+        long[] stock = new long[size];
+        for (int i = 0; i < Math.min(size, counts.length); i++) stock[i] = Math.max(0, counts[i]);
+        long[] demand = new long[size];
+        long[] rawDemand = new long[size];
+        int[] rawOrder = new int[size];
+        BatchPlan plan = new BatchPlan();
+
+        for (int t = 0; t < targets.length; t++) {
+            int target = targets[t];
+            BatchPlan.TargetPlan result = new BatchPlan.TargetPlan(dictionary.nameOf(target), amounts[t]);
+            plan.targets.add(result);
+            int rawCount = 0;
+            if (!graph.hasRecipe(target)) {
+                rawDemand[target] = amounts[t];
+                rawOrder[rawCount++] = target;
+            } else {
+                demand[target] = amounts[t];
+                for (int v : consumersFirst(target)) {
+                    long need = demand[v];
+                    if (need == 0) continue;
+                    demand[v] = 0;
+                    long take = v == target ? 0 : Math.min(stock[v], need);
+                    stock[v] -= take;
+                    long craft = need - take;
+                    if (craft == 0) continue;
+                    if (v != target) {
+                        String name = dictionary.nameOf(v);
+                        result.toCraft.merge(name, craft, Long::sum);
+                        plan.toCraft.merge(name, craft, Long::sum);
+                    }
+                    for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                        int w = graph.ingredientId(e);
+                        long amount = craft * graph.quantity(e);
+                        if (graph.expands(e)) {
+                            demand[w] += amount;
+                        } else {
+                            if (rawDemand[w] == 0) rawOrder[rawCount++] = w;
+                            rawDemand[w] += amount;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < rawCount; i++) {
+                int w = rawOrder[i];
+                long need = rawDemand[w];
+                rawDemand[w] = 0;
+                long take = Math.min(stock[w], need);
+                stock[w] -= take;
+                if (need > take) {
+                    String name = dictionary.nameOf(w);
+                    result.missing.put(name, need - take);
+                    plan.missing.merge(name, need - take, Long::sum);
+                }
+            }
+        }
+        plan.elapsedNanos = System.nanoTime() - start;
+        return plan;
+    }
+
+    /**
+     * {@code target} and every craftable item reachable from it through expanding edges, consumers first. The
+     * closure is marked by topological index, so reading the marks backwards gives the order without a sort.
+     */
+    private int[] consumersFirst(int target) {
+        BitSet closure = new BitSet();
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = target;
+        int size = 0;
+        while (top > 0) {
+            int v = stack[--top];
+            int index = graph.topologicalIndex(v);
+            if (closure.get(index)) continue;
+            closure.set(index);
+            size++;
+            for (int e = graph.ingredientStart(v), end = graph.ingredientEnd(v); e < end; e++) {
+                if (!graph.expands(e)) continue;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = graph.ingredientId(e);
+            }
+        }
+        int[] order = new int[size];
+        int n = 0;
+        for (int i = closure.length() - 1; i >= 0; i = closure.previousSetBit(i - 1)) {
+            order[n++] = graph.topologicalAt(i);
+        }
+        return order;
+    }
+
+    /**
+     * As {@link #consumersFirst}, but ordered like the recursive solver's walk: the reverse of the order in which
+     * a depth-first walk in ingredient order finishes each item, so ingredients first reads as that walk did.
+     */
+    private static int[] depthFirst(RecipeGraph graph, int target) {
+        BitSet seen = new BitSet();
+        int[] finished = new int[16];
+        int size = 0;
+        int[] items = new int[16];
+        int[] edges = new int[16];
+        int top = 0;
+        items[top] = target;
+        edges[top++] = graph.ingredientStart(target);
+        seen.set(target);
+        while (top > 0) {
+            int v = items[top - 1];
+            int e = edges[top - 1];
+            if (e == graph.ingredientEnd(v)) {
+                top--;
+                if (size == finished.length) finished = Arrays.copyOf(finished, size * 2);
+                finished[size++] = v;
+                continue;
+            }
+            edges[top - 1]++;
+            int w = graph.ingredientId(e);
+            if (!graph.expands(e) || seen.get(w)) continue;
+            seen.set(w);
+            if (top == items.length) {
+                items = Arrays.copyOf(items, top * 2);
+                edges = Arrays.copyOf(edges, top * 2);
+            }
+            items[top] = w;
+            edges[top++] = graph.ingredientStart(w);
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = finished[size - 1 - i];
+        return order;
+    }
+
+    private int[] fit(int[] counts, int target) {
+        int size = Math.max(graph.nodeCount(), target + 1);
+        return counts.length >= size ? counts : Arrays.copyOf(counts, size);
+    }
+
+    private static int saturate(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    private static long saturatingAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatingMultiply(long a, long b) {
+        if (a <= 0 || b <= 0) return 0;
+        return a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    /**
+     * The last plan of one {@link RecipePlanner}, kept so the next plan only walks what a count change can have
+     * affected. A plan with the same target, amount and counts over the target's closure is the last plan again.
+     * Otherwise the changed IDs are followed up the graph's consumer index: recorded occurrences of the items
+     * above them are dropped, and every other recorded occurrence, crafting or tree, is replayed when the new
+     * plan reaches it with the same key instead of being walked. Tree nodes are also looked up by item, amount
+     * and child nodes before one is created, first in the plan being built and then in the last one, so an
+     * unaffected branch keeps its {@link RecipeManager.RecipeNode} objects all the way down.
+     */
+    static final class PlanMemo {
+        private static final RecipeManager.RecipeNode[] NO_CHILDREN = new RecipeManager.RecipeNode[0];
+
+        final RecipeGraph graph;
+        private final ItemDictionary dictionary = ItemDictionary.getInstance();
+        private Closure closure;
+        // The last plan: its amount, the counts it read over the target's scope, and what it returned
+        private int lastAmount;
+        private int[] lastCounts;
+        private RecipeManager.RecipeNode lastTree;
+        private Map<String, Integer> lastMessages;
+        private Map<NodeKey, RecipeManager.RecipeNode> lastNodes = new HashMap<>();
+        // Occurrences the last plan recorded that no count change reached, and those of the plan being made
+        private Map<CallKey, CallEffect> keptCrafts = new HashMap<>();
+        private Map<CallKey, CallEffect> crafts = new HashMap<>();
+        private Map<CallKey, TreeEffect> keptTrees = new HashMap<>();
+        private Map<CallKey, TreeEffect> trees = new HashMap<>();
+        /** Subtrees of the last plan, crafting or tree, that were replayed instead of walked. */
+        int reusedSubtrees;
+        /** Occurrences, crafting or tree, that the last plan had to walk. */
+        int evaluatedNodes;
+
+        PlanMemo(RecipeGraph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Starts a plan. Returns the last plan's result if nothing it depends on changed; otherwise drops the
+         * recorded occurrences of every item a changed count can reach and returns null.
+         */
+        ResourcesManager.RemainingResponse begin(int target, int amt, int[] stock) {
+            reusedSubtrees = 0;
+            evaluatedNodes = 0;
+            if (closure == null || closure.target != target) {
+                closure = new Closure(graph, target);
+                lastTree = null;
+                keptCrafts.clear();
+                keptTrees.clear();
+                return null;
+            }
+            if (lastTree == null) return null;
+            int[] scope = closure.scope(target);
+            int[] changed = new int[scope.length];
+            int count = 0;
+            for (int k = 0; k < scope.length; k++) {
+                if (stock[scope[k]] != lastCounts[k]) changed[count++] = scope[k];
+            }
+            if (count == 0 && amt == lastAmount) {
+                reusedSubtrees = 1;
+                return new ResourcesManager.RemainingResponse(dictionary.nameOf(target), lastTree,
+                        new LinkedHashMap<>(lastMessages));
+            }
+            BitSet affected = consumersOf(changed, count);
+            keptCrafts.keySet().removeIf(key -> affected.get(key.item()));
+            keptTrees.keySet().removeIf(key -> affected.get(key.item()));
+            return null;
+        }
+
+        /** Keeps the plan just made as the last one, with the occurrences it recorded or replayed. */
+        void finish(int amt, int[] stock, RecipeManager.RecipeNode tree, Map<String, Integer> messages) {
+            int[] scope = closure.scope(closure.target);
+            lastCounts = new int[scope.length];
+            for (int k = 0; k < scope.length; k++) lastCounts[k] = stock[scope[k]];
+            lastAmount = amt;
+            lastTree = tree;
+            lastMessages = new LinkedHashMap<>(messages);
+            keptCrafts = crafts;
+            crafts = new HashMap<>();
+            keptTrees = trees;
+            trees = new HashMap<>();
+        }
+
+        // The changed IDs and every output reachable from them through the consumer index
+        private BitSet consumersOf(int[] changed, int count) {
+            BitSet seen = new BitSet(graph.nodeCount());
+            int[] queue = new int[graph.nodeCount()];
+            int head = 0, tail = 0;
+            for (int i = 0; i < count; i++) {
+                int id = changed[i];
+                if (id >= graph.nodeCount() || seen.get(id)) continue;
+                seen.set(id);
+                queue[tail++] = id;
+            }
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = graph.consumerStart(v), end = graph.consumerEnd(v); i < end; i++) {
+                    int c = graph.consumerAt(i);
+                    if (seen.get(c)) continue;
+                    seen.set(c);
+                    queue[tail++] = c;
+                }
+            }
+            return seen;
+        }
+
+        private CallEffect craft(CallKey key) {
+            CallEffect effect = crafts.get(key);
+            if (effect != null) return effect;
+            effect = keptCrafts.get(key);
+            if (effect != null) {
+                crafts.put(key, effect);
+                reusedSubtrees++;
+            }
+            return effect;
+        }
+
+        private void crafted(CallKey key, CallEffect effect) {
+            crafts.put(key, effect);
+        }
+
+        private TreeEffect tree(CallKey key) {
+            TreeEffect effect = trees.get(key);
+            if (effect != null) return effect;
+            effect = keptTrees.get(key);
+            if (effect != null) {
+                trees.put(key, effect);
+                reusedSubtrees++;
+            }
+            return effect;
+        }
+
+        /**
+         * Records the tree for {@code amount} still to craft of {@code target}, depth first in ingredient order
+         * without recursion, as the recursive solver expanded it. Each occurrence asks for its parent's amount
+         * times the edge quantity and nets that against {@code left}, the stock left after the plan's crafts,
+         * drawing it down. When {@code memoize} is set, every craftable occurrence below the target is keyed like
+         * a crafting occurrence, and one whose key was recorded is replayed: its draws are applied and its node
+         * reused. Returns the root.
+         */
+        RecipeManager.RecipeNode record(int target, int amount, long[] left, boolean memoize) {
+            Map<NodeKey, RecipeManager.RecipeNode> nodes = new HashMap<>();
+            Frame[] stack = new Frame[16];
+            int top = 0;
+            stack[top++] = new Frame(target, amount, null, null);
+            evaluatedNodes++;
+            RecipeManager.RecipeNode root = null;
+            while (top > 0) {
+                Frame f = stack[top - 1];
+                if (f.edge == f.end) {
+                    top--;
+                    RecipeManager.RecipeNode node = node(nodes, f.item, f.amount, f.children);
+                    if (f.key != null) {
+                        long[] drawn = project(left, closure.scope(f.item));
+                        for (int k = 0; k < drawn.length; k++) drawn[k] -= f.leftBefore[k];
+                        trees.put(f.key, new TreeEffect(drawn, node));
+                    }
+                    if (top == 0) {
+                        root = node;
+                    } else {
+                        stack[top - 1].add(node);
+                    }
+                    continue;
+                }
+                int e = f.edge;
+                int w = graph.ingredientId(e);
+                long need = (long) graph.quantity(e) * f.amount;
+                long have = left[w];
+                long ask;
+                if (have < need) {
+                    ask = need - have;
+                    left[w] = 0;
+                } else {
+                    ask = 0;
+                    left[w] = have - need;
+                }
+                int asked = saturate(ask);
+                if (!graph.expands(e)) {
+                    f.add(node(nodes, w, asked, NO_CHILDREN));
+                    continue;
+                }
+                CallKey key = null;
+                if (memoize) {
+                    key = closure.key(w, asked, left);
+                    TreeEffect known = tree(key);
+                    if (known != null) {
+                        int[] scope = closure.scope(w);
+                        for (int k = 0; k < scope.length; k++) left[scope[k]] += known.left()[k];
+                        f.add(known.node());
+                        continue;
+                    }
+                }
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = new Frame(w, asked, key, key == null ? null : project(left, closure.scope(w)));
+                evaluatedNodes++;
+            }
+            lastNodes = nodes;
+            return root;
+        }
+
+        private RecipeManager.RecipeNode node(Map<NodeKey, RecipeManager.RecipeNode> nodes, int item, int amount,
+                                              RecipeManager.RecipeNode[] children) {
+            NodeKey key = new NodeKey(item, amount, children);
+            RecipeManager.RecipeNode node = nodes.get(key);
+            if (node != null) return node;
+            node = lastNodes.get(key);
+            if (node == null) {
+                List<RecipeManager.RecipeNode> ingredients = children.length == 0 ? Collections.emptyList() : List.of(children);
+                node = new RecipeManager.RecipeNode(dictionary.nameOf(item), amount, ingredients);
+            }
+            nodes.put(key, node);
+            return node;
+        }
+
+        // One craftable occurrence being expanded: the edge to look at next and the child nodes so far
+        private final class Frame {
+            final int item;
+            final int amount;
+            final int start;
+            final int end;
+            final RecipeManager.RecipeNode[] children;
+            // Null for the root or an unmemoized walk; otherwise the key and the stock it started from
+            final CallKey key;
+            final long[] leftBefore;
+            int edge;
+
+            Frame(int item, int amount, CallKey key, long[] leftBefore) {
+                this.item = item;
+                this.amount = amount;
+                this.start = graph.ingredientStart(item);
+                this.end = graph.ingredientEnd(item);
+                this.children = new RecipeManager.RecipeNode[end - start];
+                this.key = key;
+                this.leftBefore = leftBefore;
+                this.edge = start;
+            }
+
+            void add(RecipeManager.RecipeNode child) {
+                children[edge++ - start] = child;
+            }
+        }
+    }
+
+    // A node's identity: its item, its amount and its exact child nodes
+    private record NodeKey(int item, int amount, RecipeManager.RecipeNode[] children) {
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof NodeKey k) || k.item != item || k.amount != amount || k.children.length != children.length) {
+                return false;
+            }
+            for (int i = 0; i < children.length; i++) {
+                if (k.children[i] != children[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 31 * item + amount;
+            for (RecipeManager.RecipeNode child : children) h = 31 * h + System.identityHashCode(child);
+            return h;
+        }
+    }
+}
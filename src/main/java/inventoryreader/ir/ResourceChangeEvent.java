@@ -0,0 +1,57 @@
+package inventoryreader.ir;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Coalesced notification that one or more resources changed. Carries the snapshot that includes every change
+ * reported, plus the sorted {@link ItemDictionary} IDs touched since the snapshot of version {@link #baseVersion()}.
+ */
+public final class ResourceChangeEvent {
+    private final ResourceSnapshot snapshot;
+    private final boolean fullReload;
+    private final int[] ids;
+    private final long baseVersion;
+
+    ResourceChangeEvent(ResourceSnapshot snapshot, boolean fullReload, int[] ids, long baseVersion) {
+        this.snapshot = snapshot;
+        this.fullReload = fullReload;
+        this.ids = ids;
+        this.baseVersion = baseVersion;
+    }
+
+    public ResourceSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Version of the snapshot the changed IDs are relative to: the previous event's, or the one at which changes
+     * were last dropped for lack of listeners. A consumer that did not see that snapshot must not apply the
+     * IDs as a delta.
+     */
+    public long baseVersion() {
+        return baseVersion;
+    }
+
+    /** True when the ledger was (re)loaded from disk; every resource should be treated as changed. */
+    public boolean isFullReload() {
+        return fullReload;
+    }
+
+    public int[] changedIds() {
+        return ids.clone();
+    }
+
+    public boolean touches(int id) {
+        return fullReload || Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public boolean touchesAny(BitSet interesting) {
+        if (fullReload) return true;
+        if (interesting == null) return false;
+        for (int id : ids) {
+            if (interesting.get(id)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+package inventoryreader.ir;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only log of resource changes that sits next to the resources snapshot.
+ * Each line is a JSON object with the post-change amount of every resource touched by one batch,
+ * so replaying a line that is already folded into the snapshot is harmless.
+ * <p>
+ * Records are numbered, and a record made from a container capture names its source, so container snapshots
+ * written after the record can be told apart from ones written before it. Compaction starts the new file with
+ * a marker that carries the sequence and every source not yet {@link #settle settled}, so neither is lost when
+ * the records themselves are folded away.
+ */
+public class ResourceJournal {
+    private static final Gson GSON = new Gson();
+    private static final Type LINE_TYPE = new TypeToken<Map<String, Integer>>(){}.getType();
+
+    private final File file;
+    private final File compactingFile;
+    private Writer writer;
+    // Number of the last record written or replayed, and of the last record of each source not yet settled
+    private long sequence = 0L;
+    private final Map<String, Long> sources = new HashMap<>();
+
+    public ResourceJournal(File file) {
+        this.file = file;
+        this.compactingFile = new File(file.getPath() + ".compacting");
+    }
+
+    public synchronized long append(Map<String, Integer> values) {
+        return append(values, null);
+    }
+
+    /**
+     * Appends one record; {@code source} names the container capture it came from, or is null.
+     * @return the record's sequence number, or the current one if there was nothing to write
+     */
+    public synchronized long append(Map<String, Integer> values, String source) {
+        if (values == null || values.isEmpty()) return sequence;
+        JsonObject line = new JsonObject();
+        line.addProperty("seq", ++sequence);
+        line.add("set", GSON.toJsonTree(values, LINE_TYPE));
+        if (source != null) {
+            line.addProperty("from", source);
+            sources.put(source, sequence);
+        }
+        write(line);
+        return sequence;
+    }
+
+    /** Number of the last record written or replayed. */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    /** Sources whose last record has not been {@link #settle settled}, with that record's sequence number. */
+    public synchronized Map<String, Long> unsettledSources() {
+        return new LinkedHashMap<>(sources);
+    }
+
+    /**
+     * Called once whatever {@code source} describes is durable as of {@code sequence}, so later compactions
+     * no longer need to carry it.
+     */
+    public synchronized void settle(String source, long sequence) {
+        Long last = sources.get(source);
+        if (last != null && last <= sequence) sources.remove(source);
+    }
+
+    /**
+     * Replays the journal (including an unfinished compaction) on top of a freshly loaded snapshot, and picks
+     * up the sequence and unsettled sources from where the journal left off.
+     * @return the number of records applied
+     */
+    public synchronized int replayInto(Map<String, Integer> target) {
+        close();
+        sequence = 0L;
+        sources.clear();
+        // Appends and compaction both add to these files, so a torn tail has to go before either does
+        dropTornTail(compactingFile);
+        dropTornTail(file);
+        return replay(compactingFile, target) + replay(file, target);
+    }
+
+    /**
+     * Moves the live journal aside so new appends start a fresh file while the snapshot is written.
+     * Leftovers of a previously failed compaction are kept in front of the moved records.
+     */
+    public synchronized void beginCompaction() {
+        close();
+        if (!file.exists()) return;
+        try {
+            if (compactingFile.exists()) {
+                Files.write(compactingFile.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                Files.delete(file.toPath());
+            } else {
+                Files.move(file.toPath(), compactingFile.toPath());
+            }
+        } catch (IOException e) {
+            InventoryReader.LOGGER.error("Failed to rotate resource journal", e);
+        }
+        if (sequence == 0L) return;
+        JsonObject marker = new JsonObject();
+        marker.addProperty("seq", sequence);
+        if (!sources.isEmpty()) marker.add("pending", GSON.toJsonTree(sources));
+        write(marker);
+    }
+
+    /**
+     * Called once the snapshot containing every compacting record is safely on disk.
+     */
+    public synchronized void finishCompaction() {
+        if (compactingFile.exists() && !compactingFile.delete()) {
+            InventoryReader.LOGGER.warn("Failed to delete compacted journal {}", compactingFile.getAbsolutePath());
+        }
+    }
+
+    public synchronized void delete() {
+        close();
+        sequence = 0L;
+        sources.clear();
+        if (file.exists()) file.delete();
+        if (compactingFile.exists()) compactingFile.delete();
+    }
+
+    public synchronized void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+
+    private void write(JsonObject line) {
+        try {
+            if (writer == null) {
+                File dir = file.getParentFile();
+                if (dir != null && !dir.exists()) dir.mkdirs();
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+            }
+            writer.write(GSON.toJson(line));
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            InventoryReader.LOGGER.error("Failed to append to resource journal", e);
+            close();
+        }
+    }
+
+    // A crash mid-append can leave a last line without its newline; cut the file back to the last complete line
+    private static void dropTornTail(File source) {
+        if (!source.exists() || source.length() == 0) return;
+        try (RandomAccessFile raf = new RandomAccessFile(source, "rw")) {
+            long end = raf.length();
+            byte[] chunk = new byte[4096];
+            long keep = 0L;
+            search:
+            while (end > 0) {
+                int n = (int) Math.min(chunk.length, end);
+                raf.seek(end - n);
+                raf.readFully(chunk, 0, n);
+                for (int i = n - 1; i >= 0; i--) {
+                    if (chunk[i] == '\n') {
+                        keep = end - n + i + 1;
+                        break search;
+                    }
+                }
+                end -= n;
+            }
+            if (keep < raf.length()) {
+                InventoryReader.LOGGER.warn("Dropping {} bytes of a torn record at the end of {}", raf.length() - keep, source.getName());
+                raf.setLength(keep);
+            }
+        } catch (IOException e) {
+            InventoryReader.LOGGER.error("Failed to repair resource journal {}", source.getName(), e);
+        }
+    }
+
+    private int replay(File source, Map<String, Integer> target) {
+        if (!source.exists() || source.length() == 0) return 0;
+        int applied = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(source, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    JsonObject record = GSON.fromJson(line, JsonObject.class);
+                    if (record == null) continue;
+                    JsonElement seq = record.get("seq");
+                    if (seq == null || !seq.isJsonPrimitive()) continue;
+                    long number = seq.getAsLong();
+                    sequence = Math.max(sequence, number);
+                    if (record.get("pending") instanceof JsonObject pending) {
+                        for (Map.Entry<String, JsonElement> e : pending.entrySet()) {
+                            sources.merge(e.getKey(), e.getValue().getAsLong(), Math::max);
+                        }
+                    }
+                    // A compaction marker has no values
+                    if (!(record.get("set") instanceof JsonObject set)) continue;
+                    Map<String, Integer> values = GSON.fromJson(set, LINE_TYPE);
+                    if (values == null) continue;
+                    for (Map.Entry<String, Integer> e : values.entrySet()) {
+                        if (e.getKey() != null && e.getValue() != null) target.put(e.getKey(), e.getValue());
+                    }
+                    JsonElement from = record.get("from");
+                    if (from != null && from.isJsonPrimitive()) sources.merge(from.getAsString(), number, Math::max);
+                    applied++;
+                } catch (JsonParseException | IllegalStateException | UnsupportedOperationException | NumberFormatException torn) {
+                    // Torn tails are cut before replay; anything else unreadable is skipped
+                }
+            }
+        } catch (IOException e) {
+            InventoryReader.LOGGER.error("Failed to replay resource journal {}", source.getName(), e);
+        }
+        return applied;
+    }
+}
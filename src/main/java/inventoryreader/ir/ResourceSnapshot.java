@@ -0,0 +1,70 @@
+package inventoryreader.ir;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of the resource ledger at one point in time. Published by {@link ResourcesManager} after
+ * every applied batch, so readers on any thread get a consistent set of counts without locking or disk access.
+ */
+public final class ResourceSnapshot {
+    static final ResourceSnapshot EMPTY = new ResourceSnapshot(0L, new int[0], new int[0]);
+
+    private final long version;
+    private final int[] counts;
+    private final int[] ids;
+    private Map<String, Integer> asMap;
+
+    ResourceSnapshot(long version, int[] counts, int[] ids) {
+        this.version = version;
+        this.counts = counts;
+        this.ids = ids;
+    }
+
+    /** Increases by at least one every time the ledger changes. */
+    public long version() {
+        return version;
+    }
+
+    public int get(int id) {
+        return id >= 0 && id < counts.length ? counts[id] : 0;
+    }
+
+    public int get(String name) {
+        return get(ItemDictionary.getInstance().idOf(name));
+    }
+
+    /** Number of tracked resources, including ones at zero. */
+    public int size() {
+        return ids.length;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public int countAt(int index) {
+        return counts[ids[index]];
+    }
+
+    public int[] copyCounts() {
+        return Arrays.copyOf(counts, Math.max(counts.length, ItemDictionary.getInstance().size()));
+    }
+
+    /**
+     * Unmodifiable name to count view in ledger order, built on first use. Callers that need to modify it must copy.
+     */
+    public Map<String, Integer> asMap() {
+        Map<String, Integer> m = asMap;
+        if (m == null) {
+            ItemDictionary dict = ItemDictionary.getInstance();
+            Map<String, Integer> out = new LinkedHashMap<>(ids.length * 2);
+            for (int id : ids) out.put(dict.nameOf(id), counts[id]);
+            m = Collections.unmodifiableMap(out);
+            asMap = m;
+        }
+        return m;
+    }
+}
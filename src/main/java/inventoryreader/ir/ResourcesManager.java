@@ -2,6 +2,9 @@ package inventoryreader.ir;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import inventoryreader.ir.recipes.BaseMaterialTable;
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -11,29 +14,195 @@ import java.util.Map;
 import java.util.LinkedHashMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ResourcesManager {
 
+    // Interval between folding the journal into the snapshot; override with -Dir.resources.compactSeconds=N
+    private static final long COMPACT_INTERVAL_SECONDS = Math.max(1L, Long.getLong("ir.resources.compactSeconds", 60L));
     private static final ResourcesManager INSTANCE = new ResourcesManager();
     private static final File resourcesFile = FilePathManager.getResourcesFile();
     private static final Object RES_FILE_LOCK = new Object();
     private final Map<String, Integer> pendingChanges = new LinkedHashMap<>();
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+    private final NameCanonicalizer canonicalizer = new NameCanonicalizer(dictionary, this::isTracked);
+    private final ResourceJournal journal = new ResourceJournal(FilePathManager.getResourcesJournalFile());
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService events;
+    private final List<Consumer<ResourceChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    // Ledger: counts indexed by ItemDictionary ID; trackedIds keeps the resource keys in file order
+    private int[] counts = new int[512];
+    private boolean[] tracked = new boolean[512];
+    private int[] trackedIds = new int[512];
+    private int trackedSize = 0;
+    private boolean loaded = false;
+    private boolean dirty = false;
+    private long version = 0L;
+    // Snapshot version the pending changedIds are relative to; guarded by RES_FILE_LOCK
+    private long changesSince = 0L;
+    // Readers load this without locking; writers replace it under RES_FILE_LOCK after every change
+    private volatile ResourceSnapshot snapshot;
+    // Changes not yet reported to listeners; guarded by RES_FILE_LOCK
+    private final BitSet changedIds = new BitSet();
+    private boolean changedAll = false;
+    private boolean eventQueued = false;
 
-    private ResourcesManager() {}
+    private ResourcesManager() {
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "IR-ResourcesFlusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafe, COMPACT_INTERVAL_SECONDS, COMPACT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        this.events = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "IR-ResourceEvents");
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
     public static ResourcesManager getInstance() {
         return INSTANCE;
     }
 
-    private void directSave(Map<String, Integer> resources) {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    // Caller must hold RES_FILE_LOCK
+    private void ensureLoaded() {
+        if (loaded) return;
+        clearLedger();
+        for (Map.Entry<String, Integer> e : readResourcesFile().entrySet()) {
+            putTracked(dictionary.intern(e.getKey()), e.getValue());
+        }
+        Map<String, Integer> replayed = new LinkedHashMap<>();
+        int records = journal.replayInto(replayed);
+        for (Map.Entry<String, Integer> e : replayed.entrySet()) {
+            putTracked(dictionary.intern(e.getKey()), e.getValue());
+        }
+        loaded = true;
+        dirty = records > 0;
+        changedAll = true;
+        publish();
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private void publish() {
+        snapshot = new ResourceSnapshot(++version, Arrays.copyOf(counts, counts.length), Arrays.copyOf(trackedIds, trackedSize));
+        if (listeners.isEmpty()) {
+            changedIds.clear();
+            changedAll = false;
+            changesSince = snapshot.version();
+        } else if (!eventQueued) {
+            // Anything that lands before the dispatcher runs is folded into the same event
+            eventQueued = true;
+            events.execute(this::dispatchChanges);
+        }
+    }
+
+    private void dispatchChanges() {
+        ResourceChangeEvent event;
         synchronized (RES_FILE_LOCK) {
-            atomicWriteJson(resourcesFile, gson.toJson(resources));
+            eventQueued = false;
+            ResourceSnapshot current = snapshot;
+            if (current == null || (!changedAll && changedIds.isEmpty())) return;
+            event = new ResourceChangeEvent(current, changedAll, changedIds.stream().toArray(), changesSince);
+            changesSince = current.version();
+            changedIds.clear();
+            changedAll = false;
+        }
+        for (Consumer<ResourceChangeEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Throwable t) {
+                InventoryReader.LOGGER.error("Resource change listener failed", t);
+            }
         }
     }
 
+    /**
+     * Registers a listener for coalesced ledger changes. Events are delivered on a dedicated background thread,
+     * so listeners that touch UI state must hand off to the client thread themselves.
+     */
+    public void addListener(Consumer<ResourceChangeEvent> listener) {
+        if (listener != null) listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<ResourceChangeEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private void clearLedger() {
+        for (int i = 0; i < trackedSize; i++) {
+            int id = trackedIds[i];
+            tracked[id] = false;
+            counts[id] = 0;
+        }
+        trackedSize = 0;
+        canonicalizer.invalidate();
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private void putTracked(int id, int amount) {
+        if (id >= counts.length) {
+            int n = Math.max(counts.length * 2, id + 1);
+            counts = Arrays.copyOf(counts, n);
+            tracked = Arrays.copyOf(tracked, n);
+        }
+        if (!tracked[id]) {
+            tracked[id] = true;
+            if (trackedSize == trackedIds.length) trackedIds = Arrays.copyOf(trackedIds, trackedSize * 2);
+            trackedIds[trackedSize++] = id;
+            canonicalizer.invalidate();
+        }
+        counts[id] = amount;
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private boolean isTracked(int id) {
+        return id >= 0 && id < tracked.length && tracked[id];
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private Map<String, Integer> ledgerAsMap() {
+        Map<String, Integer> out = new LinkedHashMap<>(trackedSize * 2);
+        for (int i = 0; i < trackedSize; i++) {
+            int id = trackedIds[i];
+            out.put(dictionary.nameOf(id), counts[id]);
+        }
+        return out;
+    }
+
+    private Map<String, Integer> readResourcesFile() {
+        Map<String, Integer> resources = new LinkedHashMap<>();
+        if (!resourcesFile.exists() || resourcesFile.length() == 0) {
+            return resources;
+        }
+        Gson gson = new Gson();
+        Type type = new TypeToken<Map<String, Integer>>(){}.getType();
+        try (FileReader reader = new FileReader(resourcesFile)) {
+            Map<String, Integer> fromFile = gson.fromJson(reader, type);
+            if (fromFile != null) {
+                resources.putAll(fromFile);
+            }
+        } catch (IOException | com.google.gson.JsonSyntaxException e) {
+            // ignore: treat as empty
+        }
+        resources.entrySet().removeIf(e -> {
+            String k = e.getKey();
+            return NameCanonicalizer.isBlankOrNumeric(k) || e.getValue() == null;
+        });
+        return resources;
+    }
+
     public void saveData(Map<String, Integer> data) {
         if (!FilePathManager.areResourceNamesSeeded()) {
             synchronized (pendingChanges) {
@@ -42,22 +211,8 @@ public class ResourcesManager {
             return;
         }
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
         synchronized (RES_FILE_LOCK) {
-            Map<String, Integer> resources = new java.util.LinkedHashMap<>();
-            Type type = new TypeToken<Map<String, Integer>>(){}.getType();
-            try (FileReader reader = new FileReader(resourcesFile)) {
-                Map<String, Integer> loaded = gson.fromJson(reader, type);
-                if (loaded != null) {
-                    resources.putAll(loaded);
-                }
-            } catch (IOException e) {
-                // ignore: treat as empty
-            }
-            resources.entrySet().removeIf(e -> {
-                String k = e.getKey();
-                return k == null || k.trim().isEmpty() || k.trim().matches("\\d+");
-            });
+            ensureLoaded();
             Map<String, Integer> toApply = new LinkedHashMap<>();
             synchronized (pendingChanges) {
                 if (!pendingChanges.isEmpty()) {
@@ -66,11 +221,80 @@ public class ResourcesManager {
                 }
             }
             mergeInto(toApply, data);
-            applyDeltas(resources, toApply);
-            atomicWriteJson(resourcesFile, gson.toJson(resources));
+            if (toApply.isEmpty()) return;
+            Map<String, Integer> touched = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> e : toApply.entrySet()) {
+                applyDelta(canonicalizer.resolve(e.getKey()), e.getValue(), touched);
+            }
+            commitTouched(touched, null);
+        }
+    }
+
+    /**
+     * Array-based variant of {@link #saveData(Map)} for scanners that already work on dictionary IDs.
+     * {@code source} names the container capture the deltas came from (see {@link ContainerSnapshotStore}).
+     * @return the journal sequence number the change was recorded under, to stamp the capture's snapshot with
+     */
+    public long applyDeltas(ItemCounts deltas, String source) {
+        if (deltas == null || deltas.size() == 0) return journalSequence();
+        if (!FilePathManager.areResourceNamesSeeded()) {
+            saveData(deltas.toNameMap());
+            return journalSequence();
+        }
+        synchronized (RES_FILE_LOCK) {
+            ensureLoaded();
+            flushPendingIfReady();
+            Map<String, Integer> touched = new LinkedHashMap<>();
+            for (int i = 0; i < deltas.size(); i++) {
+                int amount = deltas.countAt(i);
+                if (amount == 0) continue;
+                applyDelta(canonicalizer.resolve(deltas.idAt(i)), amount, touched);
+            }
+            return commitTouched(touched, source);
         }
     }
 
+    /** Number of the last journal record, loading the ledger first if needed. */
+    public long journalSequence() {
+        synchronized (RES_FILE_LOCK) {
+            ensureLoaded();
+            return journal.sequence();
+        }
+    }
+
+    /**
+     * Container captures whose last journal record may not be matched by a stored snapshot yet, with that
+     * record's sequence number.
+     */
+    public Map<String, Long> unsettledSources() {
+        synchronized (RES_FILE_LOCK) {
+            ensureLoaded();
+            return journal.unsettledSources();
+        }
+    }
+
+    /** Marks {@code source} as stored on disk as of {@code sequence}; see {@link ResourceJournal#settle}. */
+    public void settleSource(String source, long sequence) {
+        journal.settle(source, sequence);
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private void applyDelta(int id, int amount, Map<String, Integer> touched) {
+        if (id < 0) return;
+        counts[id] += amount;
+        changedIds.set(id);
+        touched.put(dictionary.nameOf(id), counts[id]);
+    }
+
+    // Caller must hold RES_FILE_LOCK
+    private long commitTouched(Map<String, Integer> touched, String source) {
+        if (touched.isEmpty()) return journal.sequence();
+        long sequence = journal.append(touched, source);
+        dirty = true;
+        publish();
+        return sequence;
+    }
+
     public boolean flushPendingIfReady() {
         if (!FilePathManager.areResourceNamesSeeded()) return false;
         Map<String, Integer> snapshot;
@@ -83,53 +307,121 @@ public class ResourcesManager {
         return true;
     }
 
+    /**
+     * Adds any missing names to the ledger with a zero count and persists right away if anything changed.
+     */
+    public void ensureNames(Set<String> names) {
+        boolean changed = false;
+        synchronized (RES_FILE_LOCK) {
+            ensureLoaded();
+            for (String n : names) {
+                // Skip blank and numeric-only names (e.g., "64" coming from malformed data)
+                if (NameCanonicalizer.isBlankOrNumeric(n)) continue;
+                int id = dictionary.intern(n.trim());
+                if (!isTracked(id)) { putTracked(id, 0); changedIds.set(id); changed = true; }
+            }
+            if (changed) {
+                dirty = true;
+                publish();
+            }
+        }
+        if (changed) flush();
+    }
+
+    /**
+     * Drops the in-memory ledger and its journal without writing them, so the next access reloads from disk.
+     * Used by reset.
+     */
+    public void discard() {
+        synchronized (flushLock) {
+            synchronized (RES_FILE_LOCK) {
+                journal.delete();
+                clearLedger();
+                loaded = false;
+                dirty = false;
+                snapshot = null;
+            }
+        }
+        synchronized (pendingChanges) {
+            pendingChanges.clear();
+        }
+    }
+
+    /**
+     * Compacts the journal: writes the ledger snapshot if anything changed since the last compaction and
+     * drops the journal records it now contains. Safe to call from any thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Integer> toWrite;
+            synchronized (RES_FILE_LOCK) {
+                if (!loaded || !dirty) return;
+                toWrite = ledgerAsMap();
+                journal.beginCompaction();
+                dirty = false;
+            }
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            if (atomicWriteJson(resourcesFile, gson.toJson(toWrite))) {
+                journal.finishCompaction();
+            } else {
+                synchronized (RES_FILE_LOCK) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    private void flushSafe() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            InventoryReader.LOGGER.error("Failed to flush resources ledger", t);
+        }
+    }
+
     private void mergeInto(Map<String, Integer> target, Map<String, Integer> delta) {
         if (delta == null || delta.isEmpty()) return;
         for (Map.Entry<String, Integer> e : delta.entrySet()) {
             String k = e.getKey();
-            if (k == null || k.trim().isEmpty() || k.trim().matches("\\d+")) continue;
+            if (NameCanonicalizer.isBlankOrNumeric(k)) continue;
             int v = e.getValue() == null ? 0 : e.getValue();
             target.put(k, target.getOrDefault(k, 0) + v);
         }
     }
 
-    private void applyDeltas(Map<String, Integer> resources, Map<String, Integer> delta) {
-        for (Map.Entry<String, Integer> e : delta.entrySet()) {
-            String item = e.getKey().replace("✪", "").replace("➊", "").replace("➋", "").replace("➌", "").replace("➍", "").replace("➎", "");
-            int value = e.getValue();
-            if (resources.containsKey(item)) {
-                resources.put(item, resources.get(item) + value);
-            } else {
-                String[] itemSplit = item.split(" ");
-                if (itemSplit.length > 1) {
-                    String itemRefined = String.join(" ", Arrays.copyOfRange(itemSplit, 1, itemSplit.length));
-                    if (!itemRefined.trim().matches("\\d+") && resources.containsKey(itemRefined)) {
-                        resources.put(itemRefined, resources.get(itemRefined) + value);
-                    }
-                }
-            }
+    /**
+     * Latest published state of the ledger. Never null; cheap enough to call from the render thread.
+     */
+    public ResourceSnapshot snapshot() {
+        ResourceSnapshot s = snapshot;
+        if (s != null) return s;
+        synchronized (RES_FILE_LOCK) {
+            ensureLoaded();
+            s = snapshot;
+            return s != null ? s : ResourceSnapshot.EMPTY;
         }
     }
 
+    /**
+     * Mutable copy of the current counts; read-only callers should use {@link #snapshot()} instead.
+     */
     public Map<String, Integer> getAllResources() {
-        Gson gson = new Gson();
-        if (!resourcesFile.exists() || resourcesFile.length() == 0) {
-            return new LinkedHashMap<>();
-        }
-        try (FileReader reader = new FileReader(resourcesFile)) {
-            Type type = new TypeToken<Map<String, Integer>>(){}.getType();
-            Map<String, Integer> resources = gson.fromJson(reader, type);
-            if (resources != null) {
-                return new LinkedHashMap<>(resources);
-            }
-        } catch (IOException | com.google.gson.JsonSyntaxException e) {
-            // On parse error, return empty snapshot; writes are atomic so this should be rare
-        }
-        return new LinkedHashMap<>();
+        return new LinkedHashMap<>(snapshot().asMap());
+    }
+
+    /**
+     * Copies the current counts into an array indexed by {@link ItemDictionary} ID (untracked IDs read as zero).
+     */
+    public int[] copyCounts() {
+        return snapshot().copyCounts();
+    }
+
+    public int getCount(int id) {
+        return snapshot().get(id);
     }
 
     // Write JSON via a temp file then atomically move into place to avoid partial reads
-    private void atomicWriteJson(File target, String json) {
+    private boolean atomicWriteJson(File target, String json) {
         try {
             File dir = target.getParentFile();
             if (dir != null && !dir.exists()) dir.mkdirs();
@@ -152,49 +444,44 @@ public class ResourcesManager {
                     java.nio.file.StandardCopyOption.REPLACE_EXISTING
                 );
             }
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
     public Integer getResourceByName(String name) {
-        Map<String, Integer> resources = getAllResources();
-        return resources.getOrDefault(name, 0);
+        return getCount(dictionary.idOf(name));
     }
 
     public void setResourceAmount(String name, int amount) {
-        Map<String, Integer> resources = getAllResources();
-        resources.put(name, amount);
-        directSave(resources);
+        synchronized (RES_FILE_LOCK) {
+            ensureLoaded();
+            int id = dictionary.intern(name);
+            putTracked(id, amount);
+            changedIds.set(id);
+            journal.append(Collections.singletonMap(name, amount));
+            dirty = true;
+            publish();
+        }
     }
 
     public void craft(String name, int amt) {
-        RecipeManager rm = RecipeManager.getInstance();
-        Map<String, Map<String, Integer>> forging = rm.getAllRecipes();
-        Map<String, Integer> myResources = getAllResources();
-        myResources.put(name, myResources.getOrDefault(name, 0) + amt);
-        for (Map.Entry<String, Integer> entry : forging.get(name).entrySet()) {
-            craftItem(entry.getKey(), entry.getValue() * amt, forging, myResources);
+        int id = dictionary.idOf(name);
+        if (id == ItemDictionary.UNKNOWN) {
+            // No recipe and no stock, so crafting just adds the item; saveData puts it in the ledger
+            saveData(Collections.singletonMap(name, amt));
+            return;
         }
-        saveData(myResources);
-    }
-    
-    private void craftItem(String currentItem, int multiplier, Map<String, Map<String, Integer>> forging, Map<String, Integer> myResources) {
-        if (forging.containsKey(currentItem)) {
-            int available = myResources.getOrDefault(currentItem, 0);
-            if (available < multiplier) {
-                int remaining = multiplier - available;
-                myResources.put(currentItem, 0);
-                for (Map.Entry<String, Integer> entry : forging.get(currentItem).entrySet()) {
-                    craftItem(entry.getKey(), entry.getValue() * remaining, forging, myResources);
-                }
-            } else {
-                myResources.put(currentItem, available - multiplier);
-            }
-        } else {
-            int current = myResources.getOrDefault(currentItem, 0);
-            myResources.put(currentItem, Math.max(0, current - multiplier));
+        int[] before = copyCounts();
+        int[] after = new RecipeSolver(RecipeRegistry.graph()).craft(id, amt, before.clone());
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < after.length; i++) {
+            int old = i < before.length ? before[i] : 0;
+            if (after[i] != old) deltas.put(dictionary.nameOf(i), after[i] - old);
         }
+        saveData(deltas);
     }
     
     public void updateResourcesAfterCraft(String name, int amt) {
@@ -202,38 +489,42 @@ public class ResourcesManager {
     }
 
     public Map<String, Integer> getSimpleRemainingIngredients(String name, int amt) {
-        Map<String, Integer> resources = getAllResources();
+        int id = dictionary.idOf(name);
         Map<String, Integer> needed = new LinkedHashMap<>();
-        calculateNeeded(name, amt, resources, needed);
+        if (id == ItemDictionary.UNKNOWN) {
+            // Neither a recipe nor ever owned: all of it is missing
+            if (amt > 0) needed.put(name, amt);
+            return needed;
+        }
+        RecipeGraph graph = RecipeRegistry.graph();
+        ResourceSnapshot resources = snapshot();
+        BaseMaterialTable table = RecipeRegistry.baseMaterials();
+        if (amt > 0 && ownsNoBaseMaterial(table, graph, resources, id)) {
+            // Nothing owned to subtract, so the walk would just sum the precomputed per-unit totals
+            for (int i = 0; i < table.leafCount(id); i++) {
+                needed.put(dictionary.nameOf(table.leafIdAt(id, i)), saturatedProduct(table.amountAt(id, i), amt));
+            }
+            return needed;
+        }
+        new RecipeSolver(graph).needed(id, amt, resources, needed);
         return needed;
     }
 
-    private void calculateNeeded(String name, int amt, Map<String, Integer> resources, Map<String, Integer> needed) {
-        RecipeManager rm = RecipeManager.getInstance();
-        if (!rm.getAllRecipes().containsKey(name)) {
-            int have = resources.getOrDefault(name, 0);
-            if (have < amt) {
-                needed.put(name, amt - have);
-            }
-            return;
-        }
-        Map<String, Integer> recipe = rm.getAllRecipes().get(name);
-        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
-            String ingredient = entry.getKey();
-            int required = entry.getValue() * amt;
-            int have = resources.getOrDefault(ingredient, 0);
-            if (rm.getAllRecipes().containsKey(ingredient)) {
-                calculateNeeded(ingredient, required, resources, needed);
-            } else {
-                if (have < required) {
-                    needed.put(ingredient, needed.getOrDefault(ingredient, 0) + (required - have));
-                }
-            }
+    // Per-unit totals can run far past int range on deep recipes; clamp instead of wrapping negative
+    private static int saturatedProduct(long perUnit, int amt) {
+        return perUnit > Integer.MAX_VALUE / amt ? Integer.MAX_VALUE : (int) (perUnit * amt);
+    }
+
+    private boolean ownsNoBaseMaterial(BaseMaterialTable table, RecipeGraph graph, ResourceSnapshot resources, int id) {
+        if (table == null || table.graph() != graph || !table.has(id)) return false;
+        for (int i = 0; i < table.leafCount(id); i++) {
+            if (resources.get(table.leafIdAt(id, i)) != 0) return false;
         }
+        return true;
     }
 
     public List<ResourceEntry> getAllResourceEntries() {
-        Map<String, Integer> map = getAllResources();
+        Map<String, Integer> map = snapshot().asMap();
         List<ResourceEntry> list = new ArrayList<>();
         for (Map.Entry<String, Integer> entry : map.entrySet()) {
             if (entry.getValue() > 0) {
@@ -244,7 +535,7 @@ public class ResourcesManager {
     }
     
     public List<ResourceEntry> getAllResourceEntriesIncludingZero() {
-        Map<String, Integer> map = getAllResources();
+        Map<String, Integer> map = snapshot().asMap();
         List<ResourceEntry> list = new ArrayList<>();
         for (Map.Entry<String, Integer> entry : map.entrySet()) {
             list.add(new ResourceEntry(entry.getKey(), entry.getValue()));
@@ -255,185 +546,39 @@ public class ResourcesManager {
     }
 
     public RemainingResponse getRemainingIngredients(String name, int amt) {
-        RecipeManager rm = RecipeManager.getInstance();
-        Map<String, Map<String, Integer>> forging = rm.getAllRecipes();
-        Map<String, Integer> highestPossibleResources = getAllResources();
-        Map<String, Integer> currentAvailableResources = new LinkedHashMap<>(highestPossibleResources);
-        Map<String, Integer> messages = new LinkedHashMap<>();
-        
-        // Initialize resources with default values to avoid null pointer exceptions
-        initializeResourceMaps(name, forging, highestPossibleResources, currentAvailableResources);
-        
-        int old = highestPossibleResources.getOrDefault(name, 0);
-        buildRecipe(name, amt, forging, highestPossibleResources, currentAvailableResources, messages);
-        int updated = highestPossibleResources.getOrDefault(name, 0);
-        
-        RecipeNode fullRecipe;
-        if (updated - old >= amt) {
-            fullRecipe = expandRequiredRecipe(name, (updated-old)-amt, forging, highestPossibleResources);
-        } else {
-            fullRecipe = expandRequiredRecipe(name, amt-(updated-old), forging, highestPossibleResources);
-        }
-        return new RemainingResponse(name, fullRecipe, messages);
-    }
-
-    private void buildRecipe(String currentItem, int multiplier, Map<String, Map<String, Integer>> forging, 
-                            Map<String, Integer> highestPossibleResources, Map<String, Integer> currentAvailableResources, 
-                            Map<String, Integer> messages) {
-        Map<String, Integer> recipe = forging.get(currentItem);
-        Map<String, Integer> madeResources = new LinkedHashMap<>();
-        if (recipe == null) return;
-        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
-            String item = entry.getKey();
-            int quantity = entry.getValue();
-            if (forging.containsKey(item)) {
-                int need = Math.max(0, (quantity * multiplier) - currentAvailableResources.getOrDefault(item, 0));
-                if (need > 0) {
-                    buildRecipe(item, need, forging, highestPossibleResources, currentAvailableResources, messages);
-                    madeResources.put(item, currentAvailableResources.getOrDefault(item, 0));
-                    currentAvailableResources.put(item, 0);
-                }else{
-                    madeResources.put(item, quantity * multiplier);
-                    currentAvailableResources.put(item, currentAvailableResources.getOrDefault(item, 0) - quantity * multiplier);
-                }
-            }
-        }
-        for (Map.Entry<String, Integer> entry : madeResources.entrySet()) {
-            String item = entry.getKey();
-            int quantity = entry.getValue();
-            if (quantity > 0) {
-                currentAvailableResources.put(item, 
-                        currentAvailableResources.getOrDefault(item, 0) + quantity);
-            }
-        }
-        check(currentItem, multiplier, forging, highestPossibleResources, currentAvailableResources, messages);
-    }
-
-    private void check(String currentItem, int multiplier, Map<String, Map<String, Integer>> forging, 
-                       Map<String, Integer> highestPossibleResources, Map<String, Integer> currentAvailableResources, 
-                       Map<String, Integer> messages) {
-        Map<String, Integer> recipe = forging.get(currentItem);
-        if (recipe == null) return;
-        
-        List<Integer> count = new ArrayList<>();
-        Map<String, Integer> possibleItemsDict = new LinkedHashMap<>();
-        
-        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
-            String baseItem = entry.getKey();
-            int quantityOfBaseItem = entry.getValue();
-            int possibleItems = currentAvailableResources.getOrDefault(baseItem, 0) / quantityOfBaseItem;
-            possibleItemsDict.put(baseItem, possibleItems);
-            count.add(multiplier - possibleItems);
-        }
-        
-        int maxcount = count.stream().mapToInt(i -> i).max().orElse(0);
-        maxcount = Math.max(maxcount, 0); // If maxcount <= 0, we have enough resources
-        
-        int amountAbleToCraft = multiplier - maxcount;
-        
-        highestPossibleResources.put(currentItem, 
-                                    highestPossibleResources.getOrDefault(currentItem, 0) + amountAbleToCraft);
-        currentAvailableResources.put(currentItem, 
-                                     currentAvailableResources.getOrDefault(currentItem, 0) + amountAbleToCraft);
-        
-        if (amountAbleToCraft > 0) {
-            messages.put(currentItem, 
-                          messages.getOrDefault(currentItem, 0) + amountAbleToCraft);
-        }
-        
-        allocate(currentItem, multiplier, maxcount, possibleItemsDict, forging, 
-                highestPossibleResources, currentAvailableResources);
-    }
-
-    private void allocate(String currentItem, int multiplier, int maxcount, Map<String, Integer> possibleItemsDict,
-                          Map<String, Map<String, Integer>> forging, Map<String, Integer> highestPossibleResources, 
-                          Map<String, Integer> currentAvailableResources) {
-        Map<String, Integer> recipe = forging.get(currentItem);
-        if (recipe == null) return;
-        
-        int amountAbleToCraftOfHigherMaterial = multiplier - maxcount;
-
-        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
-            String baseItem = entry.getKey();
-            int quantityOfBaseItem = entry.getValue();
-            highestPossibleResources.put(baseItem, 
-                   highestPossibleResources.getOrDefault(baseItem, 0) - 
-                   quantityOfBaseItem * amountAbleToCraftOfHigherMaterial);
-        }
-
-        if (multiplier != 0) {
-            for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
-                String baseItem = entry.getKey();
-                int quantityOfBaseItem = entry.getValue();
-                int possibleItems = possibleItemsDict.getOrDefault(baseItem, 0);
-                int amountLeftToAllocate = Math.min(multiplier, possibleItems);
-                currentAvailableResources.put(baseItem, 
-                       currentAvailableResources.getOrDefault(baseItem, 0) - 
-                       quantityOfBaseItem * amountLeftToAllocate);
-            }
-        }
+        int id = dictionary.idOf(name);
+        if (id == ItemDictionary.UNKNOWN) return RecipeSolver.unknown(name, amt);
+        RemainingResponse response = new RecipeSolver(RecipeRegistry.graph()).remaining(id, amt, copyCounts());
+        response.name = name;
+        return response;
     }
 
-    private RecipeNode expandRequiredRecipe(String currentName, int multiplier, Map<String, Map<String, Integer>> forging, Map<String, Integer> highestPossibleResources) {
-        if (!forging.containsKey(currentName)) {
-            int have = highestPossibleResources.getOrDefault(currentName, 0);
-            if (have < multiplier) {
-                int temp = have;
-                highestPossibleResources.put(currentName, 0);
-                return new RecipeNode(currentName, multiplier - temp, Collections.emptyList());
+    /**
+     * Plans all {@code targets} (name to amount, in priority order) together against the current resources.
+     * Names the dictionary has never seen are not added to it; they are planned as wholly missing.
+     */
+    public BatchPlan planBatch(Map<String, Integer> targets) {
+        int[] ids = new int[targets.size()];
+        int[] amounts = new int[targets.size()];
+        List<Integer> unknown = new ArrayList<>();
+        int i = 0, known = 0;
+        for (Map.Entry<String, Integer> e : targets.entrySet()) {
+            int id = dictionary.idOf(e.getKey());
+            if (id == ItemDictionary.UNKNOWN) {
+                unknown.add(i);
             } else {
-                highestPossibleResources.put(currentName, have - multiplier);
-                return new RecipeNode(currentName, 0, Collections.emptyList());
-            }
-        } else {
-            List<RecipeNode> ingredients = new ArrayList<>();
-            for (Map.Entry<String, Integer> entry : forging.get(currentName).entrySet()) {
-                String item = entry.getKey();
-                int qty = entry.getValue();
-                if (forging.containsKey(item)) {
-                    if (highestPossibleResources.getOrDefault(item, 0) < qty * multiplier) {
-                        RecipeNode expanded = expandRequiredRecipe(item, 
-                                             (qty * multiplier) - highestPossibleResources.getOrDefault(item, 0), 
-                                             forging, highestPossibleResources);
-                        ingredients.add(expanded);
-                        highestPossibleResources.put(item, 0);
-                    } else {
-                        highestPossibleResources.put(item, highestPossibleResources.getOrDefault(item, 0) - qty * multiplier);
-                        RecipeNode expanded = expandRequiredRecipe(item, 0, forging, highestPossibleResources);
-                        ingredients.add(expanded);
-                    }
-                } else {
-                    if (highestPossibleResources.getOrDefault(item, 0) < qty * multiplier) {
-                        RecipeNode expanded = expandRequiredRecipe(item, qty * multiplier, forging, highestPossibleResources);
-                        ingredients.add(expanded);
-                    } else {
-                        highestPossibleResources.put(item, highestPossibleResources.getOrDefault(item, 0) - qty * multiplier);
-                        RecipeNode expanded = expandRequiredRecipe(item, 0, forging, highestPossibleResources);
-                        ingredients.add(expanded);
-                    }
-                }
+                ids[known] = id;
+                amounts[known++] = e.getValue();
             }
-            return new RecipeNode(currentName, multiplier, ingredients);
+            i++;
         }
-    }
-
-    private void initializeResourceMaps(String targetItem, Map<String, Map<String, Integer>> forging, 
-                                       Map<String, Integer> highestPossibleResources,
-                                       Map<String, Integer> currentAvailableResources) {
-        highestPossibleResources.putIfAbsent(targetItem, 0);
-        currentAvailableResources.putIfAbsent(targetItem, 0);
-        
-        if (forging.containsKey(targetItem)) {
-            Map<String, Integer> recipe = forging.get(targetItem);
-            for (String ingredient : recipe.keySet()) {
-                highestPossibleResources.putIfAbsent(ingredient, 0);
-                currentAvailableResources.putIfAbsent(ingredient, 0);
-                
-                if (forging.containsKey(ingredient)) {
-                    initializeResourceMaps(ingredient, forging, highestPossibleResources, currentAvailableResources);
-                }
-            }
+        BatchPlan plan = new RecipeSolver(RecipeRegistry.graph())
+                .planBatch(Arrays.copyOf(ids, known), Arrays.copyOf(amounts, known), copyCounts());
+        if (!unknown.isEmpty()) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(targets.entrySet());
+            for (int index : unknown) plan.addMissingTarget(index, entries.get(index).getKey(), entries.get(index).getValue());
         }
+        return plan;
     }
 
     public static class ResourceEntry {
@@ -447,11 +592,11 @@ public class ResourcesManager {
 
     public static class RemainingResponse {
         public String name;
-        public RecipeNode full_recipe;
+        public RecipeManager.RecipeNode full_recipe;
         public Map<String, Integer> messages;
         public List<String> messagesList;
         
-        public RemainingResponse(String name, RecipeNode fullRecipe, Map<String, Integer> messages) {
+        public RemainingResponse(String name, RecipeManager.RecipeNode fullRecipe, Map<String, Integer> messages) {
             this.name = name;
             this.full_recipe = fullRecipe;
             this.messages = messages;
@@ -463,7 +608,7 @@ public class ResourcesManager {
             }
         }
         
-        public RemainingResponse(String name, RecipeNode fullRecipe, List<String> messagesList) {
+        public RemainingResponse(String name, RecipeManager.RecipeNode fullRecipe, List<String> messagesList) {
             this.name = name;
             this.full_recipe = fullRecipe;
             this.messagesList = messagesList;
@@ -495,16 +640,4 @@ public class ResourcesManager {
             return parts[4];
         }
     }
-
-    public static class RecipeNode {
-        public String name;
-        public int amount;
-        public java.util.List<RecipeNode> ingredients;
-        
-        public RecipeNode(String name, int amount, java.util.List<RecipeNode> ingredients) {
-            this.name = name;
-            this.amount = amount;
-            this.ingredients = ingredients;
-        }
-    }
 }
@@ -17,7 +17,6 @@ public class SackReader {
     private static final File SACK_NAMES_FILE = new File(FilePathManager.DATA_DIR, "sackNames.txt");
     private static SackReader instance;
     private static boolean needsReminder = false;
-    private static final ResourcesManager RESOURCES_MANAGER = ResourcesManager.getInstance();
 
     public static SackReader getInstance() {
         if (instance == null) {
@@ -107,7 +106,7 @@ public class SackReader {
                 }
             }
         }
-        RESOURCES_MANAGER.saveData(sackData);
+        InventoryPipeline.getInstance().submitDeltas(sackData);
     }
 
     private void saveGemstoneSackData(ScreenHandler handler, Map<String, Integer> sackData){
@@ -143,6 +142,6 @@ public class SackReader {
                 }
             }
         }
-        RESOURCES_MANAGER.saveData(sackData);
+        InventoryPipeline.getInstance().submitDeltas(sackData);
     }
 }
\ No newline at end of file
@@ -8,8 +8,11 @@ import net.minecraft.text.Text;
 import net.minecraft.text.Style;
 import net.minecraft.util.Formatting;
 import net.minecraft.client.MinecraftClient;
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class SandboxViewer extends Screen {
@@ -33,7 +36,8 @@ public class SandboxViewer extends Screen {
         MODIFY_RESOURCES
     }
 
-    private Mode mode = Mode.RESOURCE_VIEWER;
+    // Also read by the resource listener on the event thread
+    private volatile Mode mode = Mode.RESOURCE_VIEWER;
 
     private final RecipeManager recipeManager = RecipeManager.getInstance();
     private final ResourcesManager resourcesManager = ResourcesManager.getInstance();
@@ -77,6 +81,9 @@ public class SandboxViewer extends Screen {
 
     private Map<String, Integer> modifiedResources = new LinkedHashMap<>();
     private List<ResourcesManager.ResourceEntry> selectedResources = new ArrayList<>();
+    private final Consumer<ResourceChangeEvent> resourceListener = this::onResourcesChanged;
+    private final Consumer<RecipeGraph> recipeListener = this::onRecipesPublished;
+    private final CraftableIndex craftables = new CraftableIndex();
 
     public SandboxViewer() {
         super(Text.literal("Hypixel Forge"));
@@ -84,6 +91,10 @@ public class SandboxViewer extends Screen {
 
     @Override
     protected void init() {
+        resourcesManager.removeListener(resourceListener);
+        resourcesManager.addListener(resourceListener);
+        RecipeRegistry.removeListener(recipeListener);
+        RecipeRegistry.addListener(recipeListener);
         this.clearChildren();
         int centerX = this.width / 2;
         int buttonHeight = 20;
@@ -96,6 +107,41 @@ public class SandboxViewer extends Screen {
         }
     }
 
+    @Override
+    public void removed() {
+        resourcesManager.removeListener(resourceListener);
+        RecipeRegistry.removeListener(recipeListener);
+        super.removed();
+    }
+
+    private void onResourcesChanged(ResourceChangeEvent event) {
+        // Only the forge panel shows craftables, and entering it refreshes them in full, so other tabs skip the
+        // search; it runs on the index's own thread so other listeners on this one are not held up
+        if (mode == Mode.FORGE_MODE) craftables.updateAsync(event.snapshot(), event);
+        MinecraftClient.getInstance().execute(() -> {
+            if (mode == Mode.RESOURCE_VIEWER) {
+                if (resourceSearchTerm != null && !resourceSearchTerm.isEmpty()) {
+                    resources = resourcesManager.getAllResourceEntriesIncludingZero();
+                } else {
+                    resources = resourcesManager.getAllResourceEntries();
+                }
+                filterResources();
+            } else if (mode == Mode.FORGE_MODE && selectedRecipe != null && remainingResult != null
+                    && event.touchesAny(recipeManager.dependencyClosure(selectedRecipe))) {
+                checkRecipeRequirements();
+            }
+        });
+    }
+
+    private void onRecipesPublished(RecipeGraph graph) {
+        // Publish listeners run under the registry's publish lock, so the craftable search is handed off
+        craftables.refreshAsync();
+        MinecraftClient.getInstance().execute(() -> {
+            if (mode == Mode.RECIPE_VIEWER || mode == Mode.FORGE_MODE) loadRecipes();
+            if (mode == Mode.FORGE_MODE && remainingResult != null) checkRecipeRequirements();
+        });
+    }
+
     @Override
     public void renderBackground(DrawContext context, int mouseX, int mouseY, float delta) {}
 
@@ -123,6 +169,8 @@ public class SandboxViewer extends Screen {
     private void initForgeMode(int centerX, int buttonHeight) {
         loadResources();
         loadRecipes();
+        // The panel renders the last published entries until the search catches up
+        craftables.refreshAsync();
         
         searchBox = new TextFieldWidget(this.textRenderer, 30, 45, 190, buttonHeight, Text.literal(""));
         searchBox.setPlaceholder(Text.literal("Search recipes..."));
@@ -667,13 +715,58 @@ public class SandboxViewer extends Screen {
         renderRecipeList(context, leftPanelX, contentY, leftPanelWidth, contentHeight);
 
         if (selectedRecipe == null || remainingResult == null) {
-            drawCenteredText(context, "Select a recipe to forge", rightPanelX + (contentWidth - leftPanelWidth - 40) / 2, contentY + contentHeight / 2, TEXT_SECONDARY);
+            renderCraftableNow(context, rightPanelX, contentY, contentWidth - leftPanelWidth - 40, contentHeight);
             return;
         }
         
         renderForgeDetails(context, rightPanelX, contentY, contentWidth - leftPanelWidth - 40, contentHeight);
     }
 
+    private void renderCraftableNow(DrawContext context, int x, int y, int width, int height) {
+        int panelY = y + 10;
+        context.fill(x, panelY, x + width, panelY + 40, TITLE_BG);
+        context.drawBorder(x, panelY, width, 40, BORDER_COLOR);
+        drawCenteredText(context, "You can craft now", x + width / 2, panelY + 15, GOLD);
+        panelY += 50;
+
+        List<CraftableIndex.Entry> entries = craftables.entries();
+        forgeCombinedAreaX = x;
+        forgeCombinedAreaY = panelY;
+        forgeCombinedAreaWidth = width;
+        forgeCombinedAreaHeight = y + height - panelY - 10;
+        context.fill(x, panelY, x + width, panelY + forgeCombinedAreaHeight, PANEL_BG);
+        context.drawBorder(x, panelY, width, forgeCombinedAreaHeight, BORDER_COLOR);
+        if (entries.isEmpty()) {
+            drawCenteredText(context, "Nothing can be crafted from your resources yet", x + width / 2, panelY + 20, TEXT_SECONDARY);
+            drawCenteredText(context, "Select a recipe to forge", x + width / 2, panelY + 40, TEXT_SECONDARY);
+            return;
+        }
+
+        int lineHeight = 24;
+        forgeCombinedMaxScroll = Math.max(0, entries.size() * lineHeight + 10 - forgeCombinedAreaHeight);
+        forgeCombinedScrollOffset = Math.max(0, Math.min(forgeCombinedScrollOffset, forgeCombinedMaxScroll));
+        context.enableScissor(x, panelY, x + width, panelY + forgeCombinedAreaHeight);
+        int first = forgeCombinedScrollOffset / lineHeight;
+        for (int i = first; i < entries.size(); i++) {
+            int itemY = panelY + 5 + i * lineHeight - forgeCombinedScrollOffset;
+            if (itemY > panelY + forgeCombinedAreaHeight) break;
+            CraftableIndex.Entry entry = entries.get(i);
+            context.fill(x + 5, itemY, x + width - 5, itemY + lineHeight - 2, (i % 2 == 0) ? ITEM_BG : ITEM_BG_ALT);
+            if (isMouseOver(x + 5, itemY, width - 10, lineHeight - 2)) {
+                context.fill(x + 5, itemY, x + width - 5, itemY + lineHeight - 2, 0x32FFFFFF);
+            }
+            int textY = itemY + (lineHeight - textRenderer.fontHeight) / 2;
+            context.drawText(textRenderer, entry.name(), x + 13, textY, WHITE, false);
+            String amountText = "up to " + entry.amount() + "×";
+            context.drawText(textRenderer, amountText, x + width - textRenderer.getWidth(amountText) - 13, textY, SUCCESS_GREEN, false);
+            if (itemY >= panelY && itemY + lineHeight <= panelY + forgeCombinedAreaHeight) {
+                final String name = entry.name();
+                clickableElements.add(new ClickableElement(x + 5, itemY, width - 10, lineHeight - 2, () -> selectRecipe(name)));
+            }
+        }
+        context.disableScissor();
+    }
+
     private void renderRecipeList(DrawContext context, int x, int y, int width, int height) {
         int recipeListY = y + 40;
         int lineHeight = 24;
@@ -964,10 +1057,6 @@ public class SandboxViewer extends Screen {
             name = node.name;
             amount = node.amount;
             ingredients = node.ingredients;
-        } else if (nodeObj instanceof ResourcesManager.RecipeNode node) {
-            name = node.name;
-            amount = node.amount;
-            ingredients = node.ingredients;
         } else {
             return y;
         }
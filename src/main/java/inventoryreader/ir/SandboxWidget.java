@@ -10,14 +10,13 @@ import net.minecraft.client.gui.DrawContext;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 public class SandboxWidget {
     private static final SandboxWidget INSTANCE = new SandboxWidget();
@@ -38,24 +37,50 @@ public class SandboxWidget {
     private final List<String> messages = new CopyOnWriteArrayList<>();
     private int craftAmount = 1;
     private final ResourcesManager resourcesManager;
-    private final ScheduledExecutorService scheduler;
+    // Dictionary IDs the selected recipe depends on; only changes to these trigger a recompute
+    private volatile BitSet dependencies = new BitSet();
+    // Re-plans the selected recipe reusing unchanged subtrees; the planner's nodes are rendered as-is
+    private final RecipePlanner planner = new RecipePlanner();
     private int currentNodeLineHeight = 16;
     private float currentTreeScale = 1.0f;
 
     private SandboxWidget() {
         this.resourcesManager = ResourcesManager.getInstance();
-        this.scheduler = Executors.newSingleThreadScheduledExecutor();
         HudLayerRegistrationCallback.EVENT.register(layeredDrawer -> {
             layeredDrawer.attachLayerBefore(IdentifiedLayer.CHAT, SANDBOX_WIDGET_LAYER, (context, tickCounter) -> {
                 if (enabled && selectedRecipe != null && recipeTree != null) {
+                    long start = PerfStats.begin();
                     render(context);
+                    PerfStats.end(start);
                 }
             });
         });
-        scheduler.scheduleAtFixedRate(this::updateRecipeData, 0, 1, TimeUnit.SECONDS);
+        resourcesManager.addListener(this::onResourcesChanged);
+        RecipeRegistry.addListener(this::onRecipesPublished);
         loadConfiguration();
     }
 
+    // The planner starts over on a new graph by itself; this only makes sure the tree is redrawn from it
+    private void onRecipesPublished(RecipeGraph graph) {
+        if (!enabled || selectedRecipe == null) return;
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client != null) {
+            client.execute(this::updateRecipeDataTimed);
+        } else {
+            updateRecipeData();
+        }
+    }
+
+    private void onResourcesChanged(ResourceChangeEvent event) {
+        if (!enabled || selectedRecipe == null || !event.touchesAny(dependencies)) return;
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client != null) {
+            client.execute(this::updateRecipeDataTimed);
+        } else {
+            updateRecipeData();
+        }
+    }
+
     public static SandboxWidget getInstance() {
         return INSTANCE;
     }
@@ -281,8 +306,7 @@ public class SandboxWidget {
                     return true;
                 } else {
                     MinecraftClient client = MinecraftClient.getInstance();
-                    Map<String, Integer> resources = resourcesManager.getAllResources();
-                    int available = resources.getOrDefault(node.name, 0);
+                    int available = resourcesManager.snapshot().get(node.name);
                     int remainingNeeded = node.amount;
                     boolean hasEnough = remainingNeeded == 0;
                     Text message = Text.literal("You need " + remainingNeeded + " more " + node.name + " (Have: " + available + ")")
@@ -316,6 +340,16 @@ public class SandboxWidget {
         return height;
     }
 
+    // Recomputes posted from listeners run outside the tick handlers, so they are timed here
+    private void updateRecipeDataTimed() {
+        long start = PerfStats.begin();
+        try {
+            updateRecipeData();
+        } finally {
+            PerfStats.end(start);
+        }
+    }
+
     private void updateRecipeData() {
         if (!enabled || selectedRecipe == null) {
             return;
@@ -326,7 +360,8 @@ public class SandboxWidget {
         }
         
         Map<String, Boolean> prevExpandedState = new HashMap<>(expandedNodes);
-        ResourcesManager.RemainingResponse response = resourcesManager.getRemainingIngredients(selectedRecipe, craftAmount);
+        dependencies = RecipeManager.getInstance().dependencyClosure(selectedRecipe);
+        ResourcesManager.RemainingResponse response = planner.plan(selectedRecipe, craftAmount);
         
         messages.clear();
         
@@ -345,7 +380,7 @@ public class SandboxWidget {
         
         
         
-        recipeTree = convertResourceNodeToRecipeNode(response.full_recipe);
+        recipeTree = response.full_recipe;
         boolean craftable = false;
         if (recipeTree != null && recipeTree.ingredients != null) {
             craftable = recipeTree.ingredients.stream().allMatch(child -> child.amount <= 0);
@@ -361,16 +396,6 @@ public class SandboxWidget {
         }
     }
 
-    private RecipeManager.RecipeNode convertResourceNodeToRecipeNode(ResourcesManager.RecipeNode resourceNode) {
-        if (resourceNode == null) return null;
-        List<RecipeManager.RecipeNode> ingredients = new ArrayList<>();
-        if (resourceNode.ingredients != null) {
-            for (ResourcesManager.RecipeNode child : resourceNode.ingredients) {
-                ingredients.add(convertResourceNodeToRecipeNode(child));
-            }
-        }
-        return new RecipeManager.RecipeNode(resourceNode.name, resourceNode.amount, ingredients);
-    }
     private void render(DrawContext context) {
         if (!enabled || selectedRecipe == null || recipeTree == null) {
             return;
@@ -585,14 +610,22 @@ public class SandboxWidget {
             expandedNodes = new HashMap<>();
         }
         
-    String nodeKey = makePathKey(selectedRecipe, node.name);
-    if (prevStates != null && prevStates.containsKey(nodeKey)) {
-            Boolean value = prevStates.get(nodeKey);
-            expandedNodes.put(nodeKey, value != null ? value : false);
-        }
-        if (node.ingredients != null) {
-            for (RecipeManager.RecipeNode child : node.ingredients) {
-                preserveNodeExpansionStates(child, prevStates);
+        // Keys depend only on the item, and the tree shares a node per item, so each distinct node is visited once
+        Set<RecipeManager.RecipeNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<RecipeManager.RecipeNode> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            RecipeManager.RecipeNode current = pending.pop();
+            if (!seen.add(current)) continue;
+            String nodeKey = makePathKey(selectedRecipe, current.name);
+            if (prevStates != null && prevStates.containsKey(nodeKey)) {
+                Boolean value = prevStates.get(nodeKey);
+                expandedNodes.put(nodeKey, value != null ? value : false);
+            }
+            if (current.ingredients != null) {
+                for (RecipeManager.RecipeNode child : current.ingredients) {
+                    if (child != null) pending.push(child);
+                }
             }
         }
     }
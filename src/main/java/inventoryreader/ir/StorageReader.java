@@ -1,26 +1,17 @@
 package inventoryreader.ir;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.screen.slot.Slot;
+import net.minecraft.screen.slot.SlotActionType;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.lang.reflect.Type;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 
 public class StorageReader {
-    private static final File DATA_FILE = new File(FilePathManager.DATA_DIR, "allcontainerData.json");
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private static final ResourcesManager RESOURCES_MANAGER = ResourcesManager.getInstance();
     private static final StorageReader INSTANCE = new StorageReader();
+    private final ContainerSnapshotStore store = ContainerSnapshotStore.containers();
+    private final InventoryPipeline pipeline = InventoryPipeline.getInstance();
 
     private StorageReader() {}
 
@@ -28,103 +19,128 @@ public class StorageReader {
         return INSTANCE;
     }
 
-    private final Map<String, Integer> changesData = new HashMap<>();
-
-    public Map<String, Map<String, Integer>> loadAllContainerDataFromFile() {
-        Type type = new TypeToken<Map<String, Map<String, Integer>>>() {}.getType();
-        if (!DATA_FILE.exists()) {
-            return new HashMap<>();
-        }
-        try (FileReader reader = new FileReader(DATA_FILE)) {
-            Map<String, Map<String, Integer>> data = gson.fromJson(reader, type);
-            return data != null ? data : new HashMap<>();
-        } catch (IOException e) {
-            InventoryReader.LOGGER.error("Failed to read data from file", e);
-            return new HashMap<>();
+    // Clicks since the last tick, applied once by processPendingClicks
+    private ScreenHandler pendingHandler;
+    private String pendingTitle;
+    private boolean pendingFullScan = false;
+    private final BitSet pendingSlots = new BitSet();
+    // Per-slot contents of the last scanned container, so a single-slot click or server update only re-reads that slot
+    private ScreenHandler trackedHandler;
+    private String trackedTitle;
+    private int[] slotIds = new int[0];
+    private int[] slotCounts = new int[0];
+
+    /**
+     * Captures the container's slots on the calling (client) thread; diffing and persistence happen on the
+     * {@link InventoryPipeline} worker.
+     */
+    public void saveContainerContents(ScreenHandler handler, String title) {
+        if (!title.contains("Backpack") && !title.contains("Ender Chest") && !title.contains("The Forge") && !title.contains("Accessory Bag")) {
+            return;
         }
+        scanContainer(handler, title);
+        pipeline.submit(store, title, slotIds, slotCounts);
     }
 
-    private void saveAllContainerDataToFile(Map<String, Map<String, Integer>> allcontainerData) {
-        try (FileWriter writer = new FileWriter(DATA_FILE)) {
-            gson.toJson(allcontainerData, writer);
-        } catch (IOException e) {
-            InventoryReader.LOGGER.error("Failed to save data to file", e);
+    /**
+     * Records a slot click on an open container; the container is re-read at most once per tick by
+     * {@link #processPendingClicks()}. Clicks that can only change the clicked slot are re-read per slot.
+     */
+    public void markSlotClicked(ScreenHandler handler, String title, int slotIndex, SlotActionType actionType) {
+        markPending(handler, title);
+        if (touchesSingleSlot(actionType)) {
+            if (slotIndex >= 0) pendingSlots.set(slotIndex);
+        } else {
+            pendingFullScan = true;
         }
     }
 
-    public void saveContainerContents(ScreenHandler handler, String title) {
-        Map<String, Map<String, Integer>> fileSaveContainerData = loadAllContainerDataFromFile();
+    /**
+     * Records a server slot update for the tracked container, e.g. the other half of a click the server
+     * resolved differently than the client predicted. Updates for other handlers are ignored.
+     */
+    public void markSlotUpdated(ScreenHandler handler, int slotIndex) {
+        if (handler != trackedHandler || slotIndex < 0 || slotIndex >= slotIds.length) return;
+        markPending(handler, trackedTitle);
+        pendingSlots.set(slotIndex);
+    }
 
-        if (!title.contains("Backpack") && !title.contains("Ender Chest") && !title.contains("The Forge") && !title.contains("Accessory Bag")) {
-            return;
+    /** Records a full contents resync of the tracked container; it is re-scanned at the end of the tick. */
+    public void markContentsUpdated(ScreenHandler handler) {
+        if (handler != trackedHandler) return;
+        markPending(handler, trackedTitle);
+        pendingFullScan = true;
+    }
+
+    private void markPending(ScreenHandler handler, String title) {
+        if (pendingHandler != null && (pendingHandler != handler || !pendingTitle.equals(title))) {
+            processPendingClicks();
         }
+        pendingHandler = handler;
+        pendingTitle = title;
+    }
 
-        if (fileSaveContainerData.containsKey(title)) {
-            compareContainerData(handler, title, fileSaveContainerData);
+    public void processPendingClicks() {
+        ScreenHandler handler = pendingHandler;
+        if (handler == null) return;
+        String title = pendingTitle;
+        boolean fullScan = pendingFullScan || handler != trackedHandler || !title.equals(trackedTitle);
+        pendingHandler = null;
+        pendingTitle = null;
+        pendingFullScan = false;
+
+        if (fullScan) {
+            pendingSlots.clear();
+            saveContainerContents(handler, title);
             return;
         }
 
-        List<Slot> slots = handler.slots;
-        int slotsToIterate = slots.size() - 36;
-        Map<String, Integer> newData = new HashMap<>();
-
-        for (int i = 0; i < slotsToIterate; i++) {
-            Slot slot = slots.get(i);
-            ItemStack stack = slot.getStack();
-            if (!stack.isEmpty()) {
-                String itemName = stack.getName().getString();
-                int itemCount = stack.getCount();
-                newData.put(itemName, newData.getOrDefault(itemName, 0) + itemCount);
-            }
+        boolean changed = false;
+        int containerSize = Math.min(slotIds.length, handler.slots.size() - 36);
+        for (int i = pendingSlots.nextSetBit(0); i >= 0 && i < containerSize; i = pendingSlots.nextSetBit(i + 1)) {
+            changed |= readSlot(handler.slots.get(i).getStack(), i);
         }
-        fileSaveContainerData.put(title, newData);
-        saveAllContainerDataToFile(fileSaveContainerData);
-        RESOURCES_MANAGER.saveData(newData);
-    }
-
-    public void compareContainerData(ScreenHandler handler, String title, Map<String, Map<String, Integer>> allcontainerData) {
-        List<Slot> slots = handler.slots;
-        int slotsToIterate = slots.size() - 36;
-
-        Map<String, Integer> previousData = allcontainerData.get(title);
-        Map<String, Integer> newData = new HashMap<>();
-
-        for (int i = 0; i < slotsToIterate; i++) {
-            Slot slot = slots.get(i);
-            ItemStack stack = slot.getStack();
-            if (!stack.isEmpty()) {
-                String itemName = stack.getName().getString();
-                int itemCount = stack.getCount();
-                newData.put(itemName, newData.getOrDefault(itemName, 0) + itemCount);
-            }
+        pendingSlots.clear();
+        if (changed) {
+            pipeline.submit(store, title, slotIds, slotCounts);
         }
+    }
 
-        for (Map.Entry<String, Integer> entry : newData.entrySet()) {
-            String itemName = entry.getKey();
-            int newCount = entry.getValue();
-            int previousCount = previousData.getOrDefault(itemName, 0);
+    private static boolean touchesSingleSlot(SlotActionType actionType) {
+        return actionType == SlotActionType.PICKUP || actionType == SlotActionType.SWAP
+            || actionType == SlotActionType.THROW || actionType == SlotActionType.CLONE;
+    }
 
-            if (newCount != previousCount) {
-                changesData.put(itemName, newCount-previousCount);
-                previousData.put(itemName, newCount);
-            }
+    // Reads the container's own slots; the trailing 36 slots are the player inventory
+    private void scanContainer(ScreenHandler handler, String title) {
+        List<Slot> slots = handler.slots;
+        int slotsToIterate = Math.max(0, slots.size() - 36);
+        if (slotIds.length != slotsToIterate) {
+            slotIds = new int[slotsToIterate];
+            slotCounts = new int[slotsToIterate];
         }
-
-        for (Map.Entry<String, Integer> entry : previousData.entrySet()) {
-            if (!newData.containsKey(entry.getKey()) && entry.getValue() > 0) {
-                changesData.put(entry.getKey(), -entry.getValue());
-            }
+        for (int i = 0; i < slotsToIterate; i++) {
+            readSlot(slots.get(i).getStack(), i);
         }
+        trackedHandler = handler;
+        trackedTitle = title;
+    }
 
-        previousData.entrySet().removeIf(entry -> !newData.containsKey(entry.getKey()) || entry.getValue() == 0);
-
-        allcontainerData.put(title, previousData);
-        saveAllContainerDataToFile(allcontainerData);
-        RESOURCES_MANAGER.saveData(changesData);
-        changesData.clear();
+    private boolean readSlot(ItemStack stack, int slot) {
+        int id = stack.isEmpty() ? -1 : ItemDictionary.getInstance().intern(stack.getName().getString());
+        int count = stack.isEmpty() ? 0 : stack.getCount();
+        if (id == slotIds[slot] && count == slotCounts[slot]) return false;
+        slotIds[slot] = id;
+        slotCounts[slot] = count;
+        return true;
     }
 
     public void clearAllData() {
-        changesData.clear();
+        pendingHandler = null;
+        pendingTitle = null;
+        pendingFullScan = false;
+        pendingSlots.clear();
+        trackedHandler = null;
+        trackedTitle = null;
     }
-}
\ No newline at end of file
+}
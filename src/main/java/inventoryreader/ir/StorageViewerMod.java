@@ -20,6 +20,16 @@ public class StorageViewerMod implements ClientModInitializer{
     }
 
     private void onEndClientTick(MinecraftClient client) {
+        long start = PerfStats.begin();
+        try {
+            handleTick(client);
+        } finally {
+            PerfStats.end(start);
+        }
+    }
+
+    private void handleTick(MinecraftClient client) {
+        storageReader.processPendingClicks();
         if (client.currentScreen != null && client.player != null) {
             ScreenHandler currentHandler = client.player.currentScreenHandler;
 
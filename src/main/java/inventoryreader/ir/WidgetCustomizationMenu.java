@@ -3,6 +3,9 @@ package inventoryreader.ir;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import inventoryreader.ir.recipes.RecipeGraph;
+import inventoryreader.ir.recipes.RecipeRegistry;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
@@ -52,6 +55,9 @@ public class WidgetCustomizationMenu extends Screen {
     private ButtonWidget positioningTabButton;
     private int craftAmount;
     private TextFieldWidget craftAmountField;
+    private final Consumer<ResourceChangeEvent> resourceListener = this::onResourcesChanged;
+    private final Consumer<RecipeGraph> recipeListener = this::onRecipesPublished;
+    private final RecipePlanner planner = new RecipePlanner();
 
     public WidgetCustomizationMenu() {
         super(Text.literal("Widget Customization"));
@@ -65,8 +71,8 @@ public class WidgetCustomizationMenu extends Screen {
         this.craftAmount = widget.getCraftAmount();
         this.currentTab = Tab.RECIPE_SELECTION;
         if (selectedRecipe != null) {
-            ResourcesManager.RemainingResponse response = resourcesManager.getRemainingIngredients(selectedRecipe, craftAmount);
-            this.recipeTree = convertResourceNodeToRecipeNode(response.full_recipe);
+            ResourcesManager.RemainingResponse response = planner.plan(selectedRecipe, craftAmount);
+            this.recipeTree = response.full_recipe;
         }
     }
 
@@ -80,6 +86,10 @@ public class WidgetCustomizationMenu extends Screen {
     @Override
     protected void init() {
         super.init();
+        resourcesManager.removeListener(resourceListener);
+        resourcesManager.addListener(resourceListener);
+        RecipeRegistry.removeListener(recipeListener);
+        RecipeRegistry.addListener(recipeListener);
         recipeTabButton = ButtonWidget.builder(
             Text.literal("Recipe Selection"),
             button -> switchTab(Tab.RECIPE_SELECTION)
@@ -227,8 +237,8 @@ public class WidgetCustomizationMenu extends Screen {
             this.craftAmount = 1;
         }
         if (selectedRecipe != null) {
-            ResourcesManager.RemainingResponse response = resourcesManager.getRemainingIngredients(selectedRecipe, craftAmount);
-            recipeTree = convertResourceNodeToRecipeNode(response.full_recipe);
+            ResourcesManager.RemainingResponse response = planner.plan(selectedRecipe, craftAmount);
+            recipeTree = response.full_recipe;
         }
     }
 
@@ -818,8 +828,8 @@ public class WidgetCustomizationMenu extends Screen {
                 int actualIndex = scrollOffset + recipeIndex;
                 if (actualIndex >= 0 && actualIndex < filteredRecipes.size() && recipeIndex < MAX_RECIPES_SHOWN) {
                     selectedRecipe = filteredRecipes.get(actualIndex);
-                    ResourcesManager.RemainingResponse response = resourcesManager.getRemainingIngredients(selectedRecipe, craftAmount);
-                    recipeTree = convertResourceNodeToRecipeNode(response.full_recipe);
+                    ResourcesManager.RemainingResponse response = planner.plan(selectedRecipe, craftAmount);
+                    recipeTree = response.full_recipe;
                     if (recipeTree != null) {
                         widget.setNodeExpansion(SandboxWidget.getNodeKey(recipeTree), true);
                     }
@@ -992,8 +1002,7 @@ public class WidgetCustomizationMenu extends Screen {
                 }
                 else {
                     MinecraftClient client = MinecraftClient.getInstance();
-                    Map<String, Integer> resources = ResourcesManager.getInstance().getAllResources();
-                    int available = resources.getOrDefault(node.name, 0);
+                    int available = ResourcesManager.getInstance().snapshot().get(node.name);
                     boolean hasEnough = available >= node.amount;
                     Text message = Text.literal("You have " + available + "/" + node.amount + " of " + node.name)
                         .setStyle(Style.EMPTY.withColor(hasEnough ? Formatting.GREEN : Formatting.RED));
@@ -1055,6 +1064,33 @@ public class WidgetCustomizationMenu extends Screen {
         }
     }
 
+    @Override
+    public void removed() {
+        resourcesManager.removeListener(resourceListener);
+        RecipeRegistry.removeListener(recipeListener);
+        super.removed();
+    }
+
+    private void onResourcesChanged(ResourceChangeEvent event) {
+        MinecraftClient.getInstance().execute(() -> {
+            if (selectedRecipe == null || !event.touchesAny(recipeManager.dependencyClosure(selectedRecipe))) return;
+            ResourcesManager.RemainingResponse response = planner.plan(selectedRecipe, craftAmount);
+            recipeTree = response.full_recipe;
+        });
+    }
+
+    private void onRecipesPublished(RecipeGraph graph) {
+        MinecraftClient.getInstance().execute(() -> {
+            int keptOffset = scrollOffset;
+            updateFilteredRecipes(searchField != null ? searchField.getText() : null);
+            scrollOffset = Math.max(0, Math.min(keptOffset, filteredRecipes.size() - MAX_RECIPES_SHOWN));
+            if (selectedRecipe != null) {
+                ResourcesManager.RemainingResponse response = planner.plan(selectedRecipe, craftAmount);
+                recipeTree = response.full_recipe;
+            }
+        });
+    }
+
     @Override
     public void close() {
         if (widget.getWidgetX() != widgetPositionX || widget.getWidgetY() != widgetPositionY) {
@@ -1066,15 +1102,4 @@ public class WidgetCustomizationMenu extends Screen {
         widget.saveConfiguration();
         super.close();
     }
-
-    private RecipeManager.RecipeNode convertResourceNodeToRecipeNode(ResourcesManager.RecipeNode resourceNode) {
-        if (resourceNode == null) return null;
-        List<RecipeManager.RecipeNode> ingredients = new ArrayList<>();
-        if (resourceNode.ingredients != null) {
-            for (ResourcesManager.RecipeNode child : resourceNode.ingredients) {
-                ingredients.add(convertResourceNodeToRecipeNode(child));
-            }
-        }
-        return new RecipeManager.RecipeNode(resourceNode.name, resourceNode.amount, ingredients);
-    }
 }
@@ -2,8 +2,8 @@ package inventoryreader.ir.mixin;
 
 import com.google.gson.Gson;
 
+import inventoryreader.ir.InventoryPipeline;
 import inventoryreader.ir.InventoryReader;
-import inventoryreader.ir.ResourcesManager;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.network.packet.s2c.play.GameMessageS2CPacket;
 import net.minecraft.text.HoverEvent;
@@ -30,7 +30,7 @@ public class ChatMessageMixin {
     private static final Gson GSON = new Gson();
 
     @Unique
-    private static final ResourcesManager RESOURCESMANAGER = ResourcesManager.getInstance();
+    private static final InventoryPipeline PIPELINE = InventoryPipeline.getInstance();
 
     @Unique
     private static final Pattern SACKS_PATTERN_1 = Pattern.compile(
@@ -107,7 +107,7 @@ public class ChatMessageMixin {
                     List<Text> hoverChildrenList = hoverChildren.getSiblings();
                     itemMap = getItemMapFromText(hoverChildrenList, itemMap);
                 }
-                RESOURCESMANAGER.saveData(itemMap);
+                PIPELINE.submitDeltas(itemMap);
             }
         } finally {
             isProcessing.set(false);
@@ -0,0 +1,55 @@
+package inventoryreader.ir.mixin;
+
+import inventoryreader.ir.PlayerInventoryTracker;
+import inventoryreader.ir.StorageReader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.network.packet.s2c.play.InventoryS2CPacket;
+import net.minecraft.network.packet.s2c.play.ScreenHandlerSlotUpdateS2CPacket;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.screen.slot.Slot;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientPlayNetworkHandler.class)
+public class InventorySyncMixin {
+
+    // RETURN is only reached on the client thread; the network thread bails out in forceMainThread
+    @Inject(method = "onScreenHandlerSlotUpdate", at = @At("RETURN"))
+    private void onSlotUpdate(ScreenHandlerSlotUpdateS2CPacket packet, CallbackInfo ci) {
+        ClientPlayerEntity player = MinecraftClient.getInstance().player;
+        if (player == null) return;
+        int syncId = packet.getSyncId();
+        ScreenHandler handler;
+        if (syncId == 0) {
+            handler = player.playerScreenHandler;
+        } else if (player.currentScreenHandler != null && player.currentScreenHandler.syncId == syncId) {
+            handler = player.currentScreenHandler;
+        } else {
+            return;
+        }
+        int index = packet.getSlot();
+        if (!handler.isValid(index)) return;
+        Slot slot = handler.getSlot(index);
+        if (slot.inventory == player.getInventory()) {
+            PlayerInventoryTracker.getInstance().markSlot(player.getInventory(), slot.getIndex());
+        } else if (syncId != 0) {
+            StorageReader.getInstance().markSlotUpdated(handler, index);
+        }
+    }
+
+    @Inject(method = "onInventory", at = @At("RETURN"))
+    private void onInventory(InventoryS2CPacket packet, CallbackInfo ci) {
+        ClientPlayerEntity player = MinecraftClient.getInstance().player;
+        if (player == null) return;
+        PlayerInventoryTracker.getInstance().markAll(player.getInventory());
+        // A resync of the open container; ignored unless it is the one StorageReader tracks
+        if (player.currentScreenHandler != null && player.currentScreenHandler != player.playerScreenHandler) {
+            StorageReader.getInstance().markContentsUpdated(player.currentScreenHandler);
+        }
+    }
+}
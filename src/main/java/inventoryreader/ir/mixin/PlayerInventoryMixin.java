@@ -0,0 +1,36 @@
+package inventoryreader.ir.mixin;
+
+import inventoryreader.ir.PlayerInventoryTracker;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(PlayerInventory.class)
+public abstract class PlayerInventoryMixin {
+
+    @Inject(method = "setStack", at = @At("RETURN"))
+    private void onSetStack(int slot, ItemStack stack, CallbackInfo ci) {
+        PlayerInventoryTracker.getInstance().markSlot((PlayerInventory)(Object)this, slot);
+    }
+
+    @Inject(method = "removeStack(II)Lnet/minecraft/item/ItemStack;", at = @At("RETURN"))
+    private void onRemoveStackAmount(int slot, int amount, CallbackInfoReturnable<ItemStack> cir) {
+        PlayerInventoryTracker.getInstance().markSlot((PlayerInventory)(Object)this, slot);
+    }
+
+    @Inject(method = "removeStack(I)Lnet/minecraft/item/ItemStack;", at = @At("RETURN"))
+    private void onRemoveStack(int slot, CallbackInfoReturnable<ItemStack> cir) {
+        PlayerInventoryTracker.getInstance().markSlot((PlayerInventory)(Object)this, slot);
+    }
+
+    // Slots edit stacks in place and only report markDirty, without a slot index
+    @Inject(method = "markDirty", at = @At("RETURN"))
+    private void onMarkDirty(CallbackInfo ci) {
+        PlayerInventoryTracker.getInstance().markAll((PlayerInventory)(Object)this);
+    }
+}
@@ -1,5 +1,6 @@
 package inventoryreader.ir.mixin;
 
+import inventoryreader.ir.PerfStats;
 import inventoryreader.ir.StorageReader;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.client.MinecraftClient;
@@ -16,11 +17,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 @Mixin(ScreenHandler.class)
 public abstract class SlotClickMixin {
 
-    @Inject(method = "onSlotClick", at = @At("HEAD"))
-    private void onClickSlotHead(int slotIndex, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
-        handleSlotClick(slotIndex, button, actionType, player);
-    }
-
+    // Only marks the container; StorageReader re-reads it once at the end of the tick
     @Inject(method = "onSlotClick", at = @At("RETURN"))
     private void onClickSlotReturn(int slotIndex, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
         handleSlotClick(slotIndex, button, actionType, player);
@@ -28,14 +25,19 @@ public abstract class SlotClickMixin {
 
     @Unique
     private void handleSlotClick(int slotIndex, int button, SlotActionType actionType, PlayerEntity player) {
-        Screen currentScreen = MinecraftClient.getInstance().currentScreen;
+        MinecraftClient client = MinecraftClient.getInstance();
+        // The integrated server runs its own handlers on another thread; only client-side clicks matter
+        if (!client.isOnThread()) {
+            return;
+        }
+        Screen currentScreen = client.currentScreen;
         String title = currentScreen != null ? currentScreen.getTitle().getString() : "Unknown";
 
         if (!title.contains("Backpack") && !title.contains("Ender Chest")) {
             return;
         }
-        StorageReader storageReader = StorageReader.getInstance();
-        // Map<String, java.util.Map<String, Integer>> allcontainerData = storageReader.loadAllContainerDataFromFile();
-        storageReader.saveContainerContents((ScreenHandler)(Object)this, title);
+        long start = PerfStats.begin();
+        StorageReader.getInstance().markSlotClicked((ScreenHandler)(Object)this, title, slotIndex, actionType);
+        PerfStats.end(start);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,241 @@
+package inventoryreader.ir.recipes;
+
+import inventoryreader.ir.ItemDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Raw materials per unit of every craftable output in one {@link RecipeGraph}: a sparse vector of leaf IDs
+ * (raw materials and cut cycle edges) and totals, in the order a depth-first walk first reaches each leaf.
+ * Built bottom-up over the topological order. Each output carries a hash of its whole recipe subtree, so a new
+ * graph reuses every vector whose subtree did not change, whether it comes from the previous table or from the
+ * on-disk cache.
+ */
+public final class BaseMaterialTable {
+    private static final Logger LOGGER = LoggerFactory.getLogger("IR-BaseMaterials");
+    private static final int CACHE_MAGIC = 0x49524D31; // "IRM1"
+    private static final long LEAF = 0x9E3779B97F4A7C15L;
+
+    private final RecipeGraph graph;
+    private final Vector[] vectors;
+    private final long contentHash;
+    private final int reused;
+
+    private record Vector(long hash, int[] ids, long[] amounts) {}
+
+    private BaseMaterialTable(RecipeGraph graph, Vector[] vectors, long contentHash, int reused) {
+        this.graph = graph;
+        this.vectors = vectors;
+        this.contentHash = contentHash;
+        this.reused = reused;
+    }
+
+    /**
+     * Builds the table for {@code graph}, reusing vectors from {@code previous} (or, when null, from the cache
+     * file) whose recipe subtree hash is unchanged.
+     */
+    static BaseMaterialTable build(RecipeGraph graph, BaseMaterialTable previous, File cache) {
+        Map<Long, Vector> reusable = previous != null ? previous.byHash() : readCache(cache);
+        int nodes = graph.nodeCount();
+        Vector[] vectors = new Vector[nodes];
+        long[] hashes = new long[nodes];
+        long[] acc = new long[nodes];
+        int[] order = new int[nodes];
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        long contentHash = 0L;
+        int reused = 0;
+
+        for (int t = 0; t < graph.recipeCount(); t++) {
+            int id = graph.topologicalAt(t);
+            long h = mix(LEAF, nameHash(dictionary.nameOf(id)));
+            for (int e = graph.ingredientStart(id), end = graph.ingredientEnd(id); e < end; e++) {
+                int ing = graph.ingredientId(e);
+                h = mix(h, graph.expands(e) ? hashes[ing] : mix(LEAF, nameHash(dictionary.nameOf(ing))));
+                h = mix(h, graph.quantity(e));
+            }
+            hashes[id] = h;
+            // A sum, unlike xor, does not cancel when two subtrees hash alike
+            contentHash += h;
+
+            Vector v = reusable.get(h);
+            if (v != null) {
+                reused++;
+            } else {
+                v = compute(graph, id, h, vectors, acc, order);
+            }
+            vectors[id] = v;
+        }
+        return new BaseMaterialTable(graph, vectors, contentHash, reused);
+    }
+
+    // Merges child vectors in ingredient order; acc[] is all zero between calls
+    private static Vector compute(RecipeGraph graph, int id, long hash, Vector[] vectors, long[] acc, int[] order) {
+        int size = 0;
+        for (int e = graph.ingredientStart(id), end = graph.ingredientEnd(id); e < end; e++) {
+            int ing = graph.ingredientId(e);
+            long q = graph.quantity(e);
+            if (graph.expands(e)) {
+                Vector child = vectors[ing];
+                for (int i = 0; i < child.ids.length; i++) {
+                    int leaf = child.ids[i];
+                    if (acc[leaf] == 0) order[size++] = leaf;
+                    acc[leaf] = saturatedAdd(acc[leaf], child.amounts[i] > Long.MAX_VALUE / q ? Long.MAX_VALUE : q * child.amounts[i]);
+                }
+            } else {
+                if (acc[ing] == 0) order[size++] = ing;
+                acc[ing] = saturatedAdd(acc[ing], q);
+            }
+        }
+        int[] ids = Arrays.copyOf(order, size);
+        long[] amounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = acc[ids[i]];
+            acc[ids[i]] = 0;
+        }
+        return new Vector(hash, ids, amounts);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    public RecipeGraph graph() {
+        return graph;
+    }
+
+    /** Order-independent hash of every recipe in the graph. */
+    public long contentHash() {
+        return contentHash;
+    }
+
+    /** Vectors taken over from the previous table or the cache instead of being recomputed. */
+    public int reusedCount() {
+        return reused;
+    }
+
+    public boolean has(int id) {
+        return id >= 0 && id < vectors.length && vectors[id] != null;
+    }
+
+    public int leafCount(int id) {
+        return has(id) ? vectors[id].ids.length : 0;
+    }
+
+    public int leafIdAt(int id, int index) {
+        return vectors[id].ids[index];
+    }
+
+    /** Units of {@link #leafIdAt} needed to craft one {@code id} from nothing, saturated at {@link Long#MAX_VALUE}. */
+    public long amountAt(int id, int index) {
+        return vectors[id].amounts[index];
+    }
+
+    private Map<Long, Vector> byHash() {
+        Map<Long, Vector> out = new HashMap<>(vectors.length * 2);
+        for (Vector v : vectors) {
+            if (v != null) out.put(v.hash, v);
+        }
+        return out;
+    }
+
+    /** Writes every vector, keyed by subtree hash, with leaf names since IDs differ between sessions. */
+    void writeCache(File file) {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeLong(contentHash);
+            int count = 0;
+            for (Vector v : vectors) if (v != null) count++;
+            out.writeInt(count);
+            for (Vector v : vectors) {
+                if (v == null) continue;
+                out.writeLong(v.hash);
+                out.writeInt(v.ids.length);
+                for (int i = 0; i < v.ids.length; i++) {
+                    out.writeUTF(dictionary.nameOf(v.ids[i]));
+                    out.writeLong(v.amounts[i]);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed writing base material cache: {}", e.toString());
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to move base material cache: {}", ex.toString());
+            }
+        }
+    }
+
+    /** Content hash stored in the cache file, or 0 if it is missing or unreadable. */
+    static long cachedContentHash(File file) {
+        if (!file.exists()) return 0L;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return in.readInt() == CACHE_MAGIC ? in.readLong() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static Map<Long, Vector> readCache(File file) {
+        Map<Long, Vector> out = new HashMap<>();
+        if (file == null || !file.exists()) return out;
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != CACHE_MAGIC) return out;
+            in.readLong();
+            int count = in.readInt();
+            for (int c = 0; c < count; c++) {
+                long hash = in.readLong();
+                int n = in.readInt();
+                int[] ids = new int[n];
+                long[] amounts = new long[n];
+                for (int i = 0; i < n; i++) {
+                    ids[i] = dictionary.intern(in.readUTF());
+                    amounts[i] = in.readLong();
+                }
+                out.put(hash, new Vector(hash, ids, amounts));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable base material cache: {}", e.toString());
+            out.clear();
+        }
+        return out;
+    }
+
+    private static long nameHash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        long x = h ^ (v + LEAF + (h << 6) + (h >>> 2));
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
@@ -0,0 +1,188 @@
+package inventoryreader.ir.recipes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the last NEU ZIP ingest saw: per {@code items/*.json} entry its CRC-32, uncompressed size and parsed
+ * fragment, for one source URL. The next fetch of the same source re-parses only entries whose CRC or size
+ * changed and takes the rest from here, and the registry builds the source's recipes straight from the
+ * fragments. The header carries a hash of the recipe content so the compiled cache can be keyed without
+ * reading the entries.
+ */
+final class NeuIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger("IR-NeuIndex");
+    private static final int MAGIC = 0x49524E32; // "IRN2"
+
+    /** {@code item} is null for an entry that did not parse. */
+    record Entry(long crc, long size, NeuItemReader.Item item) {}
+
+    final String source;
+    final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    NeuIndex(String source) {
+        this.source = source;
+    }
+
+    /** The stored index for {@code source}, or an empty one if there is none or it was built for another URL. */
+    static NeuIndex read(File file, String source) {
+        NeuIndex index = new NeuIndex(source);
+        if (!file.exists()) return index;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(source)) return index;
+            in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long crc = in.readLong();
+                long size = in.readLong();
+                NeuItemReader.Item item = null;
+                if (in.readBoolean()) {
+                    String internal = in.readUTF();
+                    String display = in.readUTF();
+                    boolean hasRecipe = in.readBoolean();
+                    int n = in.readInt();
+                    List<String> ingredients = new ArrayList<>(n);
+                    List<Integer> counts = new ArrayList<>(n);
+                    for (int k = 0; k < n; k++) {
+                        ingredients.add(in.readUTF());
+                        counts.add(in.readInt());
+                    }
+                    item = new NeuItemReader.Item(internal, display, hasRecipe, ingredients, counts);
+                }
+                index.entries.put(name, new Entry(crc, size, item));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable NEU index: {}", e.toString());
+            index.entries.clear();
+        }
+        return index;
+    }
+
+    /**
+     * The {@link #contentHash()} stored in {@code file} for {@code source}, read from the header only; -1 if
+     * there is no readable index for it.
+     */
+    static long readContentHash(File file, String source) {
+        if (!file.exists()) return -1L;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 512))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(source)) return -1L;
+            return in.readLong();
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Hash of everything {@link #recipes} reads: the parsed fragments in entry order. Entries that changed only
+     * outside those fields (lore, NBT) leave it as it was.
+     */
+    long contentHash() {
+        long h = 1L;
+        for (Entry entry : entries.values()) {
+            NeuItemReader.Item item = entry.item;
+            if (item == null) {
+                h = h * 31;
+                continue;
+            }
+            h = h * 31 + item.internalName().hashCode();
+            h = h * 31 + item.displayName().hashCode();
+            h = h * 31 + (item.hasRecipe() ? 1 : 2);
+            for (int k = 0; k < item.ingredients().size(); k++) {
+                h = h * 31 + item.ingredients().get(k).hashCode();
+                h = h * 31 + item.counts().get(k);
+            }
+        }
+        return h == -1L ? 0L : h;
+    }
+
+    /**
+     * The recipes of the indexed items under display names, merged in entry order: an output listed twice sums
+     * its ingredients, the first display name seen for an internal name is used, and names without one stay
+     * internal. Reads like the JSON snapshot the fetcher used to write did, so counts clamp to a short and an
+     * output or ingredient reached under two names keeps its first position and last count.
+     */
+    Map<String, Recipe> recipes(byte category, byte priority) {
+        Map<String, Map<String, Integer>> byInternal = new LinkedHashMap<>();
+        Map<String, String> display = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            NeuItemReader.Item item = entry.item;
+            if (item == null || item.internalName().isEmpty()) continue;
+            if (!item.displayName().isEmpty()) display.putIfAbsent(item.internalName(), item.displayName());
+            if (!item.hasRecipe()) continue;
+            Map<String, Integer> ing = byInternal.computeIfAbsent(item.internalName(), k -> new LinkedHashMap<>());
+            for (int k = 0; k < item.ingredients().size(); k++) {
+                ing.merge(item.ingredients().get(k), item.counts().get(k), Integer::sum);
+            }
+        }
+        Map<String, Recipe> out = new LinkedHashMap<>(byInternal.size() * 2);
+        for (Map.Entry<String, Map<String, Integer>> e : byInternal.entrySet()) {
+            Map<String, Short> ing = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> in : e.getValue().entrySet()) {
+                ing.put(display.getOrDefault(in.getKey(), in.getKey()), (short) Math.min(Short.MAX_VALUE, in.getValue()));
+            }
+            if (ing.isEmpty()) continue;
+            String output = display.getOrDefault(e.getKey(), e.getKey());
+            String[] names = ing.keySet().toArray(new String[0]);
+            short[] counts = new short[names.length];
+            for (int i = 0; i < names.length; i++) counts[i] = ing.get(names[i]);
+            out.put(output, new Recipe(output, names, counts, category, priority));
+        }
+        return out;
+    }
+
+    void write(File file) {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(source);
+            out.writeLong(contentHash());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.crc);
+                out.writeLong(entry.size);
+                NeuItemReader.Item item = entry.item;
+                out.writeBoolean(item != null);
+                if (item == null) continue;
+                out.writeUTF(item.internalName());
+                out.writeUTF(item.displayName());
+                out.writeBoolean(item.hasRecipe());
+                out.writeInt(item.ingredients().size());
+                for (int k = 0; k < item.ingredients().size(); k++) {
+                    out.writeUTF(item.ingredients().get(k));
+                    out.writeInt(item.counts().get(k));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed writing NEU index: {}", e.toString());
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to move NEU index: {}", ex.toString());
+            }
+        }
+    }
+}
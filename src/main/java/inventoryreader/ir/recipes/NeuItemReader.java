@@ -0,0 +1,97 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls {@code internalname}, {@code displayname} and the crafting {@code recipe} out of one NEU
+ * {@code items/*.json} entry with a streaming {@link JsonReader}; lore, NBT and every other field are skipped
+ * without being materialized. Stateless, so entries can be parsed on any thread.
+ */
+final class NeuItemReader {
+    /** One parsed entry. {@code hasRecipe} is true for a non-empty recipe object even if no slot was usable. */
+    record Item(String internalName, String displayName, boolean hasRecipe, List<String> ingredients, List<Integer> counts) {}
+
+    private NeuItemReader() {}
+
+    /** Parses one entry; null if it is not a JSON object or is malformed. */
+    static Item read(byte[] json) {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+            reader.setStrictness(Strictness.LENIENT);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) return null;
+            String internal = "";
+            String display = "";
+            boolean hasRecipe = false;
+            List<String> ingredients = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "internalname" -> internal = primitive(reader);
+                    case "displayname" -> display = stripMC(primitive(reader));
+                    case "recipe" -> {
+                        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                            reader.skipValue();
+                            break;
+                        }
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            reader.nextName();
+                            hasRecipe = true;
+                            addSlot(primitive(reader), ingredients, counts);
+                        }
+                        reader.endObject();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new Item(internal, display, hasRecipe, ingredients, counts);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Slot values look like "ENCHANTED_DIAMOND:4"; a missing or bad count means 1
+    private static void addSlot(String v, List<String> ingredients, List<Integer> counts) {
+        if (v == null || v.isBlank()) return;
+        String item;
+        int count = 1;
+        int colon = v.lastIndexOf(':');
+        if (colon > 0) {
+            item = v.substring(0, colon);
+            try { count = Integer.parseInt(v.substring(colon + 1)); } catch (NumberFormatException ignore) { count = 1; }
+        } else {
+            item = v;
+        }
+        if (item.isBlank()) return;
+        ingredients.add(item);
+        counts.add(count);
+    }
+
+    // String form of a primitive value; "" for null, objects and arrays
+    private static String primitive(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING, NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return Boolean.toString(reader.nextBoolean());
+            default:
+                reader.skipValue();
+                return "";
+        }
+    }
+
+    static String stripMC(String s) {
+        if (s == null) return "";
+        return s.replaceAll("§.", "").trim();
+    }
+}
@@ -0,0 +1,176 @@
+package inventoryreader.ir.recipes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary copy of the merged, sanitized recipe set so warm starts skip JSON entirely. Layout: header (magic,
+ * format, source key), a string table, then the recipes in merge order as rows of (output, category, source
+ * priority, ingredient count) over flat ingredient/count arrays, then the seed item names. The source key
+ * hashes each recipe file's path, size, modification time and content, so any edit, fetch or version upgrade
+ * misses the cache and falls back to a full load.
+ */
+final class RecipeCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("IR-RecipeCache");
+    private static final int MAGIC = 0x49524331; // "IRC1"
+    static final int FORMAT = 1;
+
+    record Contents(Map<String, Recipe> recipes, Set<String> sourceItemNames) {}
+
+    private RecipeCache() {}
+
+    /** Hash of the files the recipes are merged from, in provider order. Missing files hash as absent. */
+    static long sourceKey(List<File> sources) {
+        return sourceKey(sources, FORMAT);
+    }
+
+    static long sourceKey(List<File> sources, int format) {
+        CRC32C crc = new CRC32C();
+        long key = format;
+        for (File f : sources) {
+            key = key * 31 + f.getAbsolutePath().hashCode();
+            if (!f.exists()) {
+                key = key * 31 - 1;
+                continue;
+            }
+            key = key * 31 + f.length();
+            key = key * 31 + f.lastModified();
+            crc.reset();
+            try {
+                crc.update(Files.readAllBytes(f.toPath()));
+            } catch (IOException e) {
+                return 0L;
+            }
+            key = key * 31 + crc.getValue();
+        }
+        return key == 0L ? 1L : key;
+    }
+
+    /** Loads the cache if it was written for {@code key}; null on a miss or an unreadable file. */
+    static Contents read(File file, long key) {
+        if (key == 0L || !file.exists()) return null;
+        // Check the header with a plain read first so a stale cache is never mapped
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readLong() != key) return null;
+        } catch (IOException e) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.position(16);
+            return decode(buf);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable recipe cache: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static Contents decode(ByteBuffer buf) {
+        String[] strings = new String[buf.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buf.getInt()];
+            buf.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int recipeCount = buf.getInt();
+        Map<String, Recipe> recipes = new LinkedHashMap<>(recipeCount * 2);
+        for (int r = 0; r < recipeCount; r++) {
+            String output = strings[buf.getInt()];
+            byte category = buf.get();
+            byte priority = buf.get();
+            int n = buf.getInt();
+            String[] ing = new String[n];
+            short[] cnt = new short[n];
+            for (int i = 0; i < n; i++) {
+                ing[i] = strings[buf.getInt()];
+                cnt[i] = buf.getShort();
+            }
+            recipes.put(output, new Recipe(output, ing, cnt, category, priority));
+        }
+        int nameCount = buf.getInt();
+        Set<String> names = new LinkedHashSet<>(nameCount * 2);
+        for (int i = 0; i < nameCount; i++) names.add(strings[buf.getInt()]);
+        if (buf.hasRemaining()) throw new BufferUnderflowException();
+        return new Contents(recipes, Collections.unmodifiableSet(names));
+    }
+
+    static void write(File file, long key, Map<String, Recipe> recipes, Set<String> sourceItemNames) {
+        write(file, key, FORMAT, recipes, sourceItemNames);
+    }
+
+    // The format is a parameter only so tests can write a cache as another format version would
+    static void write(File file, long key, int format, Map<String, Recipe> recipes, Set<String> sourceItemNames) {
+        if (key == 0L) return;
+        Map<String, Integer> index = new HashMap<>();
+        for (Recipe r : recipes.values()) {
+            index.putIfAbsent(r.output, index.size());
+            for (String s : r.ing) index.putIfAbsent(s, index.size());
+        }
+        for (String s : sourceItemNames) index.putIfAbsent(s, index.size());
+        String[] strings = new String[index.size()];
+        for (Map.Entry<String, Integer> e : index.entrySet()) strings[e.getValue()] = e.getKey();
+
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(format);
+            out.writeLong(key);
+            out.writeInt(strings.length);
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(recipes.size());
+            for (Recipe r : recipes.values()) {
+                out.writeInt(index.get(r.output));
+                out.writeByte(r.category);
+                out.writeByte(r.sourcePriority);
+                out.writeInt(r.ing.length);
+                for (int i = 0; i < r.ing.length; i++) {
+                    out.writeInt(index.get(r.ing[i]));
+                    out.writeShort(r.cnt[i]);
+                }
+            }
+            out.writeInt(sourceItemNames.size());
+            for (String s : sourceItemNames) out.writeInt(index.get(s));
+        } catch (IOException e) {
+            LOGGER.warn("Failed writing recipe cache: {}", e.toString());
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                // Can happen on Windows while an earlier mapping of the file is still alive; the next start rewrites it
+                LOGGER.warn("Failed to move recipe cache: {}", ex.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streams a recipe file ({@code {"Output": {"Ingredient": count, ...}, ...}}, optionally wrapped as
+ * {@code {"version": n, "recipes": {...}}}) straight into {@link Recipe} objects with one {@link JsonReader}
+ * pass, without building a JSON tree. Entries that are not objects, and non-numeric counts, are read the way
+ * the tree-based loader read them: skipped, and as zero.
+ */
+final class RecipeFileReader {
+    private RecipeFileReader() {}
+
+    static Map<String, Recipe> read(File file, byte category, byte priority) throws IOException {
+        if (!file.exists() || file.length() == 0) return Collections.emptyMap();
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return read(in, category, priority);
+        }
+    }
+
+    static Map<String, Recipe> read(Reader in, byte category, byte priority) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        reader.setStrictness(Strictness.LENIENT);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) return Collections.emptyMap();
+        Map<String, Recipe> top = new LinkedHashMap<>();
+        Map<String, Recipe> wrapped = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+            } else if (wrapped == null && key.equals("recipes")) {
+                wrapped = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String output = reader.nextName();
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    Recipe r = readRecipe(reader, output, category, priority);
+                    if (r != null) wrapped.put(output, r);
+                }
+                reader.endObject();
+            } else {
+                Recipe r = readRecipe(reader, key, category, priority);
+                if (r != null) top.put(key, r);
+            }
+        }
+        reader.endObject();
+        return wrapped != null ? wrapped : top;
+    }
+
+    // Reads one ingredient object; a repeated ingredient keeps its first position and its last count
+    private static Recipe readRecipe(JsonReader reader, String output, byte category, byte priority) throws IOException {
+        String[] ing = new String[8];
+        short[] cnt = new short[8];
+        int n = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            int amount = 0;
+            if (reader.peek() == JsonToken.NUMBER) {
+                amount = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, reader.nextDouble()));
+            } else {
+                reader.skipValue();
+            }
+            short count = (short) Math.min(Short.MAX_VALUE, amount);
+            int at = 0;
+            while (at < n && !ing[at].equals(name)) at++;
+            if (at == n) {
+                if (n == ing.length) {
+                    ing = Arrays.copyOf(ing, n * 2);
+                    cnt = Arrays.copyOf(cnt, n * 2);
+                }
+                ing[n++] = name;
+            }
+            cnt[at] = count;
+        }
+        reader.endObject();
+        if (n == 0) return null;
+        return new Recipe(output, Arrays.copyOf(ing, n), Arrays.copyOf(cnt, n), category, priority);
+    }
+}
@@ -0,0 +1,110 @@
+package inventoryreader.ir.recipes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Watches the data directory for recipe file edits on a daemon thread and reports the changed file names once
+ * events for them have been quiet for {@link #SETTLE_MS}, so an editor's save or a temp-file move costs one
+ * reload. Events for other files (resources, journals, configs) are ignored and do not delay a pending report.
+ */
+final class RecipeFileWatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger("IR-RecipeFileWatcher");
+    private static final long SETTLE_MS = 300;
+    private static boolean started;
+
+    private RecipeFileWatcher() {}
+
+    /**
+     * Starts watching {@code dir} unless a watcher is already running; once one has stopped (say, the directory
+     * went away) the next call starts another. {@code onChange} receives the names accepted by {@code relevant},
+     * or null if the platform dropped events and any file may have changed.
+     */
+    static synchronized void start(Path dir, Predicate<String> relevant, Consumer<Set<String>> onChange) {
+        if (started) return;
+        WatchService ws;
+        try {
+            ws = dir.getFileSystem().newWatchService();
+            dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.warn("Recipe hot reload unavailable: {}", e.toString());
+            return;
+        }
+        started = true;
+        Thread t = new Thread(() -> {
+            try {
+                run(ws, relevant, onChange);
+            } finally {
+                stopped(ws);
+            }
+        }, "IR-RecipeFileWatcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // However the watch ended, the next bootstrap may start a new one
+    private static synchronized void stopped(WatchService ws) {
+        started = false;
+        try {
+            ws.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static void run(WatchService ws, Predicate<String> relevant, Consumer<Set<String>> onChange) {
+        Set<String> changed = new HashSet<>();
+        boolean overflow = false;
+        long settleAt = 0L;
+        while (true) {
+            WatchKey key;
+            try {
+                if (changed.isEmpty() && !overflow) {
+                    key = ws.take();
+                } else {
+                    long wait = settleAt - System.nanoTime();
+                    key = wait > 0 ? ws.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            if (key == null) {
+                Set<String> batch = overflow ? null : changed;
+                changed = new HashSet<>();
+                overflow = false;
+                try {
+                    onChange.accept(batch);
+                } catch (Throwable t) {
+                    LOGGER.warn("Recipe reload failed: {}", t.toString());
+                }
+                continue;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                } else {
+                    String name = String.valueOf(event.context());
+                    if (!relevant.test(name)) continue;
+                    changed.add(name);
+                }
+                settleAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_MS);
+            }
+            if (!key.reset()) {
+                LOGGER.warn("Recipe data directory is no longer watched");
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package inventoryreader.ir.recipes;
+
+import inventoryreader.ir.ItemDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable compiled form of the merged recipe set. Nodes are {@link ItemDictionary} IDs, so solver code can
+ * index resource counts and recipe edges with the same int. Ingredients are stored in compressed sparse rows
+ * ({@code ingredientStart(id)..ingredientEnd(id)} into {@link #ingredientId}/{@link #quantity}), and a reverse
+ * index lists the recipes that consume each item. Published by {@link RecipeRegistry} on every bootstrap and
+ * remote refresh; readers hold on to one instance for the duration of a computation.
+ * <p>
+ * Compilation also orders the craftable outputs topologically (ingredients first). Edges that close a cycle are
+ * cut: {@link #expands(int)} reports them as raw materials so every walk over the graph terminates.
+ */
+public final class RecipeGraph {
+    static final RecipeGraph EMPTY = new RecipeGraph(0L, new int[0], new boolean[0], new int[1], new int[0], new int[0],
+            new int[1], new int[0], new boolean[0], new int[0], new int[0][]);
+
+    private final long version;
+    private final int[] outputs;
+    private final boolean[] craftable;
+    private final int[] offsets;
+    private final int[] ingredients;
+    private final int[] quantities;
+    private final int[] consumerOffsets;
+    private final int[] consumers;
+    private final boolean[] expands;
+    private final int[] topoOrder;
+    private final int[] topoIndex;
+    private final int[][] cycles;
+    private Map<String, Map<String, Integer>> asMap;
+
+    private RecipeGraph(long version, int[] outputs, boolean[] craftable, int[] offsets, int[] ingredients,
+                        int[] quantities, int[] consumerOffsets, int[] consumers, boolean[] expands, int[] topoOrder,
+                        int[][] cycles) {
+        this.version = version;
+        this.outputs = outputs;
+        this.craftable = craftable;
+        this.offsets = offsets;
+        this.ingredients = ingredients;
+        this.quantities = quantities;
+        this.consumerOffsets = consumerOffsets;
+        this.consumers = consumers;
+        this.expands = expands;
+        this.topoOrder = topoOrder;
+        this.topoIndex = new int[craftable.length];
+        Arrays.fill(topoIndex, -1);
+        for (int i = 0; i < topoOrder.length; i++) topoIndex[topoOrder[i]] = i;
+        this.cycles = cycles;
+    }
+
+    /** Compiles {@code recipes} (output name to recipe, in merge order). Interns every name it sees. */
+    static RecipeGraph compile(Map<String, Recipe> recipes, long version) {
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        int[] outputs = new int[recipes.size()];
+        int edges = 0;
+        int maxId = -1;
+        int n = 0;
+        for (Recipe r : recipes.values()) {
+            int id = dictionary.intern(r.output);
+            outputs[n++] = id;
+            maxId = Math.max(maxId, id);
+            for (String ing : r.ing) maxId = Math.max(maxId, dictionary.intern(ing));
+            edges += r.ing.length;
+        }
+        int nodes = maxId + 1;
+        boolean[] craftable = new boolean[nodes];
+        int[] rowLength = new int[nodes];
+        Recipe[] byId = new Recipe[nodes];
+        n = 0;
+        for (Recipe r : recipes.values()) {
+            int id = outputs[n++];
+            craftable[id] = true;
+            byId[id] = r;
+            rowLength[id] = r.ing.length;
+        }
+
+        int[] offsets = new int[nodes + 1];
+        for (int id = 0; id < nodes; id++) offsets[id + 1] = offsets[id] + rowLength[id];
+        int[] ingredients = new int[edges];
+        int[] quantities = new int[edges];
+        int[] consumerCount = new int[nodes];
+        for (int id = 0; id < nodes; id++) {
+            Recipe r = byId[id];
+            if (r == null) continue;
+            int at = offsets[id];
+            for (int i = 0; i < r.ing.length; i++) {
+                int ingId = dictionary.idOf(r.ing[i]);
+                ingredients[at + i] = ingId;
+                quantities[at + i] = r.cnt[i];
+                consumerCount[ingId]++;
+            }
+        }
+
+        int[] consumerOffsets = new int[nodes + 1];
+        for (int id = 0; id < nodes; id++) consumerOffsets[id + 1] = consumerOffsets[id] + consumerCount[id];
+        int[] consumers = new int[edges];
+        int[] fill = Arrays.copyOf(consumerOffsets, nodes);
+        for (int id = 0; id < nodes; id++) {
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                consumers[fill[ingredients[e]]++] = id;
+            }
+        }
+
+        boolean[] expands = new boolean[edges];
+        for (int e = 0; e < edges; e++) expands[e] = craftable[ingredients[e]];
+        int[] topoOrder = new int[outputs.length];
+        List<int[]> cycles = new ArrayList<>();
+        orderTopologically(outputs, craftable, offsets, ingredients, expands, topoOrder, cycles);
+        return new RecipeGraph(version, outputs, craftable, offsets, ingredients, quantities, consumerOffsets, consumers,
+                expands, topoOrder, cycles.toArray(new int[0][]));
+    }
+
+    /**
+     * Iterative post-order DFS from each output in merge order. Fills {@code order} with ingredients before the
+     * recipes that use them, clears {@code expands} on back edges and records each cycle found as an ID path.
+     */
+    private static void orderTopologically(int[] outputs, boolean[] craftable, int[] offsets, int[] ingredients,
+                                           boolean[] expands, int[] order, List<int[]> cycles) {
+        byte[] state = new byte[craftable.length]; // 0 = new, 1 = on stack, 2 = done
+        int[] stackNode = new int[craftable.length];
+        int[] stackEdge = new int[craftable.length];
+        int ordered = 0;
+        for (int root : outputs) {
+            if (state[root] != 0) continue;
+            int sp = 0;
+            state[root] = 1;
+            stackNode[sp] = root;
+            stackEdge[sp++] = offsets[root];
+            while (sp > 0) {
+                int v = stackNode[sp - 1];
+                int e = stackEdge[sp - 1];
+                if (e == offsets[v + 1]) {
+                    state[v] = 2;
+                    order[ordered++] = v;
+                    sp--;
+                    continue;
+                }
+                stackEdge[sp - 1] = e + 1;
+                if (!expands[e]) continue;
+                int w = ingredients[e];
+                if (state[w] == 1) {
+                    expands[e] = false;
+                    int from = sp - 1;
+                    while (stackNode[from] != w) from--;
+                    int[] path = Arrays.copyOfRange(stackNode, from, sp + 1);
+                    path[path.length - 1] = w;
+                    cycles.add(path);
+                } else if (state[w] == 0) {
+                    state[w] = 1;
+                    stackNode[sp] = w;
+                    stackEdge[sp++] = offsets[w];
+                }
+            }
+        }
+    }
+
+    /** Increases every time a new graph is published. */
+    public long version() {
+        return version;
+    }
+
+    /** Number of craftable outputs. */
+    public int recipeCount() {
+        return outputs.length;
+    }
+
+    /** Output ID of the {@code index}-th recipe, in merge order. */
+    public int outputAt(int index) {
+        return outputs[index];
+    }
+
+    /** Exclusive upper bound of the IDs this graph knows about; IDs interned later have no recipe. */
+    public int nodeCount() {
+        return craftable.length;
+    }
+
+    public boolean hasRecipe(int id) {
+        return id >= 0 && id < craftable.length && craftable[id];
+    }
+
+    public boolean hasRecipe(String name) {
+        return hasRecipe(ItemDictionary.getInstance().idOf(name));
+    }
+
+    /** First edge index of {@code id}'s recipe. */
+    public int ingredientStart(int id) {
+        return id >= 0 && id < craftable.length ? offsets[id] : 0;
+    }
+
+    /** Edge index one past the last ingredient of {@code id}'s recipe. */
+    public int ingredientEnd(int id) {
+        return id >= 0 && id < craftable.length ? offsets[id + 1] : 0;
+    }
+
+    public int ingredientCount(int id) {
+        return ingredientEnd(id) - ingredientStart(id);
+    }
+
+    /** ID of the {@code index}-th ingredient of {@code id}'s recipe, in source order. */
+    public int ingredientIdAt(int id, int index) {
+        return ingredients[offsets[id] + index];
+    }
+
+    public int quantityAt(int id, int index) {
+        return quantities[offsets[id] + index];
+    }
+
+    public int ingredientId(int edge) {
+        return ingredients[edge];
+    }
+
+    /**
+     * True if the ingredient on {@code edge} should be crafted from its own recipe, false if it is a raw
+     * material or the edge was cut to break a cycle.
+     */
+    public boolean expands(int edge) {
+        return expands[edge];
+    }
+
+    /** Units of {@link #ingredientId(int)} consumed per unit of output. */
+    public int quantity(int edge) {
+        return quantities[edge];
+    }
+
+    /** First index into {@link #consumerAt} for recipes that use {@code id} as an ingredient. */
+    public int consumerStart(int id) {
+        return id >= 0 && id < craftable.length ? consumerOffsets[id] : 0;
+    }
+
+    public int consumerEnd(int id) {
+        return id >= 0 && id < craftable.length ? consumerOffsets[id + 1] : 0;
+    }
+
+    public int consumerAt(int index) {
+        return consumers[index];
+    }
+
+    /** The {@code index}-th craftable output in topological order; every ingredient comes before its consumers. */
+    public int topologicalAt(int index) {
+        return topoOrder[index];
+    }
+
+    /** Position of {@code id} in {@link #topologicalAt}, or -1 if it has no recipe. */
+    public int topologicalIndex(int id) {
+        return id >= 0 && id < topoIndex.length ? topoIndex[id] : -1;
+    }
+
+    /** Number of recipe cycles that were broken while compiling. */
+    public int cycleCount() {
+        return cycles.length;
+    }
+
+    /** IDs along the {@code index}-th broken cycle, starting and ending with the same item. */
+    public int[] cycle(int index) {
+        return cycles[index].clone();
+    }
+
+    /**
+     * Unmodifiable output to (ingredient to quantity) view in merge order, built once per graph. Callers that
+     * need to modify it must copy.
+     */
+    public Map<String, Map<String, Integer>> asMap() {
+        Map<String, Map<String, Integer>> m = asMap;
+        if (m == null) {
+            ItemDictionary dictionary = ItemDictionary.getInstance();
+            Map<String, Map<String, Integer>> out = new LinkedHashMap<>(outputs.length * 2);
+            for (int id : outputs) {
+                Map<String, Integer> recipe = new LinkedHashMap<>(ingredientCount(id) * 2);
+                for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                    recipe.put(dictionary.nameOf(ingredients[e]), quantities[e]);
+                }
+                out.put(dictionary.nameOf(id), Collections.unmodifiableMap(recipe));
+            }
+            m = Collections.unmodifiableMap(out);
+            asMap = m;
+        }
+        return m;
+    }
+}
@@ -6,4 +6,7 @@ public interface RecipeProvider {
     String id();
     int priority();
     Map<String, Recipe> load() throws Exception;
+
+    /** Whether the names in this provider's recipes seed the resource list. */
+    default boolean seedsResources() { return false; }
 }
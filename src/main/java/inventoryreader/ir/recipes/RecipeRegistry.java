@@ -1,23 +1,33 @@
 package inventoryreader.ir.recipes;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import inventoryreader.ir.FilePathManager;
+import inventoryreader.ir.ItemDictionary;
+import inventoryreader.ir.NameCanonicalizer;
 import inventoryreader.ir.RecipeFileGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,8 +36,33 @@ public final class RecipeRegistry {
     private static final Logger LOGGER = LoggerFactory.getLogger("IR-RecipeRegistry");
     private static final Gson GSON = new Gson();
 
-    private static final List<RecipeProvider> providers = new ArrayList<>();
-    private static volatile Map<String, Recipe> byOutput = Collections.emptyMap();
+    // Replaced as a whole by bootstrap, so readers outside PUBLISH_LOCK (the watcher, the fetcher) see one list
+    private static volatile List<RecipeProvider> providers = List.of();
+    private static final Set<String> BASE_MATERIALS = new HashSet<>(Arrays.asList(
+        "Diamond", "Iron Ingot", "Coal", "Gold Ingot", "Lapis Lazuli", "Emerald", "Redstone", "Quartz", "White Wool"
+    ));
+    // Serializes merge + publish between the client thread, remote fetches and the file watcher; a lock rather than
+    // a monitor because fetches wait on it from virtual threads
+    private static final ReentrantLock PUBLISH_LOCK = new ReentrantLock();
+    private static final List<Consumer<RecipeGraph>> listeners = new CopyOnWriteArrayList<>();
+
+    /** Everything one publish produces, swapped in with a single write; the base material table follows once built. */
+    private record Published(Map<String, Recipe> byOutput, RecipeGraph graph, BaseMaterialTable baseMaterials) {}
+
+    private static final AtomicReference<Published> published =
+            new AtomicReference<>(new Published(Collections.emptyMap(), RecipeGraph.EMPTY, null));
+    // Builds base material tables after a publish, one at a time; a graph replaced before its turn is skipped
+    private static final ExecutorService TABLE_BUILDER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "IR-BaseMaterials");
+        t.setDaemon(true);
+        return t;
+    });
+    // Last table built, reused for unchanged subtrees of the next graph; only touched by TABLE_BUILDER
+    private static BaseMaterialTable lastTable;
+    private static volatile Set<String> sourceItemNames = Collections.emptySet();
+    private static long graphVersion = 0L;
+    // Source key of the published recipes; guarded by PUBLISH_LOCK
+    private static long publishedKey = 0L;
 
     private RecipeRegistry() {}
 
@@ -35,31 +70,222 @@ public final class RecipeRegistry {
         if (!FilePathManager.FORGING_JSON.exists() || !FilePathManager.GEMSTONE_RECIPES_JSON.exists()) {
             RecipeFileGenerator.initializeRecipeFiles();
         }
-        if (providers.isEmpty()) {
-            providers.add(new StaticJsonProvider("static:forging", FilePathManager.FORGING_JSON, (byte)0, 10));
-            providers.add(new StaticJsonProvider("static:gemstone", FilePathManager.GEMSTONE_RECIPES_JSON, (byte)1, 10));
-            providers.add(new StaticJsonProvider("remote:cached", FilePathManager.REMOTE_RECIPES_JSON, (byte)2, 20));
-            File user = new File(FilePathManager.DATA_DIR, "user_recipes.json");
-            providers.add(new StaticJsonProvider("user:overrides", user, (byte)3, 30));
+        rebuildProviders();
+        reload();
+        RecipeFileWatcher.start(FilePathManager.DATA_DIR.toPath(), RecipeRegistry::isProviderFile, RecipeRegistry::reloadChanged);
+        RemoteRecipeFetcher.fetchAsync();
+    }
+
+    /**
+     * Registers the bundled files, every source now in {@code remote_sources.json} and the user overrides, so
+     * sources added or removed since the last bootstrap are merged or dropped. A provider whose source is
+     * unchanged is kept with whatever it has already loaded.
+     */
+    private static void rebuildProviders() {
+        Map<String, RecipeProvider> previous = new HashMap<>();
+        for (RecipeProvider p : providers) previous.put(p.id(), p);
+        List<RecipeProvider> next = new ArrayList<>();
+        next.add(keep(previous, new StaticJsonProvider("static:forging", FilePathManager.FORGING_JSON, (byte)0, 10, true)));
+        next.add(keep(previous, new StaticJsonProvider("static:gemstone", FilePathManager.GEMSTONE_RECIPES_JSON, (byte)1, 10, true)));
+        // Equal priorities keep config order, so the earlier source wins a tie
+        for (RemoteRecipeFetcher.Source s : RemoteRecipeFetcher.sources()) {
+            if (s.neuZip()) {
+                next.add(keep(previous, new NeuIndexProvider(s.url(), FilePathManager.remoteNeuIndexFile(s.url()), (byte)2, s.priority())));
+            } else {
+                next.add(keep(previous, new StaticJsonProvider("remote:" + s.url(), FilePathManager.remoteRecipesFile(s.url()), (byte)2, s.priority(), true)));
+            }
         }
-        Map<String, Recipe> merged = mergeAll();
-        if (!merged.isEmpty()) {
-            publish(merged);
-            writeMergedToDisk(merged);
+        File user = new File(FilePathManager.DATA_DIR, "user_recipes.json");
+        next.add(keep(previous, new StaticJsonProvider("user:overrides", user, (byte)3, 30, false)));
+        PUBLISH_LOCK.lock();
+        try {
+            providers = List.copyOf(next);
+        } finally {
+            PUBLISH_LOCK.unlock();
         }
-        RemoteRecipeFetcher.fetchAsync();
+    }
+
+    // The registered provider for the same source, if its kind and priority are unchanged
+    private static RecipeProvider keep(Map<String, RecipeProvider> previous, RecipeProvider fresh) {
+        RecipeProvider old = previous.get(fresh.id());
+        return old != null && old.getClass() == fresh.getClass() && old.priority() == fresh.priority() ? old : fresh;
+    }
+
+    /** Names of the files the registered providers read, which a fetch must not delete as stale. */
+    static Set<String> providerFileNames() {
+        Set<String> names = new HashSet<>();
+        for (RecipeProvider p : providers) {
+            if (p instanceof StaticJsonProvider s) names.add(s.file.getName());
+            else if (p instanceof NeuIndexProvider n) names.add(n.indexFile.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Merges every provider again and publishes the result, from the compiled cache when its sources are unchanged.
+     * Does nothing if the provider files are exactly what the current recipes were built from.
+     */
+    static void reload() {
+        reload(Collections.emptySet());
+    }
+
+    // Files named in stale are parsed again even if their length and mtime look unchanged; null means all of them
+    private static void reload(Set<String> stale) {
+        PUBLISH_LOCK.lock();
+        try {
+            long key = sourceKey();
+            if (key != 0L && key == publishedKey) return;
+            for (RecipeProvider p : providers) {
+                if (p instanceof StaticJsonProvider s && (stale == null || stale.contains(s.file.getName()))) s.invalidate();
+            }
+            RecipeCache.Contents cached = RecipeCache.read(FilePathManager.COMPILED_RECIPES_CACHE, key);
+            if (cached != null && !cached.recipes().isEmpty()) {
+                sourceItemNames = cached.sourceItemNames();
+                publish(cached.recipes());
+                publishedKey = key;
+            } else {
+                Map<String, Recipe> merged = sanitize(mergeAll());
+                if (!merged.isEmpty()) {
+                    publish(merged);
+                    publishedKey = key;
+                    writeMergedToDisk(merged);
+                    RecipeCache.write(FilePathManager.COMPILED_RECIPES_CACHE, key, merged, sourceItemNames);
+                }
+            }
+        } finally {
+            PUBLISH_LOCK.unlock();
+        }
+    }
+
+    private static boolean isProviderFile(String name) {
+        for (RecipeProvider p : providers) {
+            if (p instanceof StaticJsonProvider s && s.file.getName().equals(name)) return true;
+        }
+        return false;
+    }
+
+    // Watcher callback, on its thread; null means events were lost and any file may have changed
+    private static void reloadChanged(Set<String> names) {
+        LOGGER.info("Recipe files changed ({}), reloading", names == null ? "unknown" : String.join(", ", names));
+        reload(names);
+    }
+
+    /**
+     * Registers a listener called with the new graph after every publish. It runs on the publishing thread
+     * (startup, a remote fetch or the file watcher), so listeners that touch UI state must hand off to the
+     * client thread themselves.
+     */
+    public static void addListener(Consumer<RecipeGraph> listener) {
+        if (listener != null) listeners.add(listener);
+    }
+
+    public static void removeListener(Consumer<RecipeGraph> listener) {
+        listeners.remove(listener);
     }
 
     public static Recipe get(String output) {
-        return byOutput.get(output);
+        return published.get().byOutput().get(output);
     }
 
     public static Map<String, Recipe> snapshot() {
-        return byOutput;
+        return published.get().byOutput();
+    }
+
+    /**
+     * Every output and ingredient name in the bundled and remote recipe files, as read by the last bootstrap.
+     * Used to seed the resource list without parsing the files again.
+     */
+    public static Set<String> sourceItemNames() {
+        return sourceItemNames;
+    }
+
+    /** The compiled form of {@link #snapshot()}; never null. */
+    public static RecipeGraph graph() {
+        return published.get().graph();
+    }
+
+    /**
+     * Raw-material totals for the current graph, or null until they have been built for it, which happens in the
+     * background after each publish. A publish can also land between this and {@link #graph()}; compare
+     * {@link BaseMaterialTable#graph()} when that matters.
+     */
+    public static BaseMaterialTable baseMaterials() {
+        return published.get().baseMaterials();
+    }
+
+    /**
+     * Hands a NEU source's freshly ingested fragments to its provider, so the next {@link #reload()} merges them
+     * without reading anything back from disk. Ignored if the source is not registered.
+     */
+    static void offerNeuIndex(String url, NeuIndex index) {
+        PUBLISH_LOCK.lock();
+        try {
+            for (RecipeProvider p : providers) {
+                if (p instanceof NeuIndexProvider n && n.url.equals(url)) n.offer(index);
+            }
+        } finally {
+            PUBLISH_LOCK.unlock();
+        }
+    }
+
+    // Key of every provider's source file and NEU content hash, or 0 (no caching) if some provider is neither
+    private static long sourceKey() {
+        List<File> files = new ArrayList<>();
+        long content = 1L;
+        for (RecipeProvider p : providers) {
+            if (p instanceof StaticJsonProvider s) {
+                files.add(s.file);
+            } else if (p instanceof NeuIndexProvider n) {
+                content = content * 31 + n.contentKey();
+            } else {
+                return 0L;
+            }
+        }
+        long key = RecipeCache.sourceKey(files);
+        if (key == 0L) return 0L;
+        key = key * 31 + content;
+        return key == 0L ? 1L : key;
     }
 
     private static void publish(Map<String, Recipe> merged) {
-        byOutput = Collections.unmodifiableMap(merged);
+        RecipeGraph compiled = RecipeGraph.compile(merged, ++graphVersion);
+        published.set(new Published(Collections.unmodifiableMap(merged), compiled, null));
+        LOGGER.info("Published {} recipes (graph v{})", merged.size(), compiled.version());
+        TABLE_BUILDER.execute(() -> buildBaseMaterials(compiled));
+        for (int i = 0; i < compiled.cycleCount(); i++) {
+            StringBuilder path = new StringBuilder();
+            for (int id : compiled.cycle(i)) {
+                if (path.length() > 0) path.append(" -> ");
+                path.append(ItemDictionary.getInstance().nameOf(id));
+            }
+            LOGGER.warn("Recipe cycle treated as raw material at its last step: {}", path);
+        }
+        for (Consumer<RecipeGraph> listener : listeners) {
+            try {
+                listener.accept(compiled);
+            } catch (Throwable t) {
+                LOGGER.error("Recipe publish listener failed", t);
+            }
+        }
+    }
+
+    // On TABLE_BUILDER, outside PUBLISH_LOCK; attaches the table only if compiled is still the published graph
+    private static void buildBaseMaterials(RecipeGraph compiled) {
+        if (published.get().graph() != compiled) return;
+        try {
+            File cache = FilePathManager.BASE_MATERIALS_CACHE;
+            BaseMaterialTable table = BaseMaterialTable.build(compiled, lastTable, cache);
+            lastTable = table;
+            Published current = published.get();
+            if (current.graph() == compiled) {
+                published.compareAndSet(current, new Published(current.byOutput(), compiled, table));
+            }
+            LOGGER.info("Built base materials for graph v{} ({} of {} vectors reused)",
+                    compiled.version(), table.reusedCount(), compiled.recipeCount());
+            if (BaseMaterialTable.cachedContentHash(cache) != table.contentHash()) table.writeCache(cache);
+        } catch (Throwable t) {
+            LOGGER.error("Building base materials failed", t);
+        }
     }
 
     private static Map<String, Recipe> mergeAll() {
@@ -67,10 +293,17 @@ public final class RecipeRegistry {
         sorted.sort(Comparator.comparingInt(RecipeProvider::priority).reversed());
         Map<String, Recipe> merged = new LinkedHashMap<>();
         Map<String, Integer> srcPrio = new HashMap<>();
+        Set<String> names = new LinkedHashSet<>();
         for (RecipeProvider p : sorted) {
             try {
                 Map<String, Recipe> m = p.load();
                 if (m == null || m.isEmpty()) continue;
+                if (p.seedsResources()) {
+                    for (Recipe r : m.values()) {
+                        names.add(r.output);
+                        Collections.addAll(names, r.ing);
+                    }
+                }
                 for (Map.Entry<String, Recipe> e : m.entrySet()) {
                     String key = e.getKey();
                     Recipe rec = e.getValue();
@@ -84,9 +317,58 @@ public final class RecipeRegistry {
                 LOGGER.warn("Provider {} failed: {}", p.id(), ex.toString());
             }
         }
+        sourceItemNames = Collections.unmodifiableSet(names);
         return merged;
     }
 
+    /**
+     * Drops malformed or zero-quantity ingredients, self-referential recipes, and the block-to-base reversals
+     * (e.g. Diamond from Block of Diamond) that would otherwise make base materials look craftable.
+     */
+    private static Map<String, Recipe> sanitize(Map<String, Recipe> input) {
+        Map<String, Recipe> out = new LinkedHashMap<>(input.size() * 2);
+        for (Map.Entry<String, Recipe> e : input.entrySet()) {
+            String output = e.getKey();
+            Recipe r = e.getValue();
+            String[] ing = new String[r.ing.length];
+            short[] cnt = new short[r.ing.length];
+            int n = 0;
+            boolean selfRef = false;
+            for (int i = 0; i < r.ing.length; i++) {
+                String name = r.ing[i];
+                if (NameCanonicalizer.isBlankOrNumeric(name) || r.cnt[i] <= 0) continue;
+                if (name.equalsIgnoreCase(output)) { selfRef = true; break; }
+                ing[n] = name;
+                cnt[n] = r.cnt[i];
+                n++;
+            }
+            if (selfRef) continue;
+            if (BASE_MATERIALS.contains(output) && containsBlockIngredientForBase(output, ing, n)) continue;
+            if (n == r.ing.length) {
+                out.put(output, r);
+            } else {
+                out.put(output, new Recipe(output, Arrays.copyOf(ing, n), Arrays.copyOf(cnt, n), r.category, r.sourcePriority));
+            }
+        }
+        return out;
+    }
+
+    private static boolean containsBlockIngredientForBase(String base, String[] ingredientNames, int count) {
+        String core = base;
+        if (base.endsWith(" Ingot")) {
+            core = base.substring(0, base.length() - " Ingot".length());
+        }
+        List<String> variants = new ArrayList<>();
+        variants.add("Block of " + core);
+        variants.add(core + " Block");
+        for (int i = 0; i < count; i++) {
+            for (String v : variants) {
+                if (v.equalsIgnoreCase(ingredientNames[i])) return true;
+            }
+        }
+        return false;
+    }
+
     private static void writeMergedToDisk(Map<String, Recipe> merged) {
         Map<String, Object> wire = new LinkedHashMap<>();
         for (Map.Entry<String, Recipe> e : merged.entrySet()) {
@@ -122,34 +404,75 @@ public final class RecipeRegistry {
         private final File file;
         private final byte category;
         private final int priority;
-        StaticJsonProvider(String id, File file, byte category, int priority) {
+        private final boolean seedsResources;
+        // Last parse and the file length/mtime it saw, so a reload only parses the providers whose file changed
+        private Map<String, Recipe> loaded;
+        private long loadedLength = -1L;
+        private long loadedModified = -1L;
+        StaticJsonProvider(String id, File file, byte category, int priority, boolean seedsResources) {
             this.id = id; this.file = file; this.category = category; this.priority = priority;
+            this.seedsResources = seedsResources;
         }
         public String id() { return id; }
         public int priority() { return priority; }
-        public Map<String, Recipe> load() throws Exception {
-            if (!file.exists() || file.length() == 0) return Collections.emptyMap();
-            try (FileReader fr = new FileReader(file, StandardCharsets.UTF_8)) {
-                java.lang.reflect.Type t = new TypeToken<Map<String, Map<String, Number>>>(){}.getType();
-                Map<String, Map<String, Number>> raw = GSON.fromJson(fr, t);
-                if (raw == null || raw.isEmpty()) return Collections.emptyMap();
-                Map<String, Recipe> out = new LinkedHashMap<>(raw.size());
-                for (Map.Entry<String, Map<String, Number>> e : raw.entrySet()) {
-                    String output = e.getKey();
-                    Map<String, Number> ingMap = e.getValue();
-                    if (ingMap == null || ingMap.isEmpty()) continue;
-                    String[] ing = new String[ingMap.size()];
-                    short[] cnt = new short[ingMap.size()];
-                    int i = 0;
-                    for (Map.Entry<String, Number> in : ingMap.entrySet()) {
-                        ing[i] = in.getKey();
-                        cnt[i] = in.getValue() == null ? 0 : (short)Math.min(Short.MAX_VALUE, in.getValue().intValue());
-                        i++;
-                    }
-                    out.put(output, new Recipe(output, ing, cnt, category, (byte)priority));
+        public boolean seedsResources() { return seedsResources; }
+        public synchronized Map<String, Recipe> load() throws Exception {
+            long length = file.length();
+            long modified = file.lastModified();
+            if (loaded == null || length != loadedLength || modified != loadedModified) {
+                loaded = RecipeFileReader.read(file, category, (byte)priority);
+                loadedLength = length;
+                loadedModified = modified;
+            }
+            return loaded;
+        }
+        // For edits that keep both length and mtime, which the watcher still reports
+        synchronized void invalidate() {
+            loaded = null;
+        }
+    }
+
+    /**
+     * A NEU ZIP source, read from the fragments in its {@link NeuIndex}: the stored index at startup, then
+     * whatever each fetch hands over through {@link #offerNeuIndex}.
+     */
+    static final class NeuIndexProvider implements RecipeProvider {
+        private final String url;
+        private final File indexFile;
+        private final byte category;
+        private final int priority;
+        // A handed-over index not yet merged; dropped once its recipes are built
+        private NeuIndex pending;
+        private Map<String, Recipe> loaded;
+        private long contentHash;
+        private boolean hashKnown;
+        NeuIndexProvider(String url, File indexFile, byte category, int priority) {
+            this.url = url; this.indexFile = indexFile; this.category = category; this.priority = priority;
+        }
+        public String id() { return "remote:" + url; }
+        public int priority() { return priority; }
+        public boolean seedsResources() { return true; }
+        public synchronized Map<String, Recipe> load() {
+            if (loaded == null) {
+                NeuIndex index = pending != null ? pending : NeuIndex.read(indexFile, url);
+                loaded = index.recipes(category, (byte)priority);
+                if (pending == null && !index.entries.isEmpty()) {
+                    contentHash = index.contentHash();
+                    hashKnown = true;
                 }
-                return out;
+                pending = null;
             }
+            return loaded;
+        }
+        // Without an index in memory, the stored header is read rather than the entries
+        synchronized long contentKey() {
+            return hashKnown ? contentHash : NeuIndex.readContentHash(indexFile, url);
+        }
+        synchronized void offer(NeuIndex fresh) {
+            pending = fresh;
+            loaded = null;
+            contentHash = fresh.contentHash();
+            hashKnown = true;
         }
     }
 }
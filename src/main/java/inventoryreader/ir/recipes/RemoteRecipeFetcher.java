@@ -1,9 +1,6 @@
 package inventoryreader.ir.recipes; // Uses data sourced from NotEnoughUpdates-REPO
 
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import inventoryreader.ir.FilePathManager;
 import org.slf4j.Logger;
@@ -22,79 +19,189 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class RemoteRecipeFetcher {
     private static final Logger LOGGER = LoggerFactory.getLogger("IR-RemoteRecipeFetcher");
     private static final Gson GSON = new Gson();
     private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(6)).build();
+    // Leave a core for the client; the ZIP is read on the fetch thread itself
+    private static final int PARSE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int PARSE_QUEUE = PARSE_THREADS * 64;
+    // Checksum slot of an entry whose data could not be read; no CRC-32 has this value
+    private static final long UNREAD = -1;
+    // Remote sources rank between the bundled files (10) and user overrides (30)
+    private static final int DEFAULT_PRIORITY = 20;
+    private static final int MIN_PRIORITY = 11;
+    private static final int MAX_PRIORITY = 29;
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+    // Sources finish concurrently; every meta update re-reads the file under this lock. Held across file I/O by
+    // virtual threads, so not a monitor, which would pin their carriers while others wait
+    private static final ReentrantLock META_LOCK = new ReentrantLock();
     private RemoteRecipeFetcher() {}
 
+    /** One entry of {@code remote_sources.json}. */
+    record Source(String type, String url, int priority, Duration timeout, boolean cache) {
+        boolean neuZip() {
+            return type.equals("neu-zip") || type.equals("neu_zip") || type.equals("neuzip");
+        }
+    }
+
+    private record Config(List<Source> sources, boolean progressive) {}
+
     public static void fetchAsync() {
-        CompletableFuture.runAsync(RemoteRecipeFetcher::runFetchSafe);
+        // One round at a time; startup and every bootstrap both ask for one
+        if (!RUNNING.compareAndSet(false, true)) return;
+        Thread.ofVirtual().name("IR-RemoteFetch").start(() -> {
+            try { runFetchSafe(); } finally { RUNNING.set(false); }
+        });
     }
 
     private static void runFetchSafe() {
         try { runFetch(); } catch (Throwable t) { LOGGER.warn("Remote fetch failed: {}", t.toString()); }
     }
 
+    /**
+     * Fetches every configured source at once, one virtual thread each. In the default {@code "merge": "first"}
+     * mode a source that brings new recipes is published as soon as it lands, so the first good result is usable
+     * while slower sources are still downloading, and later ones refine it through provider priorities. With
+     * {@code "merge": "all"} the round waits for every source and publishes once. A source's timeout bounds its
+     * whole fetch, body included: past it the task is interrupted, which aborts a stalled download, and the round
+     * goes on without waiting for the thread to wind down.
+     */
     private static void runFetch() throws Exception {
         File cfgFile = FilePathManager.REMOTE_SOURCES_JSON;
         if (!cfgFile.exists()) return;
-        List<Map<String, String>> sources = readSources(cfgFile);
-        if (sources.isEmpty()) return;
-
-        for (Map<String, String> s : sources) {
-            String type = String.valueOf(s.getOrDefault("type", "")).toLowerCase();
-            String url = s.get("url");
-            if (url == null || url.isBlank()) continue;
-            boolean done = false;
-            switch (type) {
-                case "recipes":
-                case "json":
-                    done = fetchDirectJson(url);
-                    break;
-                case "neu-zip":
-                case "neu_zip":
-                case "neuzip":
-                    done = fetchNeuZip(url);
-                    break;
-                default:
-                    break;
+        Config cfg = readConfig(cfgFile);
+        deleteStaleSnapshots(cfg.sources());
+        if (cfg.sources().isEmpty()) return;
+
+        ExecutorService exec = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("IR-RemoteFetch-", 0).factory());
+        try {
+            CompletionService<Boolean> done = new ExecutorCompletionService<>(exec);
+            // Deadline per task still running, and the source it fetches
+            Map<Future<Boolean>, Long> deadlines = new HashMap<>();
+            Map<Future<Boolean>, Source> sources = new HashMap<>();
+            long start = System.nanoTime();
+            for (Source s : cfg.sources()) {
+                Future<Boolean> f = done.submit(() -> fetch(s));
+                deadlines.put(f, start + s.timeout().toNanos());
+                sources.put(f, s);
             }
-            if (done) return; 
+            boolean pending = false;
+            while (!deadlines.isEmpty()) {
+                long next = Long.MAX_VALUE;
+                for (long d : deadlines.values()) next = Math.min(next, d);
+                Future<Boolean> f = done.poll(next - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (f == null) {
+                    // A cancelled task is only queued once its thread exits, so it is dropped here instead
+                    long now = System.nanoTime();
+                    for (Iterator<Map.Entry<Future<Boolean>, Long>> it = deadlines.entrySet().iterator(); it.hasNext(); ) {
+                        Map.Entry<Future<Boolean>, Long> e = it.next();
+                        if (e.getValue() - now > 0) continue;
+                        it.remove();
+                        e.getKey().cancel(true);
+                        Source s = sources.get(e.getKey());
+                        LOGGER.warn("Remote source {} timed out after {} s", s.url(), s.timeout().toSeconds());
+                    }
+                    continue;
+                }
+                deadlines.remove(f);
+                if (!succeeded(f)) continue;
+                if (cfg.progressive()) RecipeRegistry.reload();
+                else pending = true;
+            }
+            if (pending) RecipeRegistry.reload();
+        } finally {
+            // Interrupted stragglers finish on their own; the round, and RUNNING, do not wait for them
+            exec.shutdownNow();
         }
     }
 
-    private static boolean fetchDirectJson(String url) {
+    private static boolean succeeded(Future<Boolean> f) throws InterruptedException {
         try {
-            Map<String, String> meta = readMeta(FilePathManager.REMOTE_META_JSON);
+            return f.get();
+        } catch (ExecutionException | CancellationException e) {
+            return false;
+        }
+    }
+
+    /** True if the source's recipes changed and the registry needs a reload. */
+    private static boolean fetch(Source s) {
+        if (s.neuZip()) return fetchNeuZip(s);
+        switch (s.type()) {
+            case "recipes":
+            case "json":
+                return fetchDirectJson(s);
+            default:
+                LOGGER.warn("Unknown remote source type '{}' for {}", s.type(), s.url());
+                return false;
+        }
+    }
+
+    /**
+     * Drops the files of sources that are neither configured nor registered (NEU sources have no JSON snapshot).
+     * A source removed from the config stays registered until the next bootstrap, so its file is kept until then.
+     */
+    private static void deleteStaleSnapshots(List<Source> sources) {
+        Set<String> keep = new HashSet<>(RecipeRegistry.providerFileNames());
+        for (Source s : sources) {
+            keep.add(s.neuZip() ? FilePathManager.remoteNeuIndexFile(s.url()).getName() : FilePathManager.remoteRecipesFile(s.url()).getName());
+        }
+        File[] files = FilePathManager.DATA_DIR.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            String name = f.getName();
+            boolean remoteFile = (name.startsWith("recipes_remote.") && name.endsWith(".json"))
+                    || (name.startsWith("remote_neu_index.") && name.endsWith(".bin"));
+            if (remoteFile && !keep.contains(name) && !f.delete()) LOGGER.warn("Could not delete stale remote file {}", name);
+        }
+    }
+
+    private static boolean fetchDirectJson(Source s) {
+        String url = s.url();
+        File snapshot = FilePathManager.remoteRecipesFile(url);
+        try {
+            Map<String, String> meta = loadMeta();
             String etagKey = "etag::" + url;
             String etag = meta.getOrDefault(etagKey, "");
 
             HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
-                    .timeout(Duration.ofSeconds(15))
+                    .timeout(s.timeout())
                     .GET();
-            if (!etag.isEmpty()) b.header("If-None-Match", etag);
+            if (!etag.isEmpty() && snapshot.exists()) b.header("If-None-Match", etag);
             HttpResponse<String> resp = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            if (resp.statusCode() == 304) { LOGGER.info("Remote recipes not modified (ETag)"); return true; }
+            if (resp.statusCode() == 304) { LOGGER.info("Remote recipes not modified (ETag)"); return false; }
             if (resp.statusCode() / 100 != 2) { LOGGER.warn("Remote fetch HTTP {}", resp.statusCode()); return false; }
 
             String body = resp.body();
             if (body == null || body.isBlank()) return false;
-            java.lang.reflect.Type t = new TypeToken<Map<String, Object>>(){}.getType();
-            Map<String, Object> parsed = GSON.fromJson(body, t);
-            if (parsed == null || parsed.isEmpty()) { LOGGER.warn("Remote recipes JSON empty"); return false; }
-
-            writeRemoteSnapshot(parsed);
-
-            String newEtag = resp.headers().firstValue("etag").orElse("");
-            if (!newEtag.isEmpty()) { meta.put(etagKey, newEtag); writeMeta(FilePathManager.REMOTE_META_JSON, meta); }
+            // Validate with the same streaming reader the registry uses, then keep the body as fetched
+            if (RecipeFileReader.read(new java.io.StringReader(body), (byte)2, (byte)20).isEmpty()) {
+                LOGGER.warn("Remote recipes JSON empty");
+                return false;
+            }
 
-            RecipeRegistry.bootstrap();
+            writeRemoteSnapshot(snapshot, body);
+            saveMeta(etagKey, resp.headers().firstValue("etag").orElse(""));
             return true;
         } catch (Exception e) {
             LOGGER.warn("fetchDirectJson failed: {}", e.toString());
@@ -102,11 +209,25 @@ public final class RemoteRecipeFetcher {
         }
     }
 
-    private static boolean fetchNeuZip(String url) {
+    /**
+     * Ingests a NEU repository ZIP into the source's {@link NeuIndex} and hands the index to the registry, which
+     * builds the recipes from its fragments; no recipe JSON is written.
+     * With {@code cache} set the archive is kept under {@link FilePathManager#REMOTE_ZIP_CACHE_DIR}, named by its
+     * SHA-256, and read through {@link java.util.zip.ZipFile}; an unchanged source whose index went missing is
+     * then rebuilt from the cached copy instead of being downloaded again.
+     */
+    private static boolean fetchNeuZip(Source s) {
+        String url = s.url();
+        boolean cache = s.cache();
+        File indexFile = FilePathManager.remoteNeuIndexFile(url);
         try {
-            Map<String, String> meta = readMeta(FilePathManager.REMOTE_META_JSON);
+            Map<String, String> meta = loadMeta();
+            File cached = cache ? cachedArchive(meta, url) : null;
+            // An unchanged source can be skipped only if what it produced last time is still on disk
+            boolean canSkip = cache ? cached != null : indexFile.exists();
 
-            InputStream inputStream;
+            // Stays null while the source is unchanged
+            InputStream inputStream = null;
             String metaKey;
             String metaValToWrite = null;
 
@@ -115,113 +236,104 @@ public final class RemoteRecipeFetcher {
                 String scheme = u.getScheme();
                 if (scheme != null && scheme.equalsIgnoreCase("file")) {
                     java.io.File f = new java.io.File(u);
-                    if (!f.exists()) { LOGGER.warn("NEU ZIP file does not exist: {}", f.getAbsolutePath()); return false; }
+                    if (!f.exists() && cached == null) { LOGGER.warn("NEU ZIP file does not exist: {}", f.getAbsolutePath()); return false; }
                     metaKey = "mtime::" + f.getAbsolutePath();
                     String prev = meta.getOrDefault(metaKey, "");
                     String cur = Long.toString(f.lastModified());
-                    if (!prev.isEmpty() && prev.equals(cur)) { LOGGER.info("NEU ZIP file unchanged (mtime cache)"); return true; }
-                    inputStream = new java.io.FileInputStream(f);
-                    metaValToWrite = cur;
+                    if (!f.exists()) {
+                        LOGGER.info("NEU ZIP file missing, using cached archive");
+                    } else if (!prev.isEmpty() && prev.equals(cur) && canSkip) {
+                        LOGGER.info("NEU ZIP file unchanged (mtime cache)");
+                    } else {
+                        inputStream = new java.io.FileInputStream(f);
+                        metaValToWrite = cur;
+                    }
                 } else {
                     String etagKey = "etag::" + url;
                     String etag = meta.getOrDefault(etagKey, "");
                     HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
-                            .timeout(Duration.ofSeconds(30))
+                            .timeout(s.timeout())
                             .GET();
-                    if (!etag.isEmpty()) b.header("If-None-Match", etag);
+                    if (!etag.isEmpty() && canSkip) b.header("If-None-Match", etag);
                     HttpResponse<java.io.InputStream> resp = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofInputStream());
-                    if (resp.statusCode() == 304) { LOGGER.info("NEU ZIP not modified (ETag)"); return true; }
-                    if (resp.statusCode() / 100 != 2) { LOGGER.warn("NEU ZIP fetch HTTP {}", resp.statusCode()); return false; }
-                    inputStream = resp.body();
                     metaKey = etagKey;
-                    metaValToWrite = resp.headers().firstValue("etag").orElse("");
+                    if (resp.statusCode() == 304) {
+                        LOGGER.info("NEU ZIP not modified (ETag)");
+                    } else if (resp.statusCode() / 100 != 2) {
+                        LOGGER.warn("NEU ZIP fetch HTTP {}", resp.statusCode());
+                        return false;
+                    } else {
+                        inputStream = resp.body();
+                        metaValToWrite = resp.headers().firstValue("etag").orElse("");
+                    }
                 }
             } catch (IllegalArgumentException badUri) {
                 java.io.File f = new java.io.File(url);
-                if (!f.exists()) { LOGGER.warn("NEU ZIP path not found: {}", url); return false; }
+                if (!f.exists() && cached == null) { LOGGER.warn("NEU ZIP path not found: {}", url); return false; }
                 metaKey = "mtime::" + f.getAbsolutePath();
                 String prev = meta.getOrDefault(metaKey, "");
                 String cur = Long.toString(f.lastModified());
-                if (!prev.isEmpty() && prev.equals(cur)) { LOGGER.info("NEU ZIP file unchanged (mtime cache)"); return true; }
-                inputStream = new java.io.FileInputStream(f);
-                metaValToWrite = cur;
+                if (!f.exists()) {
+                    LOGGER.info("NEU ZIP path missing, using cached archive");
+                } else if (!prev.isEmpty() && prev.equals(cur) && canSkip) {
+                    LOGGER.info("NEU ZIP file unchanged (mtime cache)");
+                } else {
+                    inputStream = new java.io.FileInputStream(f);
+                    metaValToWrite = cur;
+                }
             }
 
-            java.util.zip.ZipInputStream zin = new java.util.zip.ZipInputStream(inputStream);
-            // First pass: collect recipes keyed by output internal name, and collect internal->display map
-            Map<String, Map<String, Integer>> outToIngInternal = new LinkedHashMap<>();
-            Map<String, String> internalToDisplay = new LinkedHashMap<>();
-
-            java.util.zip.ZipEntry ze;
-            byte[] buf = new byte[16 * 1024];
-            while ((ze = zin.getNextEntry()) != null) {
-                String name = ze.getName();
-                if (ze.isDirectory()) continue;
-                if (!isNeuItemsJsonEntry(name)) continue;
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream((int)Math.min(ze.getSize() > 0 ? ze.getSize() : 4096, 1_000_000));
-                int r;
-                while ((r = zin.read(buf)) > 0) baos.write(buf, 0, r);
-                String json = baos.toString(StandardCharsets.UTF_8);
-                try {
-                    JsonElement el = JsonParser.parseString(json);
-                    if (!el.isJsonObject()) continue;
-                    JsonObject obj = el.getAsJsonObject();
-                    String internal = optString(obj, "internalname");
-                    String display = stripMC(optString(obj, "displayname"));
-                    if (!internal.isEmpty()) {
-                        if (!display.isEmpty()) internalToDisplay.putIfAbsent(internal, display);
-                        JsonObject recipe = obj.has("recipe") && obj.get("recipe").isJsonObject() ? obj.getAsJsonObject("recipe") : null;
-                        if (recipe != null && !recipe.entrySet().isEmpty()) {
-                            Map<String, Integer> ing = outToIngInternal.computeIfAbsent(internal, k -> new LinkedHashMap<>());
-                            for (Map.Entry<String, JsonElement> e : recipe.entrySet()) {
-                                String v = e.getValue().isJsonPrimitive() ? e.getValue().getAsString() : "";
-                                if (v == null || v.isBlank()) continue;
-                                String item;
-                                int count = 1;
-                                int colon = v.lastIndexOf(':');
-                                if (colon > 0) {
-                                    item = v.substring(0, colon);
-                                    try { count = Integer.parseInt(v.substring(colon + 1)); } catch (NumberFormatException ignore) { count = 1; }
-                                } else {
-                                    item = v;
-                                }
-                                if (item.isBlank()) continue;
-                                ing.merge(item, count, Integer::sum);
-                            }
-                        }
-                    }
-                } catch (Exception ignore) {
+            File archive = null;
+            if (inputStream == null) {
+                if (cached == null || indexFile.exists()) return false;
+                LOGGER.info("Rebuilding NEU index from cached archive {}", cached.getName());
+                archive = cached;
+            } else if (cache) {
+                try (InputStream in = inputStream) {
+                    archive = storeArchive(in, url);
                 }
             }
-            try { zin.close(); } catch (Exception ignore) {}
-
-            if (outToIngInternal.isEmpty()) { LOGGER.warn("NEU ZIP contained no recipes"); return false; }
-
-            Map<String, Map<String, Integer>> wire = new LinkedHashMap<>(outToIngInternal.size());
-            for (Map.Entry<String, Map<String, Integer>> e : outToIngInternal.entrySet()) {
-                String outInternal = e.getKey();
-                String outDisplay = internalToDisplay.getOrDefault(outInternal, outInternal);
-                Map<String, Integer> ingDisplay = new LinkedHashMap<>();
-                for (Map.Entry<String, Integer> in : e.getValue().entrySet()) {
-                    String ingName = internalToDisplay.getOrDefault(in.getKey(), in.getKey());
-                    ingDisplay.put(ingName, in.getValue());
+
+            long start = System.nanoTime();
+            NeuIndex previous = NeuIndex.read(indexFile, url);
+            NeuIndex index = new NeuIndex(url);
+            List<NeuItemReader.Item> items;
+            int[] parsed = new int[1];
+            if (archive != null) {
+                try (java.util.zip.ZipFile zip = new java.util.zip.ZipFile(archive)) {
+                    items = parseItems(zip, previous, index, parsed);
                 }
-                wire.put(outDisplay, ingDisplay);
+            } else {
+                try (java.util.zip.ZipInputStream zin = new java.util.zip.ZipInputStream(inputStream)) {
+                    items = parseItems(zin, previous, index, parsed);
+                }
+            }
+            int removed = 0;
+            for (String name : previous.entries.keySet()) {
+                if (!index.entries.containsKey(name)) removed++;
+            }
+            LOGGER.info("NEU ZIP: {} item entries, {} parsed, {} unchanged, {} removed in {} ms", items.size(), parsed[0],
+                    items.size() - parsed[0], removed, (System.nanoTime() - start) / 1_000_000);
+            if (!previous.entries.isEmpty() && index.contentHash() == previous.contentHash()) {
+                // Archive changed outside the recipe fields (lore, NBT, other folders); the registry is already current
+                if (parsed[0] > 0 || removed > 0) index.write(indexFile);
+                saveMeta(metaKey, metaValToWrite);
+                return false;
             }
 
-            writeRemoteSnapshot(wire);
+            Map<String, Recipe> recipes = index.recipes((byte)2, (byte)s.priority());
+            if (recipes.isEmpty()) { LOGGER.warn("NEU ZIP contained no recipes"); return false; }
 
             java.util.Set<String> names = new java.util.LinkedHashSet<>();
-            names.addAll(wire.keySet());
-            for (java.util.Map<String, Integer> m : wire.values()) names.addAll(m.keySet());
-            inventoryreader.ir.FilePathManager.ensureResourceNames(names);
-
-            if (metaValToWrite != null && !metaValToWrite.isEmpty()) {
-                meta.put(metaKey, metaValToWrite);
-                writeMeta(FilePathManager.REMOTE_META_JSON, meta);
+            for (Recipe r : recipes.values()) {
+                names.add(r.output);
+                java.util.Collections.addAll(names, r.ing);
             }
+            inventoryreader.ir.FilePathManager.ensureResourceNames(names);
 
-            RecipeRegistry.bootstrap();
+            index.write(indexFile);
+            RecipeRegistry.offerNeuIndex(url, index);
+            saveMeta(metaKey, metaValToWrite);
             return true;
         } catch (Exception e) {
             LOGGER.warn("fetchNeuZip failed: {}", e.toString());
@@ -229,49 +341,255 @@ public final class RemoteRecipeFetcher {
         }
     }
 
+    private static void saveMeta(String key, String value) {
+        if (value == null || value.isEmpty()) return;
+        META_LOCK.lock();
+        try {
+            Map<String, String> meta = readMeta(FilePathManager.REMOTE_META_JSON);
+            meta.put(key, value);
+            writeMeta(FilePathManager.REMOTE_META_JSON, meta);
+        } finally {
+            META_LOCK.unlock();
+        }
+    }
+
+    // A consistent copy of the meta file; writers replace it under the same lock
+    private static Map<String, String> loadMeta() {
+        META_LOCK.lock();
+        try {
+            return readMeta(FilePathManager.REMOTE_META_JSON);
+        } finally {
+            META_LOCK.unlock();
+        }
+    }
+
+    /** The cached archive last stored for {@code url}, or null if there is none. */
+    private static File cachedArchive(Map<String, String> meta, String url) {
+        String hash = meta.get("zip::" + url);
+        if (hash == null || hash.isEmpty()) return null;
+        File f = new File(FilePathManager.REMOTE_ZIP_CACHE_DIR, hash + ".zip");
+        return f.isFile() ? f : null;
+    }
+
+    /**
+     * Copies the archive into the cache directory under its SHA-256, records it for {@code url} in the meta file
+     * and deletes the archive it replaces unless another source still points at it.
+     */
+    private static File storeArchive(InputStream in, String url) throws Exception {
+        File dir = FilePathManager.REMOTE_ZIP_CACHE_DIR;
+        if (!dir.exists() && !dir.mkdirs()) throw new java.io.IOException("Cannot create " + dir);
+        File tmp = File.createTempFile("download", ".tmp", dir);
+        java.security.MessageDigest sha = java.security.MessageDigest.getInstance("SHA-256");
+        try {
+            try (InputStream src = new java.security.DigestInputStream(in, sha)) {
+                Files.copy(src, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = java.util.HexFormat.of().formatHex(sha.digest());
+            File target = new File(dir, hash + ".zip");
+            // Two sources may share an archive, so storing, recording and evicting happen as one step
+            META_LOCK.lock();
+            try {
+                if (!target.exists()) {
+                    try {
+                        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    } catch (Exception e) {
+                        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Map<String, String> meta = readMeta(FilePathManager.REMOTE_META_JSON);
+                String old = meta.put("zip::" + url, hash);
+                writeMeta(FilePathManager.REMOTE_META_JSON, meta);
+                if (old != null && !old.equals(hash) && !meta.containsValue(old)) {
+                    File stale = new File(dir, old + ".zip");
+                    if (stale.exists() && !stale.delete()) LOGGER.warn("Could not delete old cached archive {}", stale.getName());
+                }
+            } finally {
+                META_LOCK.unlock();
+            }
+            return target;
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Like {@link #parseItems(java.util.zip.ZipInputStream, NeuIndex, NeuIndex, int[])}, but walks the central
+     * directory of an archive on disk: every entry's CRC-32 and size are known up front, so unchanged entries
+     * are never inflated, and changed ones are read by the parse tasks themselves.
+     */
+    static List<NeuItemReader.Item> parseItems(java.util.zip.ZipFile zip, NeuIndex previous, NeuIndex index,
+                                                        int[] parsed) throws Exception {
+        List<String> names = new ArrayList<>();
+        List<java.util.concurrent.Future<NeuItemReader.Item>> results = new ArrayList<>();
+        List<long[]> sums = new ArrayList<>();
+        ForkJoinPool pool = newParsePool();
+        try {
+            java.util.Enumeration<? extends java.util.zip.ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                java.util.zip.ZipEntry ze = entries.nextElement();
+                String name = ze.getName();
+                if (ze.isDirectory() || !isNeuItemsJsonEntry(name)) continue;
+                NeuIndex.Entry prev = previous.entries.get(name);
+                long[] sum = {ze.getCrc(), ze.getSize()};
+                names.add(name);
+                sums.add(sum);
+                if (prev != null && prev.crc() == ze.getCrc() && prev.size() == ze.getSize()) {
+                    results.add(java.util.concurrent.CompletableFuture.completedFuture(prev.item()));
+                    continue;
+                }
+                parsed[0]++;
+                results.add(pool.submit(() -> {
+                    // An unreadable entry counts as one that did not parse, but is kept out of the index so that
+                    // the next archive reads it again instead of reusing the null under its expected CRC
+                    try (InputStream in = zip.getInputStream(ze)) {
+                        return NeuItemReader.read(in.readAllBytes());
+                    } catch (java.io.IOException e) {
+                        LOGGER.warn("Could not read NEU entry {}: {}", name, e.toString());
+                        sum[0] = UNREAD;
+                        return null;
+                    }
+                }));
+            }
+            return collect(results, names, sums, index);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads item entries off the ZIP on this thread and returns them parsed, in entry order (null for entries
+     * that failed to parse). Entries whose CRC-32 and size match {@code previous} are taken from it; the rest
+     * are parsed on a fork-join pool, with at most {@link #PARSE_QUEUE} buffered ahead of the parsers. Every
+     * entry seen is recorded in {@code index}, and {@code parsed[0]} receives the number actually parsed.
+     */
+    static List<NeuItemReader.Item> parseItems(java.util.zip.ZipInputStream zin, NeuIndex previous, NeuIndex index,
+                                                        int[] parsed) throws Exception {
+        List<String> names = new ArrayList<>();
+        List<java.util.concurrent.Future<NeuItemReader.Item>> results = new ArrayList<>();
+        List<long[]> sums = new ArrayList<>();
+        java.util.concurrent.Semaphore queued = new java.util.concurrent.Semaphore(PARSE_QUEUE);
+        ForkJoinPool pool = newParsePool();
+        try {
+            java.util.zip.ZipEntry ze;
+            byte[] buf = new byte[16 * 1024];
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            while ((ze = zin.getNextEntry()) != null) {
+                String name = ze.getName();
+                if (ze.isDirectory() || !isNeuItemsJsonEntry(name)) continue;
+                NeuIndex.Entry prev = previous.entries.get(name);
+                // Local headers usually carry the CRC; then an unchanged entry is skipped without copying it out
+                if (prev != null && ze.getCrc() != -1 && prev.crc() == ze.getCrc() && prev.size() == ze.getSize()) {
+                    names.add(name);
+                    results.add(java.util.concurrent.CompletableFuture.completedFuture(prev.item()));
+                    sums.add(new long[] {prev.crc(), prev.size()});
+                    continue;
+                }
+                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream((int)Math.min(ze.getSize() > 0 ? ze.getSize() : 4096, 1_000_000));
+                int r;
+                while ((r = zin.read(buf)) > 0) baos.write(buf, 0, r);
+                byte[] json = baos.toByteArray();
+                crc.reset();
+                crc.update(json);
+                long sum = crc.getValue();
+                names.add(name);
+                sums.add(new long[] {sum, json.length});
+                if (prev != null && prev.crc() == sum && prev.size() == json.length) {
+                    results.add(java.util.concurrent.CompletableFuture.completedFuture(prev.item()));
+                    continue;
+                }
+                parsed[0]++;
+                queued.acquire();
+                results.add(pool.submit(() -> {
+                    try {
+                        return NeuItemReader.read(json);
+                    } finally {
+                        queued.release();
+                    }
+                }));
+            }
+            return collect(results, names, sums, index);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ForkJoinPool newParsePool() {
+        return new ForkJoinPool(PARSE_THREADS, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("IR-NeuParse-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    // Waits for the parses in entry order and records each entry in the index, except those that could not be read
+    private static List<NeuItemReader.Item> collect(List<java.util.concurrent.Future<NeuItemReader.Item>> results,
+                                                    List<String> names, List<long[]> sums, NeuIndex index) throws Exception {
+        List<NeuItemReader.Item> out = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            NeuItemReader.Item item = results.get(i).get();
+            out.add(item);
+            if (sums.get(i)[0] == UNREAD) continue;
+            index.entries.put(names.get(i), new NeuIndex.Entry(sums.get(i)[0], sums.get(i)[1], item));
+        }
+        return out;
+    }
+
     private static boolean isNeuItemsJsonEntry(String name) {
         if (name == null || !name.endsWith(".json")) return false;
         return name.startsWith("items/") || name.contains("/items/");
     }
 
-    private static void writeRemoteSnapshot(Map<String, ?> data) throws Exception {
-        File tmp = new File(FilePathManager.DATA_DIR, "recipes_remote.json.tmp");
+    private static void writeRemoteSnapshot(File target, String json) throws Exception {
+        File tmp = new File(target.getParentFile(), target.getName() + ".tmp");
         try (FileWriter fw = new FileWriter(tmp, StandardCharsets.UTF_8)) {
-            GSON.toJson(data, fw);
+            fw.write(json);
         }
         try {
-            Files.move(tmp.toPath(), FilePathManager.REMOTE_RECIPES_JSON.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (Exception e) {
-            Files.move(tmp.toPath(), FilePathManager.REMOTE_RECIPES_JSON.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
-    private static List<Map<String, String>> readSources(File f) {
+    /** The sources configured in {@code remote_sources.json}, in file order; empty if there is none. */
+    static List<Source> sources() {
+        File f = FilePathManager.REMOTE_SOURCES_JSON;
+        return f.exists() ? readConfig(f).sources() : List.of();
+    }
+
+    private static Config readConfig(File f) {
         try (FileReader fr = new FileReader(f, StandardCharsets.UTF_8)) {
             java.lang.reflect.Type t = new TypeToken<Map<String, Object>>(){}.getType();
             Map<String, Object> root = GSON.fromJson(fr, t);
             Object arr = root == null ? null : root.get("sources");
-            List<Map<String, String>> out = new ArrayList<>();
+            List<Source> out = new ArrayList<>();
             if (arr instanceof List<?>) {
                 for (Object o : (List<?>) arr) {
                     if (o instanceof Map<?, ?> m) {
-                        Map<String, String> entry = new LinkedHashMap<>();
                         Object type = m.get("type");
                         Object url = m.get("url");
-                        if (type != null && url != null) {
-                            entry.put("type", String.valueOf(type));
-                            entry.put("url", String.valueOf(url));
-                            out.add(entry);
-                        }
+                        if (type == null || url == null || String.valueOf(url).isBlank()) continue;
+                        String kind = String.valueOf(type).toLowerCase();
+                        boolean json = kind.equals("recipes") || kind.equals("json");
+                        int priority = (int) Math.max(MIN_PRIORITY, Math.min(MAX_PRIORITY, number(m.get("priority"), DEFAULT_PRIORITY)));
+                        long timeout = (long) Math.max(1, number(m.get("timeout"), json ? 15 : 30));
+                        boolean cache = Boolean.parseBoolean(String.valueOf(m.get("cache")));
+                        out.add(new Source(kind, String.valueOf(url), priority, Duration.ofSeconds(timeout), cache));
                     }
                 }
             }
-            return out;
+            boolean progressive = root == null || !"all".equalsIgnoreCase(String.valueOf(root.get("merge")));
+            return new Config(out, progressive);
         } catch (Exception e) {
-            return List.of();
+            return new Config(List.of(), true);
         }
     }
 
+    private static double number(Object v, double fallback) {
+        return v instanceof Number n ? n.doubleValue() : fallback;
+    }
+
     private static Map<String, String> readMeta(File f) {
         if (!f.exists()) return new LinkedHashMap<>();
         try (FileReader fr = new FileReader(f, StandardCharsets.UTF_8)) {
@@ -283,20 +601,12 @@ public final class RemoteRecipeFetcher {
         }
     }
 
+    // Through a temp file, so a reader never sees a truncated file and drops every ETag
     private static void writeMeta(File f, Map<String, String> meta) {
-        try (FileWriter fw = new FileWriter(f, StandardCharsets.UTF_8)) {
-            GSON.toJson(meta, fw);
-        } catch (Exception ignored) {}
-    }
-
-    private static String optString(JsonObject o, String k) {
-        if (o == null || k == null) return "";
-        JsonElement e = o.get(k);
-        return e == null || e.isJsonNull() ? "" : (e.isJsonPrimitive() ? e.getAsString() : e.toString());
-    }
-
-    private static String stripMC(String s) {
-        if (s == null) return "";
-        return s.replaceAll("§.", "").trim();
+        try {
+            writeRemoteSnapshot(f, GSON.toJson(meta));
+        } catch (Exception e) {
+            LOGGER.warn("Failed writing remote meta: {}", e.toString());
+        }
     }
 }
@@ -0,0 +1,158 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CraftableIndexTest {
+    // Added to every raw material before a legacy craft, so a shortfall shows up instead of being clamped at zero
+    private static final int RAW_OFFSET = 1_000_000;
+
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+
+    @Test
+    void entriesMatchTheLargestAmountTheRecursiveSolverCanCraft() {
+        Random random = new Random(17);
+        for (int round = 0; round < 150; round++) {
+            String prefix = "Craftable" + round;
+            Map<String, Map<String, Integer>> recipes = round % 2 == 0 ? randomTree(random, prefix) : randomDag(random, prefix);
+            RecipeGraph graph = RecipeFixtures.compile(recipes);
+            List<String> items = itemsOf(recipes);
+            Map<String, Integer> owned = randomStock(random, items);
+
+            CraftableIndex index = new CraftableIndex();
+            index.update(graph, TestSnapshots.of(owned), null);
+            assertEquals(bruteForce(recipes, owned), amounts(index), "round " + round);
+        }
+    }
+
+    @Test
+    void deltaUpdatesMatchAFullRefresh() {
+        Random random = new Random(23);
+        for (int round = 0; round < 40; round++) {
+            String prefix = "Delta" + round;
+            Map<String, Map<String, Integer>> recipes = round % 2 == 0 ? randomTree(random, prefix) : randomDag(random, prefix);
+            RecipeGraph graph = RecipeFixtures.compile(recipes);
+            List<String> items = itemsOf(recipes);
+            Map<String, Integer> owned = randomStock(random, items);
+
+            CraftableIndex incremental = new CraftableIndex();
+            long version = 1L;
+            incremental.update(graph, TestSnapshots.of(owned, version), null);
+            for (int step = 0; step < 10; step++) {
+                int[] changed = new int[1 + random.nextInt(2)];
+                for (int i = 0; i < changed.length; i++) {
+                    String item = items.get(random.nextInt(items.size()));
+                    owned.put(item, random.nextInt(40));
+                    changed[i] = dictionary.idOf(item);
+                }
+                changed = Arrays.stream(changed).sorted().distinct().toArray();
+                ResourceSnapshot snapshot = TestSnapshots.of(owned, ++version);
+                incremental.update(graph, snapshot, new ResourceChangeEvent(snapshot, false, changed, version - 1));
+
+                CraftableIndex full = new CraftableIndex();
+                full.update(graph, snapshot, null);
+                assertEquals(full.entries(), incremental.entries(), "round " + round + " step " + step);
+                assertTrue(incremental.searched() <= full.searched());
+            }
+        }
+    }
+
+    // Largest amount of every output the legacy recursive craft covers without running short of a raw material
+    private static Map<String, Long> bruteForce(Map<String, Map<String, Integer>> recipes, Map<String, Integer> owned) {
+        LegacyRecipeSolver legacy = new LegacyRecipeSolver(recipes);
+        List<String> raws = new ArrayList<>();
+        for (String item : itemsOf(recipes)) if (!recipes.containsKey(item)) raws.add(item);
+        Map<String, Integer> padded = new LinkedHashMap<>(owned);
+        for (String raw : raws) padded.merge(raw, RAW_OFFSET, Integer::sum);
+
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (String output : recipes.keySet()) {
+            long amount = 0;
+            while (covers(legacy.craft(output, (int) amount + 1, padded), raws)) amount++;
+            if (amount > 0) out.put(output, amount);
+        }
+        return out;
+    }
+
+    private static boolean covers(Map<String, Integer> after, List<String> raws) {
+        for (String raw : raws) {
+            if (after.getOrDefault(raw, 0) < RAW_OFFSET) return false;
+        }
+        return true;
+    }
+
+    private static Map<String, Long> amounts(CraftableIndex index) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (CraftableIndex.Entry entry : index.entries()) out.put(entry.name(), entry.amount());
+        return out;
+    }
+
+    private static List<String> itemsOf(Map<String, Map<String, Integer>> recipes) {
+        List<String> items = new ArrayList<>(recipes.keySet());
+        for (Map<String, Integer> r : recipes.values()) {
+            for (String ing : r.keySet()) if (!items.contains(ing)) items.add(ing);
+        }
+        return items;
+    }
+
+    private static Map<String, Map<String, Integer>> randomTree(Random random, String prefix) {
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        growTree(random, recipes, prefix, new int[] {0}, 0);
+        return recipes;
+    }
+
+    // Every item appears once: unique craftable and raw names below the root
+    private static void growTree(Random random, Map<String, Map<String, Integer>> recipes, String prefix, int[] next, int depth) {
+        String name = prefix + " " + next[0]++;
+        Map<String, Integer> recipe = new LinkedHashMap<>();
+        int width = 1 + random.nextInt(3);
+        for (int i = 0; i < width; i++) {
+            int quantity = 1 + random.nextInt(4);
+            if (depth < 3 && random.nextInt(3) != 0) {
+                recipe.put(prefix + " " + next[0], quantity);
+                growTree(random, recipes, prefix, next, depth + 1);
+            } else {
+                recipe.put(prefix + " Raw " + next[0]++, quantity);
+            }
+        }
+        recipes.put(name, recipe);
+    }
+
+    // Item i only uses items with a higher index, so the graph is acyclic; raw materials are shared freely
+    private static Map<String, Map<String, Integer>> randomDag(Random random, String prefix) {
+        int craftable = 3 + random.nextInt(8);
+        int raw = 1 + random.nextInt(4);
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        for (int i = 0; i < craftable; i++) {
+            Map<String, Integer> recipe = new LinkedHashMap<>();
+            int width = 1 + random.nextInt(3);
+            for (int k = 0; k < width; k++) {
+                int pick = i + 1 + random.nextInt(craftable - i - 1 + raw);
+                String ing = pick < craftable ? prefix + " " + pick : prefix + " Raw " + (pick - craftable);
+                recipe.put(ing, 1 + random.nextInt(3));
+            }
+            recipes.put(prefix + " " + i, recipe);
+        }
+        return recipes;
+    }
+
+    // Raw materials get enough that most outputs can be made a few times
+    private static Map<String, Integer> randomStock(Random random, List<String> items) {
+        Map<String, Integer> owned = new LinkedHashMap<>();
+        for (String item : items) {
+            if (random.nextInt(3) != 0) owned.put(item, random.nextInt(item.contains(" Raw ") ? 200 : 10));
+        }
+        return owned;
+    }
+}
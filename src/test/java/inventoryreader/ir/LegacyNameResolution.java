@@ -0,0 +1,32 @@
+package inventoryreader.ir;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The string path {@link NameCanonicalizer} replaced, kept verbatim as the reference for equivalence tests and
+ * as the baseline of {@code NameCanonicalizerBenchmark}.
+ */
+final class LegacyNameResolution {
+    private LegacyNameResolution() {}
+
+    static int resolve(ItemDictionary dictionary, IntPredicate isTracked, String rawName) {
+        if (rawName == null) return -1;
+        String item = rawName.replace("✪", "").replace("➊", "").replace("➋", "").replace("➌", "").replace("➍", "").replace("➎", "");
+        int id = dictionary.idOf(item);
+        if (id >= 0 && isTracked.test(id)) return id;
+        String[] itemSplit = item.split(" ");
+        if (itemSplit.length > 1) {
+            String itemRefined = String.join(" ", Arrays.copyOfRange(itemSplit, 1, itemSplit.length));
+            if (!itemRefined.trim().matches("\\d+")) {
+                int refinedId = dictionary.idOf(itemRefined);
+                if (refinedId >= 0 && isTracked.test(refinedId)) return refinedId;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isBlankOrNumeric(String k) {
+        return k == null || k.trim().isEmpty() || k.trim().matches("\\d+");
+    }
+}
@@ -0,0 +1,226 @@
+package inventoryreader.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recursive, name-based solver {@link RecipeSolver} replaced, kept verbatim as the reference for equivalence
+ * tests and as the baseline of {@code RequirementTreeBenchmark}. Walks every occurrence of a shared sub-recipe
+ * separately, so it is exponential in the depth of diamond-shaped recipes.
+ */
+final class LegacyRecipeSolver {
+    private final Map<String, Map<String, Integer>> forging;
+
+    LegacyRecipeSolver(Map<String, Map<String, Integer>> recipes) {
+        this.forging = recipes;
+    }
+
+    ResourcesManager.RemainingResponse getRemainingIngredients(String name, int amt, Map<String, Integer> resources) {
+        Map<String, Integer> highestPossibleResources = new LinkedHashMap<>(resources);
+        Map<String, Integer> currentAvailableResources = new LinkedHashMap<>(highestPossibleResources);
+        Map<String, Integer> messages = new LinkedHashMap<>();
+
+        initializeResourceMaps(name, forging, highestPossibleResources, currentAvailableResources);
+
+        int old = highestPossibleResources.getOrDefault(name, 0);
+        buildRecipe(name, amt, forging, highestPossibleResources, currentAvailableResources, messages);
+        int updated = highestPossibleResources.getOrDefault(name, 0);
+
+        RecipeManager.RecipeNode fullRecipe;
+        if (updated - old >= amt) {
+            fullRecipe = expandRequiredRecipe(name, (updated-old)-amt, forging, highestPossibleResources);
+        } else {
+            fullRecipe = expandRequiredRecipe(name, amt-(updated-old), forging, highestPossibleResources);
+        }
+        return new ResourcesManager.RemainingResponse(name, fullRecipe, messages);
+    }
+
+    Map<String, Integer> craft(String name, int amt, Map<String, Integer> resources) {
+        Map<String, Integer> myResources = new LinkedHashMap<>(resources);
+        myResources.put(name, myResources.getOrDefault(name, 0) + amt);
+        for (Map.Entry<String, Integer> entry : forging.get(name).entrySet()) {
+            craftItem(entry.getKey(), entry.getValue() * amt, forging, myResources);
+        }
+        return myResources;
+    }
+
+    private void buildRecipe(String currentItem, int multiplier, Map<String, Map<String, Integer>> forging, 
+                            Map<String, Integer> highestPossibleResources, Map<String, Integer> currentAvailableResources, 
+                            Map<String, Integer> messages) {
+        Map<String, Integer> recipe = forging.get(currentItem);
+        Map<String, Integer> madeResources = new LinkedHashMap<>();
+        if (recipe == null) return;
+        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
+            String item = entry.getKey();
+            int quantity = entry.getValue();
+            if (forging.containsKey(item)) {
+                int need = Math.max(0, (quantity * multiplier) - currentAvailableResources.getOrDefault(item, 0));
+                if (need > 0) {
+                    buildRecipe(item, need, forging, highestPossibleResources, currentAvailableResources, messages);
+                    madeResources.put(item, currentAvailableResources.getOrDefault(item, 0));
+                    currentAvailableResources.put(item, 0);
+                }else{
+                    madeResources.put(item, quantity * multiplier);
+                    currentAvailableResources.put(item, currentAvailableResources.getOrDefault(item, 0) - quantity * multiplier);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> entry : madeResources.entrySet()) {
+            String item = entry.getKey();
+            int quantity = entry.getValue();
+            if (quantity > 0) {
+                currentAvailableResources.put(item, 
+                        currentAvailableResources.getOrDefault(item, 0) + quantity);
+            }
+        }
+        check(currentItem, multiplier, forging, highestPossibleResources, currentAvailableResources, messages);
+    }
+
+    private void check(String currentItem, int multiplier, Map<String, Map<String, Integer>> forging, 
+                       Map<String, Integer> highestPossibleResources, Map<String, Integer> currentAvailableResources, 
+                       Map<String, Integer> messages) {
+        Map<String, Integer> recipe = forging.get(currentItem);
+        if (recipe == null) return;
+        
+        List<Integer> count = new ArrayList<>();
+        Map<String, Integer> possibleItemsDict = new LinkedHashMap<>();
+        
+        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
+            String baseItem = entry.getKey();
+            int quantityOfBaseItem = entry.getValue();
+            int possibleItems = currentAvailableResources.getOrDefault(baseItem, 0) / quantityOfBaseItem;
+            possibleItemsDict.put(baseItem, possibleItems);
+            count.add(multiplier - possibleItems);
+        }
+        
+        int maxcount = count.stream().mapToInt(i -> i).max().orElse(0);
+        maxcount = Math.max(maxcount, 0); // If maxcount <= 0, we have enough resources
+        
+        int amountAbleToCraft = multiplier - maxcount;
+        
+        highestPossibleResources.put(currentItem, 
+                                    highestPossibleResources.getOrDefault(currentItem, 0) + amountAbleToCraft);
+        currentAvailableResources.put(currentItem, 
+                                     currentAvailableResources.getOrDefault(currentItem, 0) + amountAbleToCraft);
+        
+        if (amountAbleToCraft > 0) {
+            messages.put(currentItem, 
+                          messages.getOrDefault(currentItem, 0) + amountAbleToCraft);
+        }
+        
+        allocate(currentItem, multiplier, maxcount, possibleItemsDict, forging, 
+                highestPossibleResources, currentAvailableResources);
+    }
+
+    private void allocate(String currentItem, int multiplier, int maxcount, Map<String, Integer> possibleItemsDict,
+                          Map<String, Map<String, Integer>> forging, Map<String, Integer> highestPossibleResources, 
+                          Map<String, Integer> currentAvailableResources) {
+        Map<String, Integer> recipe = forging.get(currentItem);
+        if (recipe == null) return;
+        
+        int amountAbleToCraftOfHigherMaterial = multiplier - maxcount;
+
+        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
+            String baseItem = entry.getKey();
+            int quantityOfBaseItem = entry.getValue();
+            highestPossibleResources.put(baseItem, 
+                   highestPossibleResources.getOrDefault(baseItem, 0) - 
+                   quantityOfBaseItem * amountAbleToCraftOfHigherMaterial);
+        }
+
+        if (multiplier != 0) {
+            for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
+                String baseItem = entry.getKey();
+                int quantityOfBaseItem = entry.getValue();
+                int possibleItems = possibleItemsDict.getOrDefault(baseItem, 0);
+                int amountLeftToAllocate = Math.min(multiplier, possibleItems);
+                currentAvailableResources.put(baseItem, 
+                       currentAvailableResources.getOrDefault(baseItem, 0) - 
+                       quantityOfBaseItem * amountLeftToAllocate);
+            }
+        }
+    }
+
+    private RecipeManager.RecipeNode expandRequiredRecipe(String currentName, int multiplier, Map<String, Map<String, Integer>> forging, Map<String, Integer> highestPossibleResources) {
+        if (!forging.containsKey(currentName)) {
+            int have = highestPossibleResources.getOrDefault(currentName, 0);
+            if (have < multiplier) {
+                int temp = have;
+                highestPossibleResources.put(currentName, 0);
+                return new RecipeManager.RecipeNode(currentName, multiplier - temp, Collections.emptyList());
+            } else {
+                highestPossibleResources.put(currentName, have - multiplier);
+                return new RecipeManager.RecipeNode(currentName, 0, Collections.emptyList());
+            }
+        } else {
+            List<RecipeManager.RecipeNode> ingredients = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : forging.get(currentName).entrySet()) {
+                String item = entry.getKey();
+                int qty = entry.getValue();
+                if (forging.containsKey(item)) {
+                    if (highestPossibleResources.getOrDefault(item, 0) < qty * multiplier) {
+                        RecipeManager.RecipeNode expanded = expandRequiredRecipe(item, 
+                                             (qty * multiplier) - highestPossibleResources.getOrDefault(item, 0), 
+                                             forging, highestPossibleResources);
+                        ingredients.add(expanded);
+                        highestPossibleResources.put(item, 0);
+                    } else {
+                        highestPossibleResources.put(item, highestPossibleResources.getOrDefault(item, 0) - qty * multiplier);
+                        RecipeManager.RecipeNode expanded = expandRequiredRecipe(item, 0, forging, highestPossibleResources);
+                        ingredients.add(expanded);
+                    }
+                } else {
+                    if (highestPossibleResources.getOrDefault(item, 0) < qty * multiplier) {
+                        RecipeManager.RecipeNode expanded = expandRequiredRecipe(item, qty * multiplier, forging, highestPossibleResources);
+                        ingredients.add(expanded);
+                    } else {
+                        highestPossibleResources.put(item, highestPossibleResources.getOrDefault(item, 0) - qty * multiplier);
+                        RecipeManager.RecipeNode expanded = expandRequiredRecipe(item, 0, forging, highestPossibleResources);
+                        ingredients.add(expanded);
+                    }
+                }
+            }
+            return new RecipeManager.RecipeNode(currentName, multiplier, ingredients);
+        }
+    }
+
+    private void initializeResourceMaps(String targetItem, Map<String, Map<String, Integer>> forging, 
+                                       Map<String, Integer> highestPossibleResources,
+                                       Map<String, Integer> currentAvailableResources) {
+        highestPossibleResources.putIfAbsent(targetItem, 0);
+        currentAvailableResources.putIfAbsent(targetItem, 0);
+        
+        if (forging.containsKey(targetItem)) {
+            Map<String, Integer> recipe = forging.get(targetItem);
+            for (String ingredient : recipe.keySet()) {
+                highestPossibleResources.putIfAbsent(ingredient, 0);
+                currentAvailableResources.putIfAbsent(ingredient, 0);
+                
+                if (forging.containsKey(ingredient)) {
+                    initializeResourceMaps(ingredient, forging, highestPossibleResources, currentAvailableResources);
+                }
+            }
+        }
+    }
+
+    private void craftItem(String currentItem, int multiplier, Map<String, Map<String, Integer>> forging, Map<String, Integer> myResources) {
+        if (forging.containsKey(currentItem)) {
+            int available = myResources.getOrDefault(currentItem, 0);
+            if (available < multiplier) {
+                int remaining = multiplier - available;
+                myResources.put(currentItem, 0);
+                for (Map.Entry<String, Integer> entry : forging.get(currentItem).entrySet()) {
+                    craftItem(entry.getKey(), entry.getValue() * remaining, forging, myResources);
+                }
+            } else {
+                myResources.put(currentItem, available - multiplier);
+            }
+        } else {
+            int current = myResources.getOrDefault(currentItem, 0);
+            myResources.put(currentItem, Math.max(0, current - multiplier));
+        }
+    }
+}
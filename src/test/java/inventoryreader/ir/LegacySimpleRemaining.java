@@ -0,0 +1,50 @@
+package inventoryreader.ir;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The name-based walk {@link RecipeSolver#needed} replaced, kept as the reference for tests and as the baseline
+ * of {@code SimpleRemainingBenchmark}. {@link #getAllRecipes()} copies the recipe map the way
+ * {@code RecipeManager.getAllRecipes()} used to, three times per recipe visited.
+ */
+final class LegacySimpleRemaining {
+    private final Map<String, Map<String, Integer>> recipes;
+
+    LegacySimpleRemaining(Map<String, Map<String, Integer>> recipes) {
+        this.recipes = recipes;
+    }
+
+    Map<String, Integer> getSimpleRemainingIngredients(String name, int amt, Map<String, Integer> resources) {
+        Map<String, Integer> needed = new LinkedHashMap<>();
+        calculateNeeded(name, amt, resources, needed);
+        return needed;
+    }
+
+    private Map<String, Map<String, Integer>> getAllRecipes() {
+        return new LinkedHashMap<>(recipes);
+    }
+
+    private void calculateNeeded(String name, int amt, Map<String, Integer> resources, Map<String, Integer> needed) {
+        if (!getAllRecipes().containsKey(name)) {
+            int have = resources.getOrDefault(name, 0);
+            if (have < amt) {
+                needed.put(name, amt - have);
+            }
+            return;
+        }
+        Map<String, Integer> recipe = getAllRecipes().get(name);
+        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
+            String ingredient = entry.getKey();
+            int required = entry.getValue() * amt;
+            int have = resources.getOrDefault(ingredient, 0);
+            if (getAllRecipes().containsKey(ingredient)) {
+                calculateNeeded(ingredient, required, resources, needed);
+            } else {
+                if (have < required) {
+                    needed.put(ingredient, needed.getOrDefault(ingredient, 0) + (required - have));
+                }
+            }
+        }
+    }
+}
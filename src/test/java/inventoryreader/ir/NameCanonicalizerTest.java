@@ -0,0 +1,96 @@
+package inventoryreader.ir;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NameCanonicalizerTest {
+    private static final String[] TRACKED = {
+        "Mithril", "Titanium", "Enchanted Mithril", "Refined Mithril", "Fine Jade Gemstone", "Flawless Ruby Gemstone",
+        "Drill Engine", "Gemstone Drill", "Treasurite", "Glacite Jewel", "7", "Ruby Drill TX-15"
+    };
+    private static final String[] RAW = {
+        "Mithril", "Enchanted Mithril", "✪✪Enchanted Mithril", "Refined Mithril➊", "Perfect Fine Jade Gemstone",
+        "Fine Jade Gemstone ", "Hot Drill Engine✪✪✪➋", "x Mithril", "x  Mithril", " Mithril", "Mithril ", "Gemstone Drill",
+        "Sturdy Gemstone Drill➎", "Lucky 7", "Lucky  7", "64", " 64 ", "Stack 64", "", " ", "   ", "✪", "Unknown Thing",
+        "Ruby Drill TX-15", "✪Reforged Ruby Drill TX-15", "a\tTitanium", "Glacite Jewel\t", "Treasurite✪ ✪"
+    };
+    private static final char[] ALPHABET = {'a', 'M', ' ', ' ', '✪', '➊', '➌', '➎', '7', '4', '\t', '-'};
+
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+    private final BitSet tracked = new BitSet();
+
+    NameCanonicalizerTest() {
+        for (String name : TRACKED) tracked.set(dictionary.intern(name));
+    }
+
+    @Test
+    void resolvesLikeTheLegacyStringPath() {
+        NameCanonicalizer canonicalizer = new NameCanonicalizer(dictionary, tracked::get);
+        for (String raw : RAW) {
+            int expected = LegacyNameResolution.resolve(dictionary, tracked::get, raw);
+            assertEquals(expected, canonicalizer.resolve(raw), "'" + raw + "'");
+            // Second lookup comes from the memo
+            assertEquals(expected, canonicalizer.resolve(raw), "cached '" + raw + "'");
+            int rawId = dictionary.intern(raw);
+            assertEquals(expected, canonicalizer.resolve(rawId), "by ID '" + raw + "'");
+        }
+    }
+
+    @Test
+    void randomizedNamesResolveLikeTheLegacyStringPath() {
+        Random random = new Random(42);
+        NameCanonicalizer canonicalizer = new NameCanonicalizer(dictionary, tracked::get, 64);
+        for (int i = 0; i < 20_000; i++) {
+            String raw = randomName(random);
+            assertEquals(LegacyNameResolution.resolve(dictionary, tracked::get, raw), canonicalizer.resolve(raw), "'" + raw + "'");
+        }
+    }
+
+    @Test
+    void helpersMatchTheirStringEquivalents() {
+        Random random = new Random(7);
+        List<String> inputs = new ArrayList<>(List.of(RAW));
+        for (int i = 0; i < 20_000; i++) inputs.add(randomName(random));
+        for (String s : inputs) {
+            String stripped = s.replace("✪", "").replace("➊", "").replace("➋", "").replace("➌", "").replace("➍", "").replace("➎", "");
+            assertEquals(stripped, NameCanonicalizer.stripGlyphs(s), "strip '" + s + "'");
+            assertEquals(LegacyNameResolution.isBlankOrNumeric(s), NameCanonicalizer.isBlankOrNumeric(s), "numeric '" + s + "'");
+            String[] split = s.split(" ");
+            String joined = split.length > 1 ? String.join(" ", java.util.Arrays.copyOfRange(split, 1, split.length)) : null;
+            assertEquals(joined, NameCanonicalizer.dropLeadingWord(s), "drop '" + s + "'");
+        }
+        assertNull(NameCanonicalizer.dropLeadingWord("Mithril"));
+    }
+
+    @Test
+    void invalidatePicksUpNewlyTrackedResources() {
+        BitSet known = new BitSet();
+        NameCanonicalizer canonicalizer = new NameCanonicalizer(dictionary, known::get);
+        int jade = dictionary.intern("Rough Jade Gemstone");
+        assertEquals(NameCanonicalizer.NONE, canonicalizer.resolve("Perfect Rough Jade Gemstone"));
+        known.set(jade);
+        // Misses are memoized until the owner invalidates
+        assertEquals(NameCanonicalizer.NONE, canonicalizer.resolve("Perfect Rough Jade Gemstone"));
+        canonicalizer.invalidate();
+        assertEquals(jade, canonicalizer.resolve("Perfect Rough Jade Gemstone"));
+        assertEquals(jade, canonicalizer.resolve(dictionary.intern("Perfect Rough Jade Gemstone")));
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextInt(3) == 0) sb.append(ALPHABET[random.nextInt(ALPHABET.length)]).append(' ');
+        if (random.nextBoolean()) {
+            sb.append(TRACKED[random.nextInt(TRACKED.length)]);
+        }
+        int extra = random.nextInt(4);
+        for (int i = 0; i < extra; i++) sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanMemoTest {
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+
+    @Test
+    void unchangedPlansKeepReusingTheRecordedTree() {
+        RecipeGraph graph = RecipeFixtures.compile(RecipeFixtures.chain("Memo", 8, 8));
+        RecipeSolver.PlanMemo memo = new RecipeSolver.PlanMemo(graph);
+        int target = dictionary.intern("Memo Tier 0");
+        Map<String, Integer> owned = Map.of("Memo Ore 1", 50);
+
+        RecipeManager.RecipeNode first = plan(graph, memo, target, owned);
+        // Eight tiers, once in the crafting walk and once in the tree walk
+        assertEquals(16, memo.evaluatedNodes);
+        // A whole-plan hit must leave the plan recorded, so the hit after it is a hit too
+        for (int i = 0; i < 3; i++) {
+            assertSame(first, plan(graph, memo, target, owned));
+            assertEquals(1, memo.reusedSubtrees);
+            assertEquals(0, memo.evaluatedNodes);
+        }
+    }
+
+    @Test
+    void aChangeOnlyReEvaluatesTheNodesAboveIt() {
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        Map<String, Integer> root = new LinkedHashMap<>();
+        root.put("Split Left", 2);
+        root.put("Split Right", 3);
+        recipes.put("Split Root", root);
+        recipes.put("Split Left", Map.of("Split Amber", 4));
+        recipes.put("Split Right", Map.of("Split Jade", 5));
+        RecipeGraph graph = RecipeFixtures.compile(recipes);
+        RecipeSolver.PlanMemo memo = new RecipeSolver.PlanMemo(graph);
+        int target = dictionary.intern("Split Root");
+
+        RecipeManager.RecipeNode before = plan(graph, memo, target, Map.of("Split Jade", 10));
+        assertEquals(6, memo.evaluatedNodes);
+        RecipeManager.RecipeNode after = plan(graph, memo, target, Map.of("Split Jade", 11));
+        assertNotSame(before, after);
+        assertSame(before.ingredients.get(0), after.ingredients.get(0));
+        assertNotSame(before.ingredients.get(1), after.ingredients.get(1));
+        // Root and Right are above Jade and walked in both passes; Left is replayed in both
+        assertEquals(4, memo.evaluatedNodes);
+        assertEquals(2, memo.reusedSubtrees);
+        assertEquals(15 - 11, after.ingredients.get(1).ingredients.get(0).amount);
+    }
+
+    @Test
+    void aChangeDeepInADiamondLeavesTheOtherBranchesReplayed() {
+        RecipeGraph graph = RecipeFixtures.compile(RecipeFixtures.diamond("Deep", 30, 0));
+        RecipeSolver.PlanMemo memo = new RecipeSolver.PlanMemo(graph);
+        int target = dictionary.intern("Deep Part 0");
+        Map<String, Integer> owned = new LinkedHashMap<>();
+        owned.put("Deep Core", Integer.MAX_VALUE);
+        owned.put("Deep Dust", Integer.MAX_VALUE);
+        owned.put("Deep Shard", Integer.MAX_VALUE);
+        owned.put("Deep Left 2", 0);
+
+        plan(graph, memo, target, owned);
+        int first = memo.evaluatedNodes;
+        owned.put("Deep Left 2", 1);
+        plan(graph, memo, target, owned);
+        // Left 2 and the seven items above it, in both walks, and the few siblings that now see other stock
+        assertTrue(memo.evaluatedNodes < 3 * 8, memo.evaluatedNodes + " of " + first);
+        assertTrue(memo.reusedSubtrees > 0);
+    }
+
+    @Test
+    void replanningMatchesAFreshPlan() {
+        Random random = new Random(59);
+        for (int round = 0; round < 60; round++) {
+            String prefix = "Replan" + round;
+            Map<String, Map<String, Integer>> recipes = randomDag(random, prefix);
+            RecipeGraph graph = RecipeFixtures.compile(recipes);
+            List<String> items = new ArrayList<>(recipes.keySet());
+            for (Map<String, Integer> r : recipes.values()) {
+                for (String ing : r.keySet()) if (!items.contains(ing)) items.add(ing);
+            }
+            RecipeSolver.PlanMemo memo = new RecipeSolver.PlanMemo(graph);
+            int target = dictionary.intern(prefix + " 0");
+            Map<String, Integer> owned = new LinkedHashMap<>();
+            for (int step = 0; step < 12; step++) {
+                owned.put(items.get(random.nextInt(items.size())), random.nextInt(40));
+                int amt = 1 + random.nextInt(3);
+                ResourcesManager.RemainingResponse kept =
+                        new RecipeSolver(graph).remaining(target, amt, TestSnapshots.counts(owned), memo);
+                ResourcesManager.RemainingResponse fresh =
+                        new RecipeSolver(graph).remaining(target, amt, TestSnapshots.counts(owned));
+                assertEquals(fresh.messages, kept.messages, "messages, round " + round + " step " + step);
+                assertEquals(describe(fresh.full_recipe), describe(kept.full_recipe), "tree, round " + round + " step " + step);
+            }
+        }
+    }
+
+    private static RecipeManager.RecipeNode plan(RecipeGraph graph, RecipeSolver.PlanMemo memo, int target,
+                                                 Map<String, Integer> owned) {
+        return new RecipeSolver(graph).remaining(target, 1, TestSnapshots.counts(owned), memo).full_recipe;
+    }
+
+    // Item i only uses items with a higher index, so the graph is acyclic
+    private static Map<String, Map<String, Integer>> randomDag(Random random, String prefix) {
+        int craftable = 3 + random.nextInt(8);
+        int raw = 1 + random.nextInt(4);
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        for (int i = 0; i < craftable; i++) {
+            Map<String, Integer> recipe = new LinkedHashMap<>();
+            int width = 1 + random.nextInt(3);
+            for (int k = 0; k < width; k++) {
+                int pick = i + 1 + random.nextInt(craftable - i - 1 + raw);
+                String ing = pick < craftable ? prefix + " " + pick : prefix + " Raw " + (pick - craftable);
+                recipe.put(ing, 1 + random.nextInt(3));
+            }
+            recipes.put(prefix + " " + i, recipe);
+        }
+        return recipes;
+    }
+
+    private static String describe(RecipeManager.RecipeNode node) {
+        StringBuilder sb = new StringBuilder();
+        describe(node, sb);
+        return sb.toString();
+    }
+
+    private static void describe(RecipeManager.RecipeNode node, StringBuilder sb) {
+        sb.append(node.name).append('=').append(node.amount);
+        if (node.ingredients.isEmpty()) return;
+        sb.append('(');
+        for (RecipeManager.RecipeNode child : node.ingredients) {
+            describe(child, sb);
+            sb.append(' ');
+        }
+        sb.append(')');
+    }
+}
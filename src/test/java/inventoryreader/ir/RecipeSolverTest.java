@@ -0,0 +1,232 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeSolverTest {
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+
+    @Test
+    void remainingMatchesTheRecursiveSolverOnTrees() {
+        Random random = new Random(13);
+        for (int round = 0; round < 300; round++) {
+            String prefix = "Tree" + round;
+            Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+            List<String> items = new ArrayList<>();
+            growTree(random, recipes, items, prefix, new int[] {0}, 0);
+            RecipeGraph graph = RecipeFixtures.compile(recipes);
+            Map<String, Integer> owned = randomStock(random, items);
+            String target = prefix + " 0";
+            int amt = 1 + random.nextInt(5);
+
+            ResourcesManager.RemainingResponse expected =
+                    new LegacyRecipeSolver(recipes).getRemainingIngredients(target, amt, owned);
+            ResourcesManager.RemainingResponse actual =
+                    new RecipeSolver(graph).remaining(dictionary.intern(target), amt, TestSnapshots.counts(owned));
+            assertEquals(expected.messages, actual.messages, "messages, round " + round);
+            assertEquals(describe(expected.full_recipe), describe(actual.full_recipe), "tree, round " + round);
+        }
+    }
+
+    @Test
+    void craftAndNeededMatchTheRecursiveSolverOnSharedRecipes() {
+        Random random = new Random(31);
+        for (int round = 0; round < 300; round++) {
+            String prefix = "Dag" + round;
+            Map<String, Map<String, Integer>> recipes = randomDag(random, prefix);
+            RecipeGraph graph = RecipeFixtures.compile(recipes);
+            List<String> items = new ArrayList<>(recipes.keySet());
+            for (Map<String, Integer> r : recipes.values()) {
+                for (String ing : r.keySet()) if (!items.contains(ing)) items.add(ing);
+            }
+            Map<String, Integer> owned = randomStock(random, items);
+            String target = prefix + " 0";
+            int amt = 1 + random.nextInt(4);
+
+            Map<String, Integer> expected = new LegacyRecipeSolver(recipes).craft(target, amt, owned);
+            int[] actual = new RecipeSolver(graph).craft(dictionary.intern(target), amt, TestSnapshots.counts(owned));
+            for (String item : items) {
+                assertEquals((int) expected.getOrDefault(item, 0), actual[dictionary.idOf(item)], item + ", round " + round);
+            }
+
+            Map<String, Integer> needed = new LinkedHashMap<>();
+            new RecipeSolver(graph).needed(dictionary.intern(target), amt, TestSnapshots.of(owned), needed);
+            assertEquals(new LegacySimpleRemaining(recipes).getSimpleRemainingIngredients(target, amt, owned), needed,
+                    "needed, round " + round);
+        }
+    }
+
+    @Test
+    void remainingMatchesTheRecursiveSolverOnSharedRecipes() {
+        Random random = new Random(47);
+        for (int round = 0; round < 300; round++) {
+            String prefix = "Shared" + round;
+            Map<String, Map<String, Integer>> recipes = randomDag(random, prefix);
+            RecipeGraph graph = RecipeFixtures.compile(recipes);
+            List<String> items = new ArrayList<>(recipes.keySet());
+            for (Map<String, Integer> r : recipes.values()) {
+                for (String ing : r.keySet()) if (!items.contains(ing)) items.add(ing);
+            }
+            Map<String, Integer> owned = randomStock(random, items);
+            String target = prefix + " 0";
+            int amt = 1 + random.nextInt(4);
+
+            ResourcesManager.RemainingResponse expected =
+                    new LegacyRecipeSolver(recipes).getRemainingIngredients(target, amt, owned);
+            ResourcesManager.RemainingResponse actual =
+                    new RecipeSolver(graph).remaining(dictionary.intern(target), amt, TestSnapshots.counts(owned));
+            assertEquals(expected.messages, actual.messages, "messages, round " + round);
+            assertEquals(describe(expected.full_recipe), describe(actual.full_recipe), "tree, round " + round);
+        }
+    }
+
+    @Test
+    void sharedSubRecipesAreVisitedOnce() {
+        // 2^40 paths through the diamond; the recursive solver would never finish
+        RecipeGraph graph = RecipeFixtures.compile(RecipeFixtures.diamond("Wide", 40, 0));
+        int target = dictionary.intern("Wide Part 0");
+        Map<String, Integer> owned = new LinkedHashMap<>();
+        owned.put("Wide Core", 3);
+        owned.put("Wide Shard", 1_000);
+        ResourcesManager.RemainingResponse response = new RecipeSolver(graph).remaining(target, 1, TestSnapshots.counts(owned));
+
+        Set<RecipeManager.RecipeNode> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(response.full_recipe, distinct);
+        // Equal subtrees are one node: a few per item as the cores run out, not one per path
+        assertTrue(distinct.size() <= 2 * (3 * 40 + 3), "distinct nodes: " + distinct.size());
+        assertEquals(1, response.full_recipe.amount);
+
+        Map<String, Integer> needed = new LinkedHashMap<>();
+        new RecipeSolver(graph).needed(target, 1, TestSnapshots.of(Map.of()), needed);
+        // 2^40 cores, saturated
+        assertEquals(Integer.MAX_VALUE, (int) needed.get("Wide Core"));
+        assertTrue(needed.get("Wide Dust") > 0);
+    }
+
+    @Test
+    void ownedMaterialsDoNotMakeSharedSubRecipesExponential() {
+        // Owned leaves keep every occurrence crafting and drawing stock; the walk must still be linear in depth
+        int[][] stocks = {{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE}, {3, Integer.MAX_VALUE, Integer.MAX_VALUE},
+                {Integer.MAX_VALUE, 1_000, 1_000}, {1 << 20, 1 << 20, 1 << 20}};
+        for (int[] stock : stocks) {
+            for (int depth : new int[] {10, 40}) {
+                String prefix = "Owned" + depth + "x" + stock[0] + "x" + stock[1];
+                Map<String, Map<String, Integer>> recipes = RecipeFixtures.diamond(prefix, depth, 0);
+                RecipeGraph graph = RecipeFixtures.compile(recipes);
+                Map<String, Integer> owned = new LinkedHashMap<>();
+                owned.put(prefix + " Core", stock[0]);
+                owned.put(prefix + " Shard", stock[1]);
+                owned.put(prefix + " Dust", stock[2]);
+                String target = prefix + " Part 0";
+                ResourcesManager.RemainingResponse actual =
+                        new RecipeSolver(graph).remaining(dictionary.intern(target), 2, TestSnapshots.counts(owned));
+
+                Set<RecipeManager.RecipeNode> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+                collect(actual.full_recipe, distinct);
+                assertTrue(distinct.size() <= 12 * (3 * depth + 3), prefix + ": distinct nodes " + distinct.size());
+                if (depth > 10) continue;
+                ResourcesManager.RemainingResponse expected =
+                        new LegacyRecipeSolver(recipes).getRemainingIngredients(target, 2, owned);
+                assertEquals(expected.messages, actual.messages, prefix);
+                assertEquals(describe(expected.full_recipe), describe(actual.full_recipe), prefix);
+            }
+        }
+    }
+
+    @Test
+    void planBatchCraftsATargetItAlreadyOwns() {
+        RecipeGraph graph = RecipeFixtures.compile(RecipeFixtures.chain("Owned", 3, 0));
+        Map<String, Integer> owned = new LinkedHashMap<>();
+        owned.put("Owned Tier 0", 5);
+        owned.put("Owned Tier 1", 1);
+        BatchPlan plan = new RecipeSolver(graph).planBatch(new int[] {dictionary.intern("Owned Tier 0")}, new int[] {1},
+                TestSnapshots.counts(owned));
+
+        // Owned tier 1 still counts as an ingredient, tier 0 itself does not
+        assertEquals(Map.of("Owned Tier 1", 1L, "Owned Tier 2", 2L), plan.toCraft);
+        assertEquals(Map.of("Owned Ore 0", 3L, "Owned Gem 0", 1L, "Owned Ore 1", 3L, "Owned Gem 1", 1L,
+                "Owned Ore 2", 6L, "Owned Gem 2", 2L), plan.missing);
+    }
+
+    private static void collect(RecipeManager.RecipeNode node, Set<RecipeManager.RecipeNode> seen) {
+        if (!seen.add(node)) return;
+        for (RecipeManager.RecipeNode child : node.ingredients) collect(child, seen);
+    }
+
+    // Every item appears once: unique craftable and raw names below the root
+    private static void growTree(Random random, Map<String, Map<String, Integer>> recipes, List<String> items,
+                                 String prefix, int[] next, int depth) {
+        String name = prefix + " " + next[0]++;
+        items.add(name);
+        Map<String, Integer> recipe = new LinkedHashMap<>();
+        int width = 1 + random.nextInt(3);
+        for (int i = 0; i < width; i++) {
+            int quantity = 1 + random.nextInt(4);
+            if (depth < 3 && random.nextInt(3) != 0) {
+                recipe.put(prefix + " " + next[0], quantity);
+                growTree(random, recipes, items, prefix, next, depth + 1);
+            } else {
+                String raw = prefix + " Raw " + next[0]++;
+                items.add(raw);
+                recipe.put(raw, quantity);
+            }
+        }
+        recipes.put(name, recipe);
+    }
+
+    // Item i only uses items with a higher index, so the graph is acyclic; raw materials are shared freely
+    private static Map<String, Map<String, Integer>> randomDag(Random random, String prefix) {
+        int craftable = 3 + random.nextInt(8);
+        int raw = 1 + random.nextInt(4);
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        for (int i = 0; i < craftable; i++) {
+            Map<String, Integer> recipe = new LinkedHashMap<>();
+            int width = 1 + random.nextInt(3);
+            for (int k = 0; k < width; k++) {
+                int pick = i + 1 + random.nextInt(craftable - i - 1 + raw);
+                String ing = pick < craftable ? prefix + " " + pick : prefix + " Raw " + (pick - craftable);
+                recipe.put(ing, 1 + random.nextInt(3));
+            }
+            recipes.put(prefix + " " + i, recipe);
+        }
+        return recipes;
+    }
+
+    private static Map<String, Integer> randomStock(Random random, List<String> items) {
+        Map<String, Integer> owned = new LinkedHashMap<>();
+        for (String item : items) {
+            if (random.nextInt(3) == 0) owned.put(item, random.nextInt(40));
+        }
+        return owned;
+    }
+
+    private static String describe(RecipeManager.RecipeNode node) {
+        StringBuilder sb = new StringBuilder();
+        describe(node, sb);
+        return sb.toString();
+    }
+
+    private static void describe(RecipeManager.RecipeNode node, StringBuilder sb) {
+        sb.append(node.name).append('=').append(node.amount);
+        if (node.ingredients.isEmpty()) return;
+        sb.append('(');
+        for (RecipeManager.RecipeNode child : node.ingredients) {
+            describe(child, sb);
+            sb.append(' ');
+        }
+        sb.append(')');
+    }
+}
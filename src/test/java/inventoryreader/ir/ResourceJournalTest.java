@@ -0,0 +1,94 @@
+package inventoryreader.ir;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResourceJournalTest {
+
+    @Test
+    void sequenceAndUnsettledSourcesSurviveCompaction() throws IOException {
+        File file = journalFile();
+        ResourceJournal journal = new ResourceJournal(file);
+        assertEquals(1L, journal.append(Map.of("Coal", 5), "containers/Backpack 1"));
+        assertEquals(2L, journal.append(Map.of("Iron", 3), "inventory/Player Inventory"));
+        assertEquals(3L, journal.append(Map.of("Coal", 7)));
+        journal.settle("inventory/Player Inventory", 2L);
+        // A snapshot stamped before the capture does not settle it
+        journal.settle("containers/Backpack 1", 0L);
+
+        journal.beginCompaction();
+        journal.finishCompaction();
+        journal.close();
+
+        ResourceJournal reloaded = new ResourceJournal(file);
+        Map<String, Integer> replayed = new LinkedHashMap<>();
+        // Only the marker is left, and it carries no values
+        assertEquals(0, reloaded.replayInto(replayed));
+        assertEquals(Map.of(), replayed);
+        assertEquals(3L, reloaded.sequence());
+        assertEquals(Map.of("containers/Backpack 1", 1L), reloaded.unsettledSources());
+        assertEquals(4L, reloaded.append(Map.of("Coal", 1)));
+        reloaded.delete();
+    }
+
+    @Test
+    void replayKeepsTheLastCaptureOfEachSource() throws IOException {
+        File file = journalFile();
+        ResourceJournal journal = new ResourceJournal(file);
+        journal.append(Map.of("Coal", 5), "containers/Backpack 1");
+        journal.append(Map.of("Coal", 9), "containers/Backpack 1");
+        journal.append(Map.of("Gold", 2), "containers/Backpack 2");
+        // Crash mid-compaction: the rotated records are replayed in front of the live ones
+        journal.beginCompaction();
+        journal.append(Map.of("Coal", 4), "containers/Backpack 2");
+        journal.close();
+
+        ResourceJournal reloaded = new ResourceJournal(file);
+        Map<String, Integer> replayed = new LinkedHashMap<>();
+        assertEquals(4, reloaded.replayInto(replayed));
+        assertEquals(Map.of("Coal", 4, "Gold", 2), replayed);
+        assertEquals(4L, reloaded.sequence());
+        assertEquals(Map.of("containers/Backpack 1", 2L, "containers/Backpack 2", 4L), reloaded.unsettledSources());
+        reloaded.delete();
+    }
+
+    @Test
+    void anAppendAfterATornTailStartsOnItsOwnLine() throws IOException {
+        File file = journalFile();
+        ResourceJournal journal = new ResourceJournal(file);
+        journal.append(Map.of("Coal", 5));
+        journal.append(Map.of("Iron", 3));
+        journal.close();
+        // Crash mid-append: the third record never got its closing braces or newline
+        Files.writeString(file.toPath(), "{\"seq\":3,\"set\":{\"Tit", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ResourceJournal resumed = new ResourceJournal(file);
+        Map<String, Integer> replayed = new LinkedHashMap<>();
+        assertEquals(2, resumed.replayInto(replayed));
+        assertEquals(2L, resumed.sequence());
+        assertEquals(3L, resumed.append(Map.of("Titanium", 9)));
+        resumed.close();
+
+        ResourceJournal reloaded = new ResourceJournal(file);
+        replayed.clear();
+        assertEquals(3, reloaded.replayInto(replayed));
+        assertEquals(Map.of("Coal", 5, "Iron", 3, "Titanium", 9), replayed);
+        assertEquals(3L, reloaded.sequence());
+        reloaded.delete();
+    }
+
+    private static File journalFile() throws IOException {
+        Path dir = Files.createTempDirectory("ir-journal");
+        return dir.resolve("resources.journal").toFile();
+    }
+}
@@ -0,0 +1,69 @@
+package inventoryreader.ir;
+
+import inventoryreader.ir.recipes.RecipeFixtures;
+import inventoryreader.ir.recipes.RecipeGraph;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimpleRemainingTest {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void matchesTheLegacyWalk() {
+        Map<String, Map<String, Integer>> recipes = RecipeFixtures.chain("Eq", 12, 200);
+        recipes.putAll(RecipeFixtures.diamond("EqD", 6, 0));
+        RecipeGraph graph = RecipeFixtures.compile(recipes);
+        Map<String, Integer> owned = new LinkedHashMap<>();
+        owned.put("Eq Ore 0", 5000);
+        owned.put("Eq Gem 2", 7);
+        owned.put("EqD Dust", 12);
+        owned.put("EqD Core", 100);
+        ResourceSnapshot snapshot = TestSnapshots.of(owned);
+        LegacySimpleRemaining legacy = new LegacySimpleRemaining(recipes);
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        for (String target : new String[] {"Eq Tier 0", "Eq Tier 5", "EqD Part 0", "EqD Left 3", "Eq Ore 0", "Eq Ore 1"}) {
+            for (int amt : new int[] {0, 1, 3, 64}) {
+                Map<String, Integer> actual = new LinkedHashMap<>();
+                new RecipeSolver(graph).needed(dictionary.intern(target), amt, snapshot, actual);
+                assertEquals(legacy.getSimpleRemainingIngredients(target, amt, owned), actual, target + " x" + amt);
+            }
+        }
+    }
+
+    @Test
+    void allocationDoesNotGrowWithRecipeCount() {
+        long small = allocatedBytes(RecipeFixtures.compile(RecipeFixtures.chain("AllocS", 20, 500)), "AllocS Tier 0");
+        long large = allocatedBytes(RecipeFixtures.compile(RecipeFixtures.chain("AllocL", 20, 20_000)), "AllocL Tier 0");
+        // Same 20-node tree: only the result map allocates, however many recipes the graph holds
+        assertTrue(large < small * 2 + 4096, "small " + small + " B, large " + large + " B");
+
+        Map<String, Map<String, Integer>> recipes = RecipeFixtures.chain("AllocL", 20, 20_000);
+        LegacySimpleRemaining legacy = new LegacySimpleRemaining(recipes);
+        legacy.getSimpleRemainingIngredients("AllocL Tier 0", 1, Map.of());
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        legacy.getSimpleRemainingIngredients("AllocL Tier 0", 1, Map.of());
+        long legacyBytes = THREADS.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(legacyBytes > large * 100, "legacy " + legacyBytes + " B, graph " + large + " B");
+    }
+
+    private static long allocatedBytes(RecipeGraph graph, String target) {
+        ResourceSnapshot empty = TestSnapshots.of(Map.of());
+        int id = ItemDictionary.getInstance().intern(target);
+        RecipeSolver solver = new RecipeSolver(graph);
+        for (int i = 0; i < 2_000; i++) solver.needed(id, 1, empty, new LinkedHashMap<>());
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            solver.needed(id, 1, empty, new LinkedHashMap<>());
+            best = Math.min(best, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        return best;
+    }
+}
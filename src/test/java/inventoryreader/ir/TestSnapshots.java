@@ -0,0 +1,27 @@
+package inventoryreader.ir;
+
+import java.util.Map;
+
+/** Resource snapshots and count arrays for tests and benchmarks, built without {@link ResourcesManager}. */
+final class TestSnapshots {
+    private TestSnapshots() {}
+
+    static ResourceSnapshot of(Map<String, Integer> resources) {
+        return of(resources, 1L);
+    }
+
+    static ResourceSnapshot of(Map<String, Integer> resources, long version) {
+        ItemDictionary dictionary = ItemDictionary.getInstance();
+        int[] ids = new int[resources.size()];
+        int i = 0;
+        for (String name : resources.keySet()) ids[i++] = dictionary.intern(name);
+        int[] counts = new int[dictionary.size()];
+        i = 0;
+        for (int count : resources.values()) counts[ids[i++]] = count;
+        return new ResourceSnapshot(version, counts, ids);
+    }
+
+    static int[] counts(Map<String, Integer> resources) {
+        return of(resources).copyCounts();
+    }
+}
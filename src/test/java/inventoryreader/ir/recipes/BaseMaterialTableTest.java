@@ -0,0 +1,50 @@
+package inventoryreader.ir.recipes;
+
+import inventoryreader.ir.ItemDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class BaseMaterialTableTest {
+    private final ItemDictionary dictionary = ItemDictionary.getInstance();
+
+    @Test
+    void sumsLeafMaterialsPerUnit() {
+        BaseMaterialTable table = BaseMaterialTable.build(RecipeFixtures.compile(RecipeFixtures.diamond("Sum", 3, 0)), null, null);
+        int part = dictionary.idOf("Sum Part 0");
+        assertEquals(3, table.leafCount(part));
+        // Two paths per level: 2^3 cores; dust and shard come in at every level
+        assertEquals(8L, amount(table, part, "Sum Core"));
+        assertEquals(2 + 4 + 8, amount(table, part, "Sum Dust"));
+        assertEquals(1 + 2 + 4, amount(table, part, "Sum Shard"));
+    }
+
+    @Test
+    void deepTotalsSaturateInsteadOfWrapping() {
+        BaseMaterialTable table = BaseMaterialTable.build(RecipeFixtures.compile(RecipeFixtures.diamond("Deep", 70, 0)), null, null);
+        assertEquals(Long.MAX_VALUE, amount(table, dictionary.idOf("Deep Part 0"), "Deep Core"));
+        assertEquals(1L << 40, amount(table, dictionary.idOf("Deep Part 30"), "Deep Core"));
+    }
+
+    @Test
+    void reusesUnchangedSubtreesAndTracksContent() {
+        Map<String, Map<String, Integer>> recipes = RecipeFixtures.chain("Hash", 10, 40);
+        BaseMaterialTable first = BaseMaterialTable.build(RecipeFixtures.compile(recipes), null, null);
+        recipes.get("Hash Tier 6").put("Hash Ore 0", 9);
+        BaseMaterialTable second = BaseMaterialTable.build(RecipeFixtures.compile(recipes), first, null);
+        // Tiers 0..6 sit above the change; tiers 7..9 and every filler recipe are taken over
+        assertEquals(40 - 7, second.reusedCount());
+        assertNotEquals(first.contentHash(), second.contentHash());
+        assertEquals(first.contentHash(), BaseMaterialTable.build(RecipeFixtures.compile(RecipeFixtures.chain("Hash", 10, 40)), null, null).contentHash());
+    }
+
+    private long amount(BaseMaterialTable table, int id, String leaf) {
+        for (int i = 0; i < table.leafCount(id); i++) {
+            if (table.leafIdAt(id, i) == dictionary.idOf(leaf)) return table.amountAt(id, i);
+        }
+        return 0L;
+    }
+}
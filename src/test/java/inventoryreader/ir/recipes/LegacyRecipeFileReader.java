@@ -0,0 +1,72 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The two loaders {@link RecipeFileReader} replaced, kept as the reference for tests and as the baseline of
+ * {@code RecipeFileBenchmark}: {@code RecipeManager.readRecipeMap}, which parsed a file into
+ * {@code Map<String, Object>}, serialized the recipes back to JSON and parsed that again, and the JSON-tree
+ * load of {@code StaticJsonProvider}.
+ */
+final class LegacyRecipeFileReader {
+    private LegacyRecipeFileReader() {}
+
+    static Map<String, Map<String, Integer>> readRecipeMap(Gson gson, File file) throws IOException {
+        if (file == null || !file.exists() || file.length() == 0) return null;
+        try (FileReader fr = new FileReader(file)) {
+            java.lang.reflect.Type any = new com.google.gson.reflect.TypeToken<Map<String, Object>>(){}.getType();
+            Map<String, Object> root = gson.fromJson(fr, any);
+            if (root == null || root.isEmpty()) return null;
+            Object recipesNode = root.get("recipes");
+            Gson gg = new Gson();
+            java.lang.reflect.Type t = new com.google.gson.reflect.TypeToken<Map<String, Map<String, Integer>>>(){}.getType();
+            if (recipesNode instanceof Map<?, ?> m) {
+                String json = gg.toJson(m);
+                return gg.fromJson(json, t);
+            }
+            String json = gg.toJson(root);
+            return gg.fromJson(json, t);
+        }
+    }
+
+    static Map<String, Recipe> readTree(File file, byte category, int priority) throws IOException {
+        if (!file.exists() || file.length() == 0) return Collections.emptyMap();
+        try (FileReader fr = new FileReader(file, StandardCharsets.UTF_8)) {
+            JsonElement root = JsonParser.parseReader(fr);
+            if (root == null || !root.isJsonObject()) return Collections.emptyMap();
+            JsonObject raw = root.getAsJsonObject();
+            // Bundled files wrap the map as {"version": n, "recipes": {...}}
+            if (raw.has("recipes") && raw.get("recipes").isJsonObject()) raw = raw.getAsJsonObject("recipes");
+            Map<String, Recipe> out = new LinkedHashMap<>(raw.size() * 2);
+            for (Map.Entry<String, JsonElement> e : raw.entrySet()) {
+                String output = e.getKey();
+                if (!e.getValue().isJsonObject()) continue;
+                JsonObject ingMap = e.getValue().getAsJsonObject();
+                if (ingMap.size() == 0) continue;
+                String[] ing = new String[ingMap.size()];
+                short[] cnt = new short[ingMap.size()];
+                int i = 0;
+                for (Map.Entry<String, JsonElement> in : ingMap.entrySet()) {
+                    JsonElement v = in.getValue();
+                    int amount = v != null && v.isJsonPrimitive() && v.getAsJsonPrimitive().isNumber() ? v.getAsInt() : 0;
+                    ing[i] = in.getKey();
+                    cnt[i] = (short)Math.min(Short.MAX_VALUE, amount);
+                    i++;
+                }
+                out.put(output, new Recipe(output, ing, cnt, category, (byte)priority));
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class NeuIndexTest {
+    private static final String SOURCE = "test://neu";
+
+    @Test
+    void recipesMatchTheJsonSnapshotRoundTrip() throws Exception {
+        NeuIndex index = ingest(300);
+        List<NeuItemReader.Item> items = new ArrayList<>();
+        for (NeuIndex.Entry e : index.entries.values()) items.add(e.item());
+        // Colliding display names, repeated slots, clamped counts and empty recipes as well
+        items.add(new NeuItemReader.Item("DUP_A", "Shared Name", true, List.of("NT_ITEM_1", "NT_ITEM_1"), List.of(2, 3)));
+        items.add(new NeuItemReader.Item("DUP_B", "Shared Name", true, List.of("NT_ITEM_2"), List.of(40_000)));
+        items.add(new NeuItemReader.Item("EMPTY", "Empty", true, List.of(), List.of()));
+        NeuIndex withEdgeCases = new NeuIndex(SOURCE);
+        for (int i = 0; i < items.size(); i++) withEdgeCases.entries.put("e" + i, new NeuIndex.Entry(i, i, items.get(i)));
+
+        Map<String, Recipe> expected = RecipeFileReader.read(new StringReader(legacySnapshot(items)), (byte)2, (byte)20);
+        Map<String, Recipe> actual = withEdgeCases.recipes((byte)2, (byte)20);
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()));
+        for (Map.Entry<String, Recipe> e : expected.entrySet()) {
+            Recipe a = actual.get(e.getKey());
+            assertEquals(Arrays.asList(e.getValue().ing), Arrays.asList(a.ing), e.getKey());
+            assertEquals(Arrays.toString(e.getValue().cnt), Arrays.toString(a.cnt), e.getKey());
+            assertEquals(e.getValue().sourcePriority, a.sourcePriority);
+        }
+    }
+
+    @Test
+    void contentHashIsStoredInTheHeaderAndIgnoresEntryChecksums() throws Exception {
+        NeuIndex index = ingest(50);
+        File file = Files.createTempFile("neu-index", ".bin").toFile();
+        try {
+            index.write(file);
+            assertEquals(index.contentHash(), NeuIndex.readContentHash(file, SOURCE));
+            assertEquals(-1L, NeuIndex.readContentHash(file, "test://other"));
+            NeuIndex read = NeuIndex.read(file, SOURCE);
+            assertEquals(index.contentHash(), read.contentHash());
+
+            // A lore-only edit changes the entry's CRC but not its fragment
+            NeuIndex relabelled = new NeuIndex(SOURCE);
+            for (Map.Entry<String, NeuIndex.Entry> e : read.entries.entrySet()) {
+                relabelled.entries.put(e.getKey(), new NeuIndex.Entry(e.getValue().crc() + 1, e.getValue().size(), e.getValue().item()));
+            }
+            assertEquals(index.contentHash(), relabelled.contentHash());
+
+            String first = relabelled.entries.keySet().iterator().next();
+            NeuItemReader.Item item = relabelled.entries.get(first).item();
+            relabelled.entries.put(first, new NeuIndex.Entry(0, 0, new NeuItemReader.Item(item.internalName(),
+                    item.displayName() + " Renamed", item.hasRecipe(), item.ingredients(), item.counts())));
+            assertNotEquals(index.contentHash(), relabelled.contentHash());
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private static NeuIndex ingest(int items) throws Exception {
+        Path zip = Files.createTempFile("neu", ".zip");
+        try {
+            RecipeFixtures.writeNeuZip(zip, "Nt", items);
+            NeuIndex index = new NeuIndex(SOURCE);
+            try (ZipFile file = new ZipFile(zip.toFile())) {
+                RemoteRecipeFetcher.parseItems(file, new NeuIndex(SOURCE), index, new int[1]);
+            }
+            return index;
+        } finally {
+            Files.deleteIfExists(zip);
+        }
+    }
+
+    // The JSON the fetcher wrote per NEU source before the registry read fragments directly
+    private static String legacySnapshot(List<NeuItemReader.Item> items) {
+        Map<String, Map<String, Integer>> outToIngInternal = new LinkedHashMap<>();
+        Map<String, String> internalToDisplay = new LinkedHashMap<>();
+        for (NeuItemReader.Item item : items) {
+            if (item == null || item.internalName().isEmpty()) continue;
+            if (!item.displayName().isEmpty()) internalToDisplay.putIfAbsent(item.internalName(), item.displayName());
+            if (!item.hasRecipe()) continue;
+            Map<String, Integer> ing = outToIngInternal.computeIfAbsent(item.internalName(), k -> new LinkedHashMap<>());
+            for (int k = 0; k < item.ingredients().size(); k++) {
+                ing.merge(item.ingredients().get(k), item.counts().get(k), Integer::sum);
+            }
+        }
+        Map<String, Map<String, Integer>> wire = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> e : outToIngInternal.entrySet()) {
+            Map<String, Integer> ingDisplay = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> in : e.getValue().entrySet()) {
+                ingDisplay.put(internalToDisplay.getOrDefault(in.getKey(), in.getKey()), in.getValue());
+            }
+            wire.put(internalToDisplay.getOrDefault(e.getKey(), e.getKey()), ingDisplay);
+        }
+        return new Gson().toJson(wire);
+    }
+}
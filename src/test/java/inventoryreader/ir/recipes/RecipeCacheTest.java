@@ -0,0 +1,138 @@
+package inventoryreader.ir.recipes;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeCacheTest {
+
+    @Test
+    void roundTripKeepsRecipesInOrderAndSeedNames() throws IOException {
+        Path dir = Files.createTempDirectory("ir-cache");
+        File cache = dir.resolve("recipes.bin").toFile();
+        Map<String, Recipe> recipes = new LinkedHashMap<>();
+        int i = 0;
+        for (Map.Entry<String, Map<String, Integer>> r : RecipeFixtures.chain("Cached", 10, 200).entrySet()) {
+            String[] ing = r.getValue().keySet().toArray(new String[0]);
+            short[] cnt = new short[ing.length];
+            for (int k = 0; k < ing.length; k++) cnt[k] = r.getValue().get(ing[k]).shortValue();
+            recipes.put(r.getKey(), new Recipe(r.getKey(), ing, cnt, (byte) (i % 4), (byte) (10 + 10 * (i % 3))));
+            i++;
+        }
+        // A name that only seeds the resource list, and one with characters outside ASCII
+        Set<String> names = new LinkedHashSet<>(List.of("Cached Tier 3", "Seed Only", "\u00a7aColoured \u2728"));
+
+        RecipeCache.write(cache, 42L, recipes, names);
+        RecipeCache.Contents read = RecipeCache.read(cache, 42L);
+        assertEquals(describe(recipes), describe(read.recipes()));
+        assertEquals(new ArrayList<>(names), new ArrayList<>(read.sourceItemNames()));
+        assertNull(RecipeCache.read(cache, 43L));
+        delete(dir);
+    }
+
+    @Test
+    void editingASourceFileChangesTheKey() throws IOException {
+        Path dir = Files.createTempDirectory("ir-cache-src");
+        Path forging = dir.resolve("forging.json");
+        Path remote = dir.resolve("remote.json");
+        Files.writeString(forging, "{\"Bar\": {\"Ore\": 2}}", StandardCharsets.UTF_8);
+        Files.writeString(remote, "{\"Gem\": {\"Rough\": 80}}", StandardCharsets.UTF_8);
+        List<File> sources = List.of(forging.toFile(), remote.toFile());
+        long mtime = forging.toFile().lastModified();
+        long key = RecipeCache.sourceKey(sources);
+        assertEquals(key, RecipeCache.sourceKey(sources));
+
+        // Same size, same modification time, different content
+        Files.writeString(forging, "{\"Bar\": {\"Ore\": 3}}", StandardCharsets.UTF_8);
+        assertTrue(forging.toFile().setLastModified(mtime));
+        long content = RecipeCache.sourceKey(sources);
+        assertNotEquals(key, content);
+
+        // Same content, touched
+        assertTrue(forging.toFile().setLastModified(mtime + 5_000));
+        long touched = RecipeCache.sourceKey(sources);
+        assertNotEquals(content, touched);
+
+        // Grown, with the modification time put back
+        Files.writeString(forging, "{\"Bar\": {\"Ore\": 3, \"Gem\": 1}}", StandardCharsets.UTF_8);
+        assertTrue(forging.toFile().setLastModified(mtime + 5_000));
+        long grown = RecipeCache.sourceKey(sources);
+        assertNotEquals(touched, grown);
+
+        // A source that disappears is a change too
+        Files.delete(remote);
+        assertNotEquals(grown, RecipeCache.sourceKey(sources));
+        delete(dir);
+    }
+
+    @Test
+    void anotherFormatVersionMisses() throws IOException {
+        Path dir = Files.createTempDirectory("ir-cache-format");
+        Path source = dir.resolve("forging.json");
+        Files.writeString(source, "{\"Bar\": {\"Ore\": 2}}", StandardCharsets.UTF_8);
+        List<File> sources = List.of(source.toFile());
+        File cache = dir.resolve("recipes.bin").toFile();
+        Map<String, Recipe> recipes = Map.of("Bar", new Recipe("Bar", new String[] {"Ore"}, new short[] {2}, (byte) 0, (byte) 10));
+
+        long key = RecipeCache.sourceKey(sources);
+        // The format is part of the key, so a bumped reader never even looks for the old file's key
+        assertNotEquals(key, RecipeCache.sourceKey(sources, RecipeCache.FORMAT + 1));
+        // And a file written by another format is rejected by its header even under a matching key
+        RecipeCache.write(cache, key, RecipeCache.FORMAT + 1, recipes, Set.of());
+        assertNull(RecipeCache.read(cache, key));
+        RecipeCache.write(cache, key, recipes, Set.of());
+        assertEquals(describe(recipes), describe(RecipeCache.read(cache, key).recipes()));
+        delete(dir);
+    }
+
+    @Test
+    void aTruncatedCacheMisses() throws IOException {
+        Path dir = Files.createTempDirectory("ir-cache-torn");
+        File cache = dir.resolve("recipes.bin").toFile();
+        Map<String, Recipe> recipes = Map.of("Bar", new Recipe("Bar", new String[] {"Ore"}, new short[] {2}, (byte) 0, (byte) 10));
+        RecipeCache.write(cache, 7L, recipes, Set.of("Bar", "Ore"));
+        try (RandomAccessFile file = new RandomAccessFile(cache, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        assertNull(RecipeCache.read(cache, 7L));
+        delete(dir);
+    }
+
+    private static List<String> describe(Map<String, Recipe> recipes) {
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<String, Recipe> e : recipes.entrySet()) {
+            Recipe r = e.getValue();
+            StringBuilder sb = new StringBuilder(e.getKey()).append('/').append(r.output)
+                    .append(" c").append(r.category).append(" p").append(r.sourcePriority).append('=');
+            for (int i = 0; i < r.ing.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(r.ing[i]).append(':').append(r.cnt[i]);
+            }
+            out.add(sb.toString());
+        }
+        return out;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,80 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecipeFileReaderTest {
+
+    @Test
+    void envelopeAndBareMapReadLikeTheTreeLoader() throws IOException {
+        Map<String, Map<String, Integer>> recipes = RecipeFixtures.chain("File", 12, 300);
+        for (boolean envelope : new boolean[] {true, false}) {
+            Path file = Files.createTempFile("recipes", ".json");
+            try {
+                RecipeFixtures.writeRecipeFile(file, recipes, envelope);
+                Map<String, Recipe> read = RecipeFileReader.read(file.toFile(), (byte) 1, (byte) 10);
+                assertEquals(describe(LegacyRecipeFileReader.readTree(file.toFile(), (byte) 1, 10)), describe(read),
+                        "envelope " + envelope);
+                assertEquals(recipes.keySet(), read.keySet());
+                assertEquals(recipes, LegacyRecipeFileReader.readRecipeMap(new Gson(), file.toFile()));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void envelopeSiblingsAreIgnored() throws IOException {
+        Map<String, Recipe> read = read("{\"version\": 3, \"meta\": {\"Gem\": 1}, \"recipes\": {\"Gem\": {\"Rough\": 80}}}");
+        // With an envelope every other key is ignored, even an object-valued one read before it
+        assertEquals(List.of("Gem=Rough:80"), describe(read));
+    }
+
+    @Test
+    void nonObjectAndEmptyRecipesAreSkipped() throws IOException {
+        Map<String, Recipe> read = read("{\"Count\": 5, \"List\": [1, 2], \"Null\": null, \"Empty\": {}, \"Text\": \"x\", "
+                + "\"Kept\": {\"Ore\": 2}}");
+        assertEquals(List.of("Kept=Ore:2"), describe(read));
+    }
+
+    @Test
+    void nonNumericCountsReadAsZero() throws IOException {
+        Map<String, Recipe> read = read("{\"Bar\": {\"Word\": \"two\", \"Null\": null, \"Flag\": true, \"Nested\": {\"a\": 1}, "
+                + "\"Ore\": 3, \"Big\": 99999}}");
+        assertEquals(List.of("Bar=Word:0,Null:0,Flag:0,Nested:0,Ore:3,Big:" + Short.MAX_VALUE), describe(read));
+    }
+
+    @Test
+    void aRepeatedIngredientKeepsItsFirstPositionAndLastCount() throws IOException {
+        Map<String, Recipe> read = read("{\"Bar\": {\"Ore\": 1, \"Gem\": 2, \"Ore\": 5, \"Dust\": 3}}");
+        assertEquals(List.of("Bar=Ore:5,Gem:2,Dust:3"), describe(read));
+    }
+
+    private static Map<String, Recipe> read(String json) throws IOException {
+        return RecipeFileReader.read(new StringReader(json), (byte) 0, (byte) 10);
+    }
+
+    private static List<String> describe(Map<String, Recipe> recipes) {
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<String, Recipe> e : recipes.entrySet()) {
+            Recipe r = e.getValue();
+            StringBuilder sb = new StringBuilder(e.getKey()).append('=');
+            for (int i = 0; i < r.ing.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(r.ing[i]).append(':').append(r.cnt[i]);
+            }
+            out.add(sb.toString());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,136 @@
+package inventoryreader.ir.recipes;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/** Builds {@link RecipeGraph}s for tests and benchmarks without going through {@link RecipeRegistry}. */
+public final class RecipeFixtures {
+    private static final AtomicLong VERSION = new AtomicLong(1_000_000L);
+
+    private RecipeFixtures() {}
+
+    /** Compiles output name to (ingredient to quantity) recipes, in iteration order. */
+    public static RecipeGraph compile(Map<String, Map<String, Integer>> recipes) {
+        Map<String, Recipe> byOutput = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> r : recipes.entrySet()) {
+            String[] ing = r.getValue().keySet().toArray(new String[0]);
+            short[] cnt = new short[ing.length];
+            for (int i = 0; i < ing.length; i++) cnt[i] = r.getValue().get(ing[i]).shortValue();
+            byOutput.put(r.getKey(), new Recipe(r.getKey(), ing, cnt, (byte) 0, (byte) 10));
+        }
+        return RecipeGraph.compile(byOutput, VERSION.incrementAndGet());
+    }
+
+    /**
+     * {@code depth} tiers where "{prefix} Tier i" takes two of tier i + 1 and some of two raw materials,
+     * followed by unrelated filler recipes up to {@code total} recipes. The requirement tree of tier 0 has
+     * {@code depth} craftable nodes whatever {@code total} is.
+     */
+    public static Map<String, Map<String, Integer>> chain(String prefix, int depth, int total) {
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        for (int i = 0; i < depth; i++) {
+            Map<String, Integer> r = new LinkedHashMap<>();
+            if (i + 1 < depth) r.put(prefix + " Tier " + (i + 1), 2);
+            r.put(prefix + " Ore " + (i % 5), 3);
+            r.put(prefix + " Gem " + (i % 3), 1);
+            recipes.put(prefix + " Tier " + i, r);
+        }
+        addFiller(recipes, prefix, total);
+        return recipes;
+    }
+
+    /**
+     * {@code depth} levels where "{prefix} Part i" takes "{prefix} Left i" and "{prefix} Right i", both made
+     * from part i + 1. Every sub-recipe is shared by two parents, so the expanded tree of part 0 has on the
+     * order of 2^depth nodes while the graph has 3 * depth recipes.
+     */
+    public static Map<String, Map<String, Integer>> diamond(String prefix, int depth, int total) {
+        Map<String, Map<String, Integer>> recipes = new LinkedHashMap<>();
+        for (int i = 0; i < depth; i++) {
+            recipes.put(prefix + " Part " + i, ordered(prefix + " Left " + i, 1, prefix + " Right " + i, 1));
+            String next = i + 1 < depth ? prefix + " Part " + (i + 1) : prefix + " Core";
+            recipes.put(prefix + " Left " + i, ordered(next, 1, prefix + " Dust", 2));
+            recipes.put(prefix + " Right " + i, ordered(next, 1, prefix + " Shard", 1));
+        }
+        addFiller(recipes, prefix, total);
+        return recipes;
+    }
+
+    /**
+     * Writes a NEU repository archive to {@code zip}: {@code items} entries under {@code repo/items/}, shaped like
+     * the real ones (display name with colour codes, lore, NBT string), a third of them without a recipe, plus a
+     * few entries outside {@code items/} that the ingest must skip.
+     */
+    public static void writeNeuZip(Path zip, String prefix, int items) throws IOException {
+        try (OutputStream os = Files.newOutputStream(zip); ZipOutputStream out = new ZipOutputStream(os)) {
+            out.putNextEntry(new ZipEntry("repo/README.md"));
+            out.write("fixture".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("repo/constants/misc.json"));
+            out.write("{\"skip\":true}".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < items; i++) {
+                String internal = prefix.toUpperCase() + "_ITEM_" + i;
+                StringBuilder json = new StringBuilder(1024);
+                json.append("{\"itemid\":\"minecraft:skull\",\"displayname\":\"\u00a7a").append(prefix).append(" Item ").append(i)
+                    .append("\",\"nbttag\":\"{HideFlags:254,SkullOwner:{Id:\\\"").append(i)
+                    .append("\\\"},display:{Name:\\\"").append(internal).append("\\\"}}\",\"damage\":3,\"lore\":[");
+                for (int l = 0; l < 6; l++) {
+                    if (l > 0) json.append(',');
+                    json.append("\"\u00a77Lore line ").append(l).append(" of ").append(internal).append('"');
+                }
+                json.append("],\"internalname\":\"").append(internal).append('"');
+                if (i % 3 != 0) {
+                    json.append(",\"recipe\":{");
+                    String[] slots = {"A1", "A2", "A3", "B1", "B2", "B3", "C1", "C2", "C3"};
+                    for (int k = 0; k < slots.length; k++) {
+                        if (k > 0) json.append(',');
+                        String ingredient = k % 2 == 0 ? prefix.toUpperCase() + "_ITEM_" + ((i + 1 + k * 13) % items) : "";
+                        json.append('"').append(slots[k]).append("\":\"")
+                            .append(ingredient.isEmpty() ? "" : ingredient + ":" + (1 + k)).append('"');
+                    }
+                    json.append('}');
+                }
+                json.append(",\"clickcommand\":\"viewrecipe\",\"modver\":\"2.1.0\"}");
+                out.putNextEntry(new ZipEntry("repo/items/" + internal + ".json"));
+                out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Writes {@code recipes} as a recipe file in the bundled {@code {"version": 1, "recipes": {...}}} envelope,
+     * or as the bare map the remote and user files use.
+     */
+    public static void writeRecipeFile(Path file, Map<String, Map<String, Integer>> recipes, boolean envelope) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        if (envelope) {
+            root.put("version", 1);
+            root.put("recipes", recipes);
+        } else {
+            root.putAll(recipes);
+        }
+        Files.writeString(file, new Gson().toJson(root), StandardCharsets.UTF_8);
+    }
+
+    private static void addFiller(Map<String, Map<String, Integer>> recipes, String prefix, int total) {
+        for (int i = 0; recipes.size() < total; i++) {
+            recipes.put(prefix + " Filler " + i, ordered(prefix + " Filler Ore " + (i % 50), 4, prefix + " Filler Gem " + (i % 7), 1));
+        }
+    }
+
+    private static Map<String, Integer> ordered(String a, int qa, String b, int qb) {
+        Map<String, Integer> r = new LinkedHashMap<>();
+        r.put(a, qa);
+        r.put(b, qb);
+        return r;
+    }
+}
@@ -0,0 +1,66 @@
+package inventoryreader.ir.recipes;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteRecipeFetcherTest {
+    private static final String SOURCE = "test://fetcher";
+
+    @Test
+    void anUnreadableEntryIsSkippedInsteadOfAbortingTheIngest() throws Exception {
+        Path zip = Files.createTempFile("neu-corrupt", ".zip");
+        try {
+            RecipeFixtures.writeNeuZip(zip, "Bad", 6);
+            byte[] bytes = Files.readAllBytes(zip);
+            // Garble the compressed data of one entry; the central directory still lists it with its CRC
+            byte[] name = "repo/items/BAD_ITEM_2.json".getBytes(StandardCharsets.UTF_8);
+            int header = indexOf(bytes, name);
+            assertTrue(header > 0);
+            for (int i = header + name.length; i < header + name.length + 40; i++) bytes[i] = (byte) 0xFF;
+            Files.write(zip, bytes);
+
+            NeuIndex index = new NeuIndex(SOURCE);
+            List<NeuItemReader.Item> items;
+            try (ZipFile file = new ZipFile(zip.toFile())) {
+                items = RemoteRecipeFetcher.parseItems(file, new NeuIndex(SOURCE), index, new int[1]);
+            }
+            assertEquals(6, items.size());
+            assertNull(items.get(2));
+            assertEquals("BAD_ITEM_3", items.get(3).internalName());
+
+            // The intact archive has the same CRC and size for the entry, so a stored null would be reused
+            RecipeFixtures.writeNeuZip(zip, "Bad", 6);
+            NeuIndex next = new NeuIndex(SOURCE);
+            int[] parsed = new int[1];
+            try (ZipFile file = new ZipFile(zip.toFile())) {
+                items = RemoteRecipeFetcher.parseItems(file, index, next, parsed);
+            }
+            assertEquals(1, parsed[0]);
+            assertEquals("BAD_ITEM_2", items.get(2).internalName());
+            assertEquals("BAD_ITEM_2", next.entries.get("repo/items/BAD_ITEM_2.json").item().internalName());
+        } finally {
+            Files.deleteIfExists(zip);
+        }
+    }
+
+    // First occurrence, which is the local file header's copy of the name
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i + needle.length <= haystack.length; i++) {
+            for (int k = 0; k < needle.length; k++) {
+                if (haystack[i + k] != needle[k]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}